@@ -24,6 +24,11 @@ import org.springframework.web.filter.OncePerRequestFilter;
 public class LogFilter extends OncePerRequestFilter {
   private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
+  /**
+   * MDC key of the number of database rows a request wrote, logged with the response if set.
+   */
+  public static final String ROWS_WRITTEN = "rows_written";
+
   private static final  DecimalFormat REQUEST_RUNTIME_FORMAT = new DecimalFormat("#.###", DecimalFormatSymbols.getInstance(Locale.ENGLISH));
   private static final Long NANOSECONDS_PER_MS = 1000_000L;
   private static final List<String> MUTED_PATHS = Arrays.asList(
@@ -88,6 +93,10 @@ public class LogFilter extends OncePerRequestFilter {
     var time = REQUEST_RUNTIME_FORMAT.format(runtime / NANOSECONDS_PER_MS);
     MDC.put("duration", time);
     b.append(" time=").append(time).append("ms");
+    var rowsWritten = MDC.get(ROWS_WRITTEN);
+    if (rowsWritten != null) {
+      b.append(" rows_written=").append(rowsWritten);
+    }
     logWithRightCategory(logStatus, b.toString());
   }
 
@@ -1,5 +1,6 @@
 package at.ac.tuwien.sepr.assignment.individual.config;
 
+import at.ac.tuwien.sepr.assignment.individual.dto.PageCursor;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
@@ -15,12 +16,15 @@ public class WebConfig implements WebMvcConfigurer {
 
   /**
    * Configures CORS (Cross-Origin Resource Sharing) for all endpoints.
-   * This method allows all methods (GET, POST, OPTIONS, HEAD, DELETE, PUT, PATCH) from all origins.
+   * This method allows all methods (GET, POST, OPTIONS, HEAD, DELETE, PUT, PATCH) from all origins,
+   * and lets clients read the header with the cursor of the next page.
    *
    * @param registry CorsRegistry instance used for configuring CORS mappings.
    */
   @Override
   public void addCorsMappings(CorsRegistry registry) {
-    registry.addMapping("/**").allowedMethods("GET", "POST", "OPTIONS", "HEAD", "DELETE", "PUT", "PATCH");
+    registry.addMapping("/**")
+        .allowedMethods("GET", "POST", "OPTIONS", "HEAD", "DELETE", "PUT", "PATCH")
+        .exposedHeaders(PageCursor.NEXT_CURSOR_HEADER);
   }
 }
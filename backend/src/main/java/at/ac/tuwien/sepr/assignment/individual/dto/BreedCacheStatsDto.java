@@ -0,0 +1,15 @@
+package at.ac.tuwien.sepr.assignment.individual.dto;
+
+/**
+ * DTO record for the usage statistics of the in-memory breed cache.
+ *
+ * @param size the number of breeds cached
+ * @param hits the number of lookups answered from the cache
+ * @param misses the number of lookups that had to go to the database
+ */
+public record BreedCacheStatsDto(
+    int size,
+    long hits,
+    long misses
+) {
+}
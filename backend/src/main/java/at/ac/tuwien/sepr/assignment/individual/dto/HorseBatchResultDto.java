@@ -0,0 +1,18 @@
+package at.ac.tuwien.sepr.assignment.individual.dto;
+
+import java.util.List;
+
+/**
+ * DTO record for the outcome of creating a single horse of a batch.
+ * Exactly one of {@code id} and {@code errors} is set.
+ *
+ * @param index the position of the horse in the batch, starting at 0
+ * @param id the generated ID of the horse, if it was created
+ * @param errors the validation errors of the horse, if it was not created
+ */
+public record HorseBatchResultDto(
+    int index,
+    Long id,
+    List<String> errors
+) {
+}
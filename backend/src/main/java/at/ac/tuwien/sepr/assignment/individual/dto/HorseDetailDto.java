@@ -13,6 +13,7 @@ import java.time.LocalDate;
  * @param height height of the horse
  * @param weight weight of the horse
  * @param breed breed of the horse
+ * @param version the version of the horse as read; if given, an update only succeeds if the horse is still unchanged
  */
 public record HorseDetailDto(
     Long id,
@@ -21,7 +22,8 @@ public record HorseDetailDto(
     LocalDate dateOfBirth,
     float height,
     float weight,
-    BreedDto breed
+    BreedDto breed,
+    Integer version
 ) {
 
   /**
@@ -38,6 +40,7 @@ public record HorseDetailDto(
         dateOfBirth,
         height,
         weight,
-        breed);
+        breed,
+        version);
   }
 }
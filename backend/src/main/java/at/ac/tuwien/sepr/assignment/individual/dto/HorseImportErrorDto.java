@@ -0,0 +1,15 @@
+package at.ac.tuwien.sepr.assignment.individual.dto;
+
+import java.util.List;
+
+/**
+ * DTO record for a row of an import file that could not be imported.
+ *
+ * @param line the line of the row in the file, starting at 1
+ * @param errors why the row could not be imported
+ */
+public record HorseImportErrorDto(
+    long line,
+    List<String> errors
+) {
+}
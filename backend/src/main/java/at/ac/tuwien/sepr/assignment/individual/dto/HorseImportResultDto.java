@@ -0,0 +1,20 @@
+package at.ac.tuwien.sepr.assignment.individual.dto;
+
+import java.util.List;
+
+/**
+ * DTO record for the outcome of importing a file of horses.
+ * Only the first few invalid rows are reported in detail, so the result stays small for any file.
+ *
+ * @param rows the number of rows read, not counting the header and blank lines
+ * @param imported the number of horses created
+ * @param failed the number of rows that could not be imported
+ * @param errors the first of the rows that could not be imported
+ */
+public record HorseImportResultDto(
+    long rows,
+    long imported,
+    long failed,
+    List<HorseImportErrorDto> errors
+) {
+}
@@ -0,0 +1,25 @@
+package at.ac.tuwien.sepr.assignment.individual.dto;
+
+import at.ac.tuwien.sepr.assignment.individual.type.Sex;
+import java.time.LocalDate;
+
+/**
+ * DTO record for a single horse of an import file.
+ * Unlike {@link HorseDetailDto}, the breed is referenced by its name.
+ *
+ * @param name the name of the horse
+ * @param sex the sex of the horse
+ * @param dateOfBirth the date of birth of the horse
+ * @param height the height of the horse
+ * @param weight the weight of the horse
+ * @param breed the name of the breed of the horse, may be null
+ */
+public record HorseImportRowDto(
+    String name,
+    Sex sex,
+    LocalDate dateOfBirth,
+    Float height,
+    Float weight,
+    String breed
+) {
+}
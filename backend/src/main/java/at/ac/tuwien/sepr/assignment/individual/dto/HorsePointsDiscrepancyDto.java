@@ -0,0 +1,20 @@
+package at.ac.tuwien.sepr.assignment.individual.dto;
+
+import java.time.LocalDate;
+
+/**
+ * DTO record for a difference between the maintained ranking points of a horse and the ones recomputed
+ * from its tournament results.
+ *
+ * @param horseId the ID of the horse
+ * @param endDate the end date of the tournaments the points were earned in
+ * @param stored the points stored in the read model, 0 if there are none
+ * @param expected the points recomputed from the tournament results
+ */
+public record HorsePointsDiscrepancyDto(
+    long horseId,
+    LocalDate endDate,
+    int stored,
+    int expected
+) {
+}
@@ -14,6 +14,7 @@ import org.springframework.format.annotation.DateTimeFormat;
  * @param bornLatest the latest date of birth of the horse to search for
  * @param breed the breed of the horse to search for
  * @param limit the maximum number of results to return
+ * @param cursor the {@link PageCursor token} of the previous page; results are returned sorted by name and ID
  */
 public record HorseSearchDto(
     String name,
@@ -23,6 +24,7 @@ public record HorseSearchDto(
     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
     LocalDate bornLatest,
     String breed,
-    Integer limit
+    Integer limit,
+    String cursor
 ) {
 }
@@ -0,0 +1,11 @@
+package at.ac.tuwien.sepr.assignment.individual.dto;
+
+/**
+ * DTO record for the result of a single match of a tournament.
+ *
+ * @param horseId the ID of the horse that won the match
+ */
+public record MatchResultDto(
+    Long horseId
+) {
+}
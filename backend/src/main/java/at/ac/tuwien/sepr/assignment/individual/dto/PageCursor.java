@@ -0,0 +1,51 @@
+package at.ac.tuwien.sepr.assignment.individual.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in a list of search results, sorted by a key and then by ID.
+ * The next page consists of the results sorted after this position.
+ * Clients only ever see the {@link #encode() encoded} form, which they are to pass back unchanged.
+ *
+ * @param key the sort key of the last result of the previous page, as a string
+ * @param id the ID of the last result of the previous page
+ */
+public record PageCursor(
+    String key,
+    long id
+) {
+  /**
+   * Response header carrying the cursor of the next page, if the page returned was full.
+   */
+  public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+  /**
+   * Encode this cursor as an opaque, URL-safe token.
+   *
+   * @return the token for this cursor
+   */
+  public String encode() {
+    var raw = id + ":" + key;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Decode a token created by {@link #encode()}.
+   *
+   * @param token the token to decode, may be {@code null}
+   * @return the cursor, or {@code null} if {@code token} is {@code null}
+   * @throws IllegalArgumentException if {@code token} is not a valid cursor
+   */
+  public static PageCursor decode(String token) {
+    if (token == null) {
+      return null;
+    }
+    var raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+    int separator = raw.indexOf(':');
+    if (separator < 0) {
+      throw new IllegalArgumentException("Malformed cursor");
+    }
+    return new PageCursor(raw.substring(separator + 1), Long.parseLong(raw.substring(0, separator)));
+  }
+}
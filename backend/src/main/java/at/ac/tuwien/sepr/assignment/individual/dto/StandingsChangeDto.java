@@ -0,0 +1,17 @@
+package at.ac.tuwien.sepr.assignment.individual.dto;
+
+/**
+ * DTO record for a position of the standings tree that differs between two versions of the standings.
+ *
+ * @param round the round a horse at the position reached; 1 for the entries, one more than the final for the winner
+ * @param position the position within its round, starting at 1; the entry number for the first round
+ * @param fromHorseId the ID of the horse at the position in the older version, or {@code null} if there was none
+ * @param toHorseId the ID of the horse at the position in the newer version, or {@code null} if there is none
+ */
+public record StandingsChangeDto(
+    int round,
+    int position,
+    Long fromHorseId,
+    Long toHorseId
+) {
+}
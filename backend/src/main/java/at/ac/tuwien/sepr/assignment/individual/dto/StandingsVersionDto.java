@@ -0,0 +1,15 @@
+package at.ac.tuwien.sepr.assignment.individual.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO record for a version in the history of the standings of a tournament.
+ *
+ * @param version the number of the version, starting at 1
+ * @param createdAt when the change that led to the version was accepted
+ */
+public record StandingsVersionDto(
+    int version,
+    LocalDateTime createdAt
+) {
+}
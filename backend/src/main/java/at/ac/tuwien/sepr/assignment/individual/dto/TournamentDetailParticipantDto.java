@@ -10,12 +10,14 @@ import java.time.LocalDate;
  * @param dateOfBirth the date of birth of the horse
  * @param entryNumber the entry number of the horse
  * @param roundReached the number of the reached round of the horse
+ * @param version the version of the participation as read; if given, an update only succeeds if it is still unchanged
  */
 public record TournamentDetailParticipantDto(
     Long horseId,
     String name,
     LocalDate dateOfBirth,
     int entryNumber,
-    int roundReached
+    int roundReached,
+    Integer version
 ) {
 }
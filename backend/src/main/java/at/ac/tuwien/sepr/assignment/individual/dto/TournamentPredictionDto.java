@@ -0,0 +1,20 @@
+package at.ac.tuwien.sepr.assignment.individual.dto;
+
+import java.util.List;
+
+/**
+ * DTO record for the predicted outcome of a tournament for one of its participants.
+ *
+ * @param horseId the ID of the horse
+ * @param name the name of the horse
+ * @param entryNumber the entry number of the horse
+ * @param reachProbabilities the estimated probability of reaching every round, starting with the first;
+ *     the last one is the probability of winning the tournament
+ */
+public record TournamentPredictionDto(
+    Long horseId,
+    String name,
+    int entryNumber,
+    List<Double> reachProbabilities
+) {
+}
@@ -10,12 +10,16 @@ import java.time.LocalDate;
  * @param name the name of the tournament to search for
  * @param startDate the start date of the tournament to search for
  * @param endDate the end date of the tournament to search for
+ * @param limit the maximum number of results to return
+ * @param cursor the {@link PageCursor token} of the previous page; results are returned sorted by start date and ID
  * */
 public record TournamentSearchParamsDto(
     String name,
     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
     LocalDate startDate,
     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
-    LocalDate endDate
+    LocalDate endDate,
+    Integer limit,
+    String cursor
 ) {
 }
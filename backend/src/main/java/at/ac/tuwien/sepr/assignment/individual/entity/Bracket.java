@@ -0,0 +1,180 @@
+package at.ac.tuwien.sepr.assignment.individual.entity;
+
+/**
+ * The knockout bracket of a tournament, kept as an implicit binary tree in two arrays.
+ * Node 1 is the final and the children of node {@code i} are the matches {@code 2i} and {@code 2i + 1}
+ * whose winners meet in it. The leaves {@code size .. 2 * size - 1} are the entries,
+ * so the horse with entry number {@code e} starts out at node {@code size + e - 1}.
+ * Every node holds the entry number of the horse that reached it, or 0 if no horse did (yet).
+ */
+public final class Bracket {
+  private final int size;
+  private final int rounds;
+  private final int[] nodes;
+  private final long[] horseIds;
+
+  /**
+   * Create an empty bracket.
+   *
+   * @param size the number of entries, a power of two of at least 2
+   */
+  public Bracket(int size) {
+    if (size < 2 || Integer.bitCount(size) != 1) {
+      throw new IllegalArgumentException("Bracket size must be a power of two of at least 2, but is " + size);
+    }
+    this.size = size;
+    this.rounds = Integer.numberOfTrailingZeros(size);
+    this.nodes = new int[2 * size];
+    this.horseIds = new long[size + 1];
+  }
+
+  /**
+   * Create the bracket in which every horse reached the given round.
+   * A match is won by the one of its two horses that reached the highest round, if that is at least the round after it.
+   *
+   * @param horseIds the horse IDs, by entry number minus one
+   * @param roundsReached the round each horse reached, by entry number minus one, 0 for a horse not in the bracket
+   * @return the bracket
+   */
+  public static Bracket ofRoundsReached(long[] horseIds, int[] roundsReached) {
+    var bracket = new Bracket(horseIds.length);
+    int size = bracket.size;
+    for (int entry = 1; entry <= size; entry++) {
+      if (roundsReached[entry - 1] > 0) {
+        bracket.enter(entry, horseIds[entry - 1]);
+      }
+    }
+    for (int node = size - 1; node >= 1; node--) {
+      int left = bracket.nodes[2 * node];
+      int right = bracket.nodes[2 * node + 1];
+      int best = right != 0 && (left == 0 || roundsReached[right - 1] > roundsReached[left - 1]) ? right : left;
+      if (best != 0 && roundsReached[best - 1] >= bracket.roundOf(node)) {
+        bracket.nodes[node] = best;
+      }
+    }
+    return bracket;
+  }
+
+  /**
+   * Create the bracket with the given horses at its nodes.
+   *
+   * @param horseIds the ID of the horse at every node, 0 if no horse reached it;
+   *     its length is twice the size, the first element is unused
+   * @return the bracket
+   * @throws IllegalArgumentException if a horse reached a node without having reached one of its children
+   */
+  public static Bracket ofHorseIds(long[] horseIds) {
+    var bracket = new Bracket(horseIds.length / 2);
+    int size = bracket.size;
+    for (int entry = 1; entry <= size; entry++) {
+      if (horseIds[bracket.leaf(entry)] != 0) {
+        bracket.enter(entry, horseIds[bracket.leaf(entry)]);
+      }
+    }
+    for (int node = size - 1; node >= 1; node--) {
+      if (horseIds[node] != 0) {
+        bracket.setWinner(node, horseIds[2 * node] == horseIds[node] ? bracket.nodes[2 * node] : bracket.nodes[2 * node + 1]);
+      }
+    }
+    return bracket;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Get the node the horse with the given entry number starts out at.
+   *
+   * @param entryNumber the entry number, from 1 to {@link #size()}
+   * @return the leaf node
+   */
+  public int leaf(int entryNumber) {
+    return size + entryNumber - 1;
+  }
+
+  public boolean isLeaf(int node) {
+    return node >= size;
+  }
+
+  /**
+   * Get the round a horse has reached if it reached the given node.
+   * The leaves are round 1 and the final's node is one round beyond the final.
+   *
+   * @param node the node, from 1 to {@code 2 * size() - 1}
+   * @return the round
+   */
+  public int roundOf(int node) {
+    // the depth of a node is the position of its highest bit
+    return rounds + 1 - (31 - Integer.numberOfLeadingZeros(node));
+  }
+
+  /**
+   * Get the entry number of the horse at the given node.
+   *
+   * @param node the node, from 1 to {@code 2 * size() - 1}
+   * @return the entry number, or 0 if no horse reached the node
+   */
+  public int entryAt(int node) {
+    return nodes[node];
+  }
+
+  /**
+   * Get the ID of the horse with the given entry number.
+   *
+   * @param entryNumber the entry number of a horse that was entered
+   * @return the horse ID
+   */
+  public long horseId(int entryNumber) {
+    return horseIds[entryNumber];
+  }
+
+  /**
+   * Get the ID of the horse at the given node.
+   *
+   * @param node the node, from 1 to {@code 2 * size() - 1}
+   * @return the horse ID, or 0 if no horse reached the node
+   */
+  public long horseIdAt(int node) {
+    return nodes[node] == 0 ? 0 : horseIds[nodes[node]];
+  }
+
+  /**
+   * Put a horse into the bracket.
+   *
+   * @param entryNumber the entry number of the horse, from 1 to {@link #size()}
+   * @param horseId the ID of the horse
+   */
+  public void enter(int entryNumber, long horseId) {
+    horseIds[entryNumber] = horseId;
+    nodes[leaf(entryNumber)] = entryNumber;
+  }
+
+  /**
+   * Record the winner of a match.
+   *
+   * @param node the node of the match, from 1 to {@code size() - 1}
+   * @param entryNumber the entry number of the winner, which must be at one of the node's children
+   */
+  public void setWinner(int node, int entryNumber) {
+    if (nodes[2 * node] != entryNumber && nodes[2 * node + 1] != entryNumber) {
+      throw new IllegalArgumentException("Entry " + entryNumber + " does not play in the match at node " + node);
+    }
+    nodes[node] = entryNumber;
+  }
+
+  /**
+   * Get the round every horse reached, which is the number of nodes it reached.
+   *
+   * @return the rounds, by entry number minus one, 0 for a horse not in the bracket
+   */
+  public int[] roundsReached() {
+    int[] roundsReached = new int[size];
+    for (int node = 1; node < 2 * size; node++) {
+      if (nodes[node] != 0) {
+        roundsReached[nodes[node] - 1]++;
+      }
+    }
+    return roundsReached;
+  }
+}
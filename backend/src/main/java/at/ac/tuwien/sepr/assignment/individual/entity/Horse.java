@@ -14,6 +14,7 @@ public class Horse {
   private float height;
   private float weight;
   private Long breedId;
+  private Integer version;
 
   public Long getId() {
     return id;
@@ -78,4 +79,13 @@ public class Horse {
     return this;
   }
 
+  public Integer getVersion() {
+    return version;
+  }
+
+  public Horse setVersion(Integer version) {
+    this.version = version;
+    return this;
+  }
+
 }
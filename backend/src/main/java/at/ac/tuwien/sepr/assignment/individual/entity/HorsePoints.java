@@ -0,0 +1,36 @@
+package at.ac.tuwien.sepr.assignment.individual.entity;
+
+import java.time.LocalDate;
+
+/**
+ * Represents a horse along with the ranking points it earned in the tournaments of some period.
+ */
+public class HorsePoints {
+  private final Long horseId;
+  private final String name;
+  private final LocalDate dateOfBirth;
+  private final int points;
+
+  public HorsePoints(Long horseId, String name, LocalDate dateOfBirth, int points) {
+    this.horseId = horseId;
+    this.name = name;
+    this.dateOfBirth = dateOfBirth;
+    this.points = points;
+  }
+
+  public Long getHorseId() {
+    return horseId;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public LocalDate getDateOfBirth() {
+    return dateOfBirth;
+  }
+
+  public int getPoints() {
+    return points;
+  }
+}
@@ -9,12 +9,18 @@ public class HorseTournament {
   private final Long tournamentId;
   private int entryNumber;
   private int roundReached;
+  private Integer version;
 
   public HorseTournament(Long horseId, Long tournamentId, int entryNumber, int roundReached) {
+    this(horseId, tournamentId, entryNumber, roundReached, null);
+  }
+
+  public HorseTournament(Long horseId, Long tournamentId, int entryNumber, int roundReached, Integer version) {
     this.horseId = horseId;
     this.tournamentId = tournamentId;
     this.entryNumber = entryNumber;
     this.roundReached = roundReached;
+    this.version = version;
   }
 
   public Long getHorseId() {
@@ -40,4 +46,8 @@ public class HorseTournament {
     return tournamentId;
   }
 
+  public Integer getVersion() {
+    return version;
+  }
+
 }
@@ -0,0 +1,81 @@
+package at.ac.tuwien.sepr.assignment.individual.entity;
+
+import java.time.LocalDateTime;
+
+/**
+ * Represents a version of the standings of a tournament in its history.
+ * When loaded with its bracket, the nodes are indexed as in {@link Bracket}: for every node, the ID of the horse
+ * that reached it and the ID the node is stored with. Versions share the nodes of the subtrees that did not change
+ * between them, so two nodes with the same ID are the same whole subtree.
+ */
+public class StandingsVersion {
+  private Long tournamentId;
+  private int version;
+  private LocalDateTime createdAt;
+  private long[] horseIds;
+  private long[] nodeIds;
+
+  public Long getTournamentId() {
+    return tournamentId;
+  }
+
+  public StandingsVersion setTournamentId(Long tournamentId) {
+    this.tournamentId = tournamentId;
+    return this;
+  }
+
+  public int getVersion() {
+    return version;
+  }
+
+  public StandingsVersion setVersion(int version) {
+    this.version = version;
+    return this;
+  }
+
+  public LocalDateTime getCreatedAt() {
+    return createdAt;
+  }
+
+  public StandingsVersion setCreatedAt(LocalDateTime createdAt) {
+    this.createdAt = createdAt;
+    return this;
+  }
+
+  /**
+   * Get the horses of the bracket.
+   *
+   * @return the ID of the horse at every node, 0 if no horse reached it, or {@code null} if the bracket was not loaded
+   */
+  public long[] getHorseIds() {
+    return horseIds;
+  }
+
+  public StandingsVersion setHorseIds(long[] horseIds) {
+    this.horseIds = horseIds;
+    return this;
+  }
+
+  /**
+   * Get the IDs the nodes of the bracket are stored with.
+   *
+   * @return the ID of every node, 0 for a node in a subtree without horses, or {@code null} if the bracket was not loaded
+   */
+  public long[] getNodeIds() {
+    return nodeIds;
+  }
+
+  public StandingsVersion setNodeIds(long[] nodeIds) {
+    this.nodeIds = nodeIds;
+    return this;
+  }
+
+  @Override
+  public String toString() {
+    return "StandingsVersion{"
+        + "tournamentId=" + tournamentId
+        + ", version=" + version
+        + ", createdAt=" + createdAt
+        + '}';
+  }
+}
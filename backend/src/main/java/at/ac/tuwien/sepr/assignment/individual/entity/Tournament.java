@@ -11,6 +11,7 @@ public class Tournament {
   private String name;
   private LocalDate startDate;
   private LocalDate endDate;
+  private int bracketSize;
 
   public Long getId() {
     return id;
@@ -48,5 +49,14 @@ public class Tournament {
     return this;
   }
 
+  public int getBracketSize() {
+    return bracketSize;
+  }
+
+  public Tournament setBracketSize(int bracketSize) {
+    this.bracketSize = bracketSize;
+    return this;
+  }
+
 
 }
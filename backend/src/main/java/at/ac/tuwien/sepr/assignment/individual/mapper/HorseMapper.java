@@ -9,7 +9,6 @@ import at.ac.tuwien.sepr.assignment.individual.entity.Horse;
 import at.ac.tuwien.sepr.assignment.individual.exception.FatalException;
 import java.lang.invoke.MethodHandles;
 import java.util.Map;
-import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
@@ -65,7 +64,8 @@ public class HorseMapper {
         horse.getDateOfBirth(),
         horse.getHeight(),
         horse.getWeight(),
-        breedFromMap(horse, breeds)
+        breedFromMap(horse, breeds),
+        horse.getVersion()
     );
   }
 
@@ -92,15 +92,17 @@ public class HorseMapper {
     var breedId = horse.getBreedId();
     if (breedId == null) {
       return null;
-    } else {
-      return Optional.ofNullable(map.get(breedId))
-          .orElseThrow(() -> new FatalException(
-              "Saved horse with id " + horse.getId() + " refers to non-existing breed with id " + breedId));
     }
+    var breed = map.get(breedId);
+    if (breed == null) {
+      throw new FatalException(
+          "Saved horse with id " + horse.getId() + " refers to non-existing breed with id " + breedId);
+    }
+    return breed;
   }
 
   public TournamentDetailParticipantDto entityToTournamentParticipantDto(Horse horse, int i) {
     LOG.trace("entityToTournamentParticipantDto({})", horse);
-    return new TournamentDetailParticipantDto(horse.getId(), horse.getName(), horse.getDateOfBirth(), i, 1);
+    return new TournamentDetailParticipantDto(horse.getId(), horse.getName(), horse.getDateOfBirth(), i, 1, null);
   }
 }
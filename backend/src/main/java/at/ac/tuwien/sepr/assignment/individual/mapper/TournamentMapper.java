@@ -1,12 +1,15 @@
 package at.ac.tuwien.sepr.assignment.individual.mapper;
 
 import at.ac.tuwien.sepr.assignment.individual.dto.HorseSelectionDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.StandingsVersionDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.TournamentDetailDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.TournamentDetailParticipantDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.TournamentListDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.TournamentStandingsDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.TournamentStandingsTreeDto;
+import at.ac.tuwien.sepr.assignment.individual.entity.Bracket;
 import at.ac.tuwien.sepr.assignment.individual.entity.HorseTournament;
+import at.ac.tuwien.sepr.assignment.individual.entity.StandingsVersion;
 import at.ac.tuwien.sepr.assignment.individual.entity.Tournament;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,14 +17,13 @@ import org.springframework.stereotype.Component;
 
 import java.lang.invoke.MethodHandles;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
 /**
  * Mapper class that maps a {@link Tournament} to a {@link TournamentListDto}
- * It also includes the logic to generate and fill the tournament standings tree, which is used in entityToTournamentStandingsDto
+ * It also converts between the tournament standings tree and the {@link Bracket} the standings are worked on in
  */
 @Component
 public class TournamentMapper {
@@ -69,16 +71,35 @@ public class TournamentMapper {
     );
   }
 
+  /**
+   * Convert a version of the standings of a tournament to a {@link StandingsVersionDto}.
+   *
+   * @param version the version to convert
+   * @return the converted {@link StandingsVersionDto}
+   */
+  public StandingsVersionDto entityToStandingsVersionDto(StandingsVersion version) {
+    LOG.trace("entityToStandingsVersionDto({})", version);
+    if (version == null) {
+      return null;
+    }
+
+    return new StandingsVersionDto(
+        version.getVersion(),
+        version.getCreatedAt()
+    );
+  }
+
   /**
    * Converts a HorseSelectionDto, together with its entryNo. and the number of round reached to a {@link TournamentDetailParticipantDto}
    *
    * @param horseSelectionDto the {@link HorseSelectionDto} to convert
    * @param entryNo the entryNo of the {@link HorseSelectionDto}
    * @param roundReached the number of round reached
+   * @param version the version of the participation, may be {@code null}
    * @return the converted {@link TournamentDetailParticipantDto}
    */
   public TournamentDetailParticipantDto entityToTournamentDetailParticipantDto(HorseSelectionDto horseSelectionDto,
-                                                                               int entryNo, int roundReached) {
+                                                                               int entryNo, int roundReached, Integer version) {
     LOG.trace("entityToTournamentDetailParticipantDto({})", horseSelectionDto);
     if (horseSelectionDto == null) {
       return null;
@@ -89,13 +110,14 @@ public class TournamentMapper {
         horseSelectionDto.name(),
         horseSelectionDto.dateOfBirth(),
         entryNo,
-        roundReached
+        roundReached,
+        version
     );
   }
 
   /**
    * Convert a tournament entity object, together with its participants to a {@link TournamentStandingsDto}.
-   * It calls generateTree and fillStandingsTree to create and if participants are given, fill the tree accordingly.
+   * The tree is derived from the rounds the participants reached, by way of a {@link Bracket}.
    *
    * @param tournament the {@link Tournament} to convert
    * @param horseTournaments the {@link HorseTournament}s of the tournament
@@ -112,71 +134,103 @@ public class TournamentMapper {
     for (HorseTournament horseTournament : horseTournaments) {
       HorseSelectionDto horse = horses.get(horseTournament.getHorseId());
       participants.add(entityToTournamentDetailParticipantDto((new HorseSelectionDto(horse.id(), horse.name(),
-          horse.dateOfBirth())), horseTournament.getEntryNumber(), horseTournament.getRoundReached()));
+          horse.dateOfBirth())), horseTournament.getEntryNumber(), horseTournament.getRoundReached(),
+          horseTournament.getVersion()));
     }
-    TournamentStandingsTreeDto root = generateTree(null, 1);
-    List<TournamentDetailParticipantDto> participantsList = new ArrayList<>(participants);
-    TournamentDetailParticipantDto[] sortedParticipants = new TournamentDetailParticipantDto[participantsList.size()];
-    for (int i = 0; i < 8; i++) {
-      int j = i + 1;
-      sortedParticipants[i] = participants.stream().filter(p -> p.entryNumber() == j).findFirst().orElse(null);
-      participants.remove(sortedParticipants[i]);
+
+    // every horse goes to the slot of its entry number, horses without a free one to the free slots in order
+    int size = tournament.getBracketSize();
+    TournamentDetailParticipantDto[] byEntry = new TournamentDetailParticipantDto[size];
+    List<TournamentDetailParticipantDto> unplaced = new ArrayList<>();
+    for (TournamentDetailParticipantDto participant : participants) {
+      int entry = participant.entryNumber();
+      if (entry >= 1 && entry <= size && byEntry[entry - 1] == null) {
+        byEntry[entry - 1] = participant;
+      } else {
+        unplaced.add(participant);
+      }
     }
-    for (int i = 0; i < 8; i++) {
-      if (sortedParticipants[i] == null) {
-        sortedParticipants[i] = participants.get(0);
-        participants.remove(0);
+    long[] horseIds = new long[size];
+    int[] roundsReached = new int[size];
+    var next = unplaced.iterator();
+    for (int i = 0; i < size; i++) {
+      if (byEntry[i] == null && next.hasNext()) {
+        byEntry[i] = next.next();
+      }
+      if (byEntry[i] != null) {
+        horseIds[i] = byEntry[i].horseId();
+        roundsReached[i] = byEntry[i].roundReached();
       }
     }
-    root = fillStandingsTree(root, Arrays.stream(sortedParticipants).toList(), 4);
 
     return new TournamentStandingsDto(
         tournament.getId(),
         tournament.getName(),
-        participantsList,
-        root
+        participants,
+        bracketToTreeDto(Bracket.ofRoundsReached(horseIds, roundsReached), byEntry, 1)
     );
   }
 
-  private TournamentStandingsTreeDto generateTree(TournamentStandingsTreeDto root, int i) {
-    LOG.trace("createTree({})", root);
-    if (i <= 3) {
-      if (root == null) {
-        root = new TournamentStandingsTreeDto(null, new ArrayList<>());
-      }
-      root.branches().add(generateTree(null, i + 1));
-      root.branches().add(generateTree(null, i + 1));
-    } else {
-      root = new TournamentStandingsTreeDto(null, null); //leaf node
+  private TournamentStandingsTreeDto bracketToTreeDto(Bracket bracket, TournamentDetailParticipantDto[] byEntry, int node) {
+    int entry = bracket.entryAt(node);
+    TournamentDetailParticipantDto participant = entry == 0 ? null : byEntry[entry - 1];
+    if (bracket.isLeaf(node)) {
+      return new TournamentStandingsTreeDto(participant, null);
     }
-    return root;
+    return new TournamentStandingsTreeDto(participant, List.of(
+        bracketToTreeDto(bracket, byEntry, 2 * node),
+        bracketToTreeDto(bracket, byEntry, 2 * node + 1)));
   }
-  private TournamentStandingsTreeDto fillStandingsTree(TournamentStandingsTreeDto root, List<TournamentDetailParticipantDto> participants, int depth) {
-    LOG.trace("fillStandingsTree({})", root);
-    if (participants.size() == 1) {
-      if (participants.get(0).roundReached() != 0) {
-        root = new TournamentStandingsTreeDto(participants.get(0), root.branches());
-      } else {
-        root = new TournamentStandingsTreeDto(null, root.branches());
-      }
-      return root;
+
+  /**
+   * Convert a tournament standings tree to a {@link Bracket}.
+   * The leaves of the tree are the entries in order of their entry numbers.
+   *
+   * @param tree the tree to convert
+   * @param size the number of entries of the bracket
+   * @return the converted {@link Bracket}, or {@code null} if the tree does not have the shape of a bracket of the given size
+   *     or a horse won a match it did not play in
+   */
+  public Bracket treeDtoToBracket(TournamentStandingsTreeDto tree, int size) {
+    LOG.trace("treeDtoToBracket({}, {})", tree, size);
+    if (tree == null) {
+      return null;
     }
-    int maxRound = 0;
-    TournamentDetailParticipantDto maxRoundParticipant = null;
-    for (TournamentDetailParticipantDto participantDto : participants) {
-      if (participantDto.roundReached() > maxRound && participantDto.roundReached() >= depth) {
-        maxRound = participantDto.roundReached();
-        maxRoundParticipant = participantDto;
+    var bracket = new Bracket(size);
+    return fillBracket(bracket, tree, 1) ? bracket : null;
+  }
+
+  private boolean fillBracket(Bracket bracket, TournamentStandingsTreeDto tree, int node) {
+    if (tree == null || tree.thisParticipant() != null && tree.thisParticipant().horseId() == null) {
+      return false;
+    }
+    TournamentDetailParticipantDto participant = tree.thisParticipant();
+    if (bracket.isLeaf(node)) {
+      if (participant != null) {
+        bracket.enter(node - bracket.leaf(1) + 1, participant.horseId());
       }
+      return tree.branches() == null || tree.branches().isEmpty();
     }
-    root = new TournamentStandingsTreeDto(maxRoundParticipant, root.branches());
-
-    if (root.branches() != null && root.branches().size() == 2) {
-      root.branches().set(0, fillStandingsTree(root.branches().get(0), participants.subList(0, participants.size() / 2), depth - 1));
-      root.branches().set(1, fillStandingsTree(root.branches().get(1), participants.subList(participants.size() / 2,
-          participants.size()), depth - 1));
+    if (tree.branches() == null || tree.branches().size() != 2
+        || !fillBracket(bracket, tree.branches().get(0), 2 * node)
+        || !fillBracket(bracket, tree.branches().get(1), 2 * node + 1)) {
+      return false;
+    }
+    if (participant != null) {
+      // the winner of a match is one of the two horses that reached it
+      int winner = 0;
+      for (int child = 2 * node; child <= 2 * node + 1; child++) {
+        int entry = bracket.entryAt(child);
+        if (entry != 0 && bracket.horseId(entry) == participant.horseId()) {
+          winner = entry;
+        }
+      }
+      if (winner == 0) {
+        return false;
+      }
+      bracket.setWinner(node, winner);
     }
-    return root;
+    return true;
   }
 
   /**
@@ -195,7 +249,8 @@ public class TournamentMapper {
         horse.horseId(),
         tournamentId,
         horse.entryNumber(),
-        0
+        0,
+        horse.version()
     );
 
   }
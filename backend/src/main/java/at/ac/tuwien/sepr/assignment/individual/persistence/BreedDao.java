@@ -19,12 +19,19 @@ public interface BreedDao {
    */
   Collection<Breed> findBreedsById(Set<Long> breedIds);
 
+  /**
+   * Get all stored breeds.
+   *
+   * @return all breeds, sorted by name and ID
+   */
+  Collection<Breed> findAll();
+
   /**
    * Search for breeds with the given search parameters.
    * Parameters that are {@code null} are ignored.
    *
    * @param searchParams  the search parameters
-   * @return A collection of the breeds with the given search parameters
+   * @return A collection of the breeds with the given search parameters, sorted by name and ID
    */
   Collection<Breed> search(BreedSearchDto searchParams);
 }
@@ -0,0 +1,25 @@
+package at.ac.tuwien.sepr.assignment.individual.persistence;
+
+import java.util.Locale;
+
+/**
+ * Case folding of names the same way as H2's {@code UPPER}.
+ * The in-memory indexes and caches that stand in for a {@code UPPER(name) LIKE UPPER('%'||:name||'%')} search
+ * all fold with this, so that they find exactly the rows the SQL search would.
+ */
+public final class CaseFolding {
+
+  private CaseFolding() {
+  }
+
+  /**
+   * Fold a name to upper case.
+   *
+   * @param name the name to fold
+   * @return the name as H2's {@code UPPER} returns it
+   */
+  public static String upper(String name) {
+    // H2 implements UPPER with the English locale
+    return name.toUpperCase(Locale.ENGLISH);
+  }
+}
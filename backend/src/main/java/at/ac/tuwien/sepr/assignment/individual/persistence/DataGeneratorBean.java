@@ -6,6 +6,8 @@ import java.sql.SQLException;
 import javax.sql.DataSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.DependsOn;
 import org.springframework.context.annotation.Profile;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.jdbc.datasource.init.ScriptUtils;
@@ -17,15 +19,20 @@ import org.springframework.stereotype.Component;
  */
 @Component
 @Profile("datagen")
+@DependsOn("schemaMigrationRunner") // the tables have to exist before data can be generated
 public class DataGeneratorBean {
   private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
   private final DataSource dataSource;
+  private final ApplicationEventPublisher eventPublisher;
+  private final HorsePointsDao horsePointsDao;
 
   /**
    * Executed once when the component is instantiated. Inserts some dummy data.
    */
-  public DataGeneratorBean(DataSource dataSource) {
+  public DataGeneratorBean(DataSource dataSource, ApplicationEventPublisher eventPublisher, HorsePointsDao horsePointsDao) {
     this.dataSource = dataSource;
+    this.eventPublisher = eventPublisher;
+    this.horsePointsDao = horsePointsDao;
   }
 
   @PostConstruct
@@ -35,6 +42,9 @@ public class DataGeneratorBean {
       ScriptUtils.executeSqlScript(connection, new ClassPathResource("sql/insertData.sql"));
       LOGGER.info("Finished generating data without error.");
     }
+    // the script inserts tournament results directly, bypassing the maintenance of the points
+    horsePointsDao.rebuild();
+    eventPublisher.publishEvent(new DataReloadedEvent());
   }
 
   public void clearData() throws SQLException {
@@ -43,5 +53,6 @@ public class DataGeneratorBean {
       ScriptUtils.executeSqlScript(connection, new ClassPathResource("sql/deleteData.sql"));
       LOGGER.info("Finished clearing data without error");
     }
+    eventPublisher.publishEvent(new DataReloadedEvent());
   }
 }
@@ -0,0 +1,9 @@
+package at.ac.tuwien.sepr.assignment.individual.persistence;
+
+/**
+ * Application event signalling that the content of the persistent data store was changed
+ * without going through the DAOs (e.g. by running a SQL script).
+ * Components holding in-memory views of the stored data listen for it and rebuild those views.
+ */
+public record DataReloadedEvent() {
+}
@@ -9,6 +9,7 @@ import at.ac.tuwien.sepr.assignment.individual.exception.NotFoundException;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * Interface for DAO for horses.
@@ -26,6 +27,16 @@ public interface HorseDao {
    */
   Collection<Horse> search(HorseSearchDto searchParameters);
 
+  /**
+   * Get the horses that match the given search parameters, like {@link #search(HorseSearchDto)},
+   * but read them from the database one after the other while the stream is consumed.
+   * The stream holds a database connection until it is closed, so it must be closed by the caller.
+   *
+   * @param searchParameters the parameters to use in searching.
+   * @return a stream of the horses where all given parameters match.
+   */
+  Stream<Horse> searchStream(HorseSearchDto searchParameters);
+
 
   /**
    * Update the horse with the ID given in {@code horse}
@@ -54,6 +65,14 @@ public interface HorseDao {
    */
   Horse create(HorseDetailDto horse);
 
+  /**
+   * Create all the given horses with a single batch statement.
+   *
+   * @param horses the horses to create
+   * @return the created horses, in the same order as {@code horses}
+   */
+  List<Horse> createAll(List<HorseDetailDto> horses);
+
   /**
    * Delete the horse with the given ID.
    *
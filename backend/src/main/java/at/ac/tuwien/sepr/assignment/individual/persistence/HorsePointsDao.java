@@ -0,0 +1,69 @@
+package at.ac.tuwien.sepr.assignment.individual.persistence;
+
+import at.ac.tuwien.sepr.assignment.individual.dto.HorsePointsDiscrepancyDto;
+import java.util.List;
+
+/**
+ * Data Access Object for the ranking points of horses.
+ * The points are a read model of the rounds reached in {@code tournament_horses}, summed per horse and end date
+ * of the tournament, so that the points of a period can be read without scanning the tournament history.
+ * A horse earns 5 points for winning a tournament, 3 for losing its final and 1 for losing a semifinal,
+ * but none for a match it did not win; in a bracket of 8 these are the rounds 4, 3 and 2.
+ */
+public interface HorsePointsDao {
+
+  /**
+   * Get the points a horse earns for reaching the given round.
+   *
+   * @param roundReached the round reached
+   * @param bracketSize the number of entries of the tournament
+   * @return the points earned
+   */
+  static int pointsForRound(int roundReached, int bracketSize) {
+    if (roundReached < 2) {
+      return 0;
+    }
+    // the winner of a bracket of 2^k reaches round k + 1
+    return switch (Integer.numberOfTrailingZeros(bracketSize) + 1 - roundReached) {
+      case 0 -> 5;
+      case 1 -> 3;
+      case 2 -> 1;
+      default -> 0;
+    };
+  }
+
+  /**
+   * A change of the round a horse reached in a tournament.
+   *
+   * @param horseId the ID of the horse
+   * @param previousRound the round reached before the change
+   * @param roundReached the round reached after the change
+   */
+  record RoundChange(long horseId, int previousRound, int roundReached) {
+  }
+
+  /**
+   * Record that the rounds some horses reached in a tournament changed.
+   * The points of all of them are written in one batch.
+   * Has to be called in the same transaction as the changes themselves.
+   *
+   * @param tournamentId the ID of the tournament
+   * @param bracketSize the number of entries of the tournament
+   * @param changes the changes, at most one per horse
+   */
+  void roundsChanged(Long tournamentId, int bracketSize, List<RoundChange> changes);
+
+  /**
+   * Recompute all points from the tournament results, replacing the stored ones.
+   *
+   * @return the number of rows stored
+   */
+  int rebuild();
+
+  /**
+   * Compare the stored points with the ones recomputed from the tournament results.
+   *
+   * @return the differences, sorted by horse and end date; empty if the read model is consistent
+   */
+  List<HorsePointsDiscrepancyDto> check();
+}
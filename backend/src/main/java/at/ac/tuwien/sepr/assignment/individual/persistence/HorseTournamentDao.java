@@ -1,12 +1,12 @@
 package at.ac.tuwien.sepr.assignment.individual.persistence;
 
+import at.ac.tuwien.sepr.assignment.individual.entity.HorsePoints;
 import at.ac.tuwien.sepr.assignment.individual.entity.HorseTournament;
 import at.ac.tuwien.sepr.assignment.individual.exception.ConflictException;
 
+import java.time.LocalDate;
 import java.util.Collection;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 
 /**
  * Interface for DAO for working with horses in a tournament.
@@ -24,21 +24,32 @@ public interface HorseTournamentDao {
 
   /**
    * Update the tournament with the given data.
+   * The ranking points of the horse are updated in the same transaction.
    *
    * @param tournamentId the id of the tournament to update
    * @param horseId the id of the horse to update
    * @param entryNumber the entry number of the horse to update
    * @param roundReached the number of the round reached by the horse to update
+   * @param version the version of the participation the update is based on, or {@code null} to update it regardless
+   * @throws ConflictException if the horse does not participate in the tournament,
+   *     or the participation was changed since {@code version}
    */
-  void updateStandings(Long tournamentId, Long horseId, int entryNumber, int roundReached) throws ConflictException;
+  void updateStandings(Long tournamentId, Long horseId, int entryNumber, int roundReached, Integer version)
+      throws ConflictException;
 
   /**
-  * Get the horses of the tournaments with the given ids.
-  *
-  * @param tournamentIds the ids of the tournament to get the standings for.
-  * @return a mapping of tournamentIds and the corresponding horses participating in the tournaments.
-  */
-  Map<Long, List<HorseTournament>> getHorsesByIDsTournaments(Set<Long> tournamentIds);
+   * Update the entry numbers and rounds reached of several participants of a tournament.
+   * All of them are written with one batch in one transaction, together with their ranking points;
+   * if any of them cannot be updated, none is.
+   *
+   * @param tournamentId the id of the tournament to update
+   * @param standings the new standings of the participants, with the versions they are based on,
+   *     or {@code null} versions to update them regardless
+   * @return the number of participations updated
+   * @throws ConflictException if a horse does not participate in the tournament,
+   *     or its participation was changed since its version
+   */
+  int updateStandings(Long tournamentId, List<HorseTournament> standings) throws ConflictException;
 
   /**
    * Checks if the horse with the given id participates in any tournament
@@ -48,4 +59,28 @@ public interface HorseTournamentDao {
    */
   List<HorseTournament> getParticipatingHorse(Long horseId);
 
+  /**
+   * Get the ranking points the participants of a tournament earned in the tournaments ending in the given period.
+   * The points are summed from the read model maintained by {@link HorsePointsDao}.
+   * See {@link HorsePointsDao} for how many points a horse earns in a tournament.
+   *
+   * @param tournamentId the id of the tournament whose participants to rank
+   * @param from the first day of the period
+   * @param to the last day of the period
+   * @return the participants with their points, sorted by name and ID, which is the order ties in points are broken in
+   */
+  List<HorsePoints> getRankingPoints(Long tournamentId, LocalDate from, LocalDate to);
+
+  /**
+   * Get the participants of a tournament within a range of entry numbers that reached at least the given round.
+   * For the range of entries a match is played between, these are the horses that have qualified for it.
+   * Their rows stay locked until the transaction ends, so that a match is not decided twice at the same time.
+   *
+   * @param tournamentId the id of the tournament
+   * @param firstEntry the first entry number of the range
+   * @param lastEntry the last entry number of the range
+   * @param round the round the participants must have reached
+   * @return the participants found, sorted by entry number
+   */
+  List<HorseTournament> getContenders(Long tournamentId, int firstEntry, int lastEntry, int round);
 }
@@ -0,0 +1,162 @@
+package at.ac.tuwien.sepr.assignment.individual.persistence;
+
+import at.ac.tuwien.sepr.assignment.individual.exception.FatalException;
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.stereotype.Component;
+
+/**
+ * Brings the schema of the database up to date once at startup.
+ * Migrations are the scripts {@code sql/migration/V<version>__<description>.sql} on the classpath.
+ * Each one is applied exactly once, in the order of the versions, and recorded in the {@value #HISTORY_TABLE} table
+ * along with the checksum of its content.
+ * A script that was changed after it was applied is a programming error, so startup fails in that case.
+ */
+@Component
+public class SchemaMigrationRunner {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  static final String HISTORY_TABLE = "schema_version";
+  private static final String LOCATION = "classpath:sql/migration/V*__*.sql";
+  private static final Pattern FILE_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+  private static final String SQL_CREATE_HISTORY = "CREATE TABLE IF NOT EXISTS " + HISTORY_TABLE
+      + " (version INT PRIMARY KEY,"
+      + " description VARCHAR(255) NOT NULL,"
+      + " checksum CHAR(64) NOT NULL,"
+      + " installed_on TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)";
+  private static final String SQL_SELECT_HISTORY = "SELECT version, checksum FROM " + HISTORY_TABLE;
+  private static final String SQL_INSERT_HISTORY = "INSERT INTO " + HISTORY_TABLE
+      + " (version, description, checksum) VALUES (?, ?, ?)";
+
+  private final DataSource dataSource;
+
+  public SchemaMigrationRunner(DataSource dataSource) {
+    this.dataSource = dataSource;
+  }
+
+  /**
+   * Apply all migrations not applied yet.
+   *
+   * @return the number of migrations applied
+   * @throws FatalException if a migration cannot be read or applied, or was changed after it was applied
+   */
+  @PostConstruct
+  public int migrate() {
+    LOG.trace("migrate()");
+    var migrations = migrations();
+    try (var connection = dataSource.getConnection()) {
+      try (var statement = connection.createStatement()) {
+        statement.execute(SQL_CREATE_HISTORY);
+      }
+      var applied = appliedChecksums(connection);
+      int count = 0;
+      for (var migration : migrations) {
+        var checksum = applied.get(migration.version());
+        if (checksum == null) {
+          apply(connection, migration);
+          count++;
+        } else if (!checksum.equals(migration.checksum())) {
+          throw new FatalException("Migration " + migration.name() + " was changed after it had been applied");
+        }
+      }
+      LOG.info("Applied {} of {} schema migrations", count, migrations.size());
+      return count;
+    } catch (SQLException e) {
+      throw new FatalException("Could not migrate the database schema", e);
+    }
+  }
+
+  private static Map<Integer, String> appliedChecksums(Connection connection) throws SQLException {
+    Map<Integer, String> checksums = new HashMap<>();
+    try (var statement = connection.createStatement();
+         var rs = statement.executeQuery(SQL_SELECT_HISTORY)) {
+      while (rs.next()) {
+        checksums.put(rs.getInt("version"), rs.getString("checksum"));
+      }
+    }
+    return checksums;
+  }
+
+  private static void apply(Connection connection, Migration migration) throws SQLException {
+    LOG.info("Applying schema migration {}", migration.name());
+    boolean autoCommit = connection.getAutoCommit();
+    connection.setAutoCommit(false);
+    try {
+      ScriptUtils.executeSqlScript(connection, migration.script());
+      try (var statement = connection.prepareStatement(SQL_INSERT_HISTORY)) {
+        statement.setInt(1, migration.version());
+        statement.setString(2, migration.description());
+        statement.setString(3, migration.checksum());
+        statement.executeUpdate();
+      }
+      connection.commit();
+    } catch (SQLException | RuntimeException e) {
+      connection.rollback();
+      throw new FatalException("Schema migration " + migration.name() + " failed", e);
+    } finally {
+      connection.setAutoCommit(autoCommit);
+    }
+  }
+
+  private static List<Migration> migrations() {
+    try {
+      List<Migration> migrations = new ArrayList<>();
+      for (var script : new PathMatchingResourcePatternResolver().getResources(LOCATION)) {
+        var matcher = FILE_NAME.matcher(script.getFilename());
+        if (!matcher.matches()) {
+          throw new FatalException("Malformed migration file name " + script.getFilename());
+        }
+        migrations.add(new Migration(Integer.parseInt(matcher.group(1)), matcher.group(2).replace('_', ' '),
+            script, checksum(script)));
+      }
+      migrations.sort(Comparator.comparingInt(Migration::version));
+      for (int i = 1; i < migrations.size(); i++) {
+        if (migrations.get(i).version() == migrations.get(i - 1).version()) {
+          throw new FatalException("Duplicate migration version " + migrations.get(i).version());
+        }
+      }
+      return migrations;
+    } catch (IOException e) {
+      throw new FatalException("Could not read the schema migrations", e);
+    }
+  }
+
+  private static String checksum(Resource script) throws IOException {
+    try (var in = script.getInputStream()) {
+      return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(in.readAllBytes()));
+    } catch (NoSuchAlgorithmException e) {
+      throw new FatalException(e);
+    }
+  }
+
+  /**
+   * A migration script.
+   *
+   * @param version the version the script migrates the schema to
+   * @param description what the script does, taken from its file name
+   * @param script the script
+   * @param checksum the SHA-256 hash of the content of the script
+   */
+  private record Migration(int version, String description, Resource script, String checksum) {
+    String name() {
+      return "V" + version + " (" + description + ")";
+    }
+  }
+}
@@ -0,0 +1,57 @@
+package at.ac.tuwien.sepr.assignment.individual.persistence;
+
+import at.ac.tuwien.sepr.assignment.individual.entity.StandingsVersion;
+import at.ac.tuwien.sepr.assignment.individual.exception.ConflictException;
+import at.ac.tuwien.sepr.assignment.individual.exception.NotFoundException;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interface for DAO for the history of the standings of tournaments.
+ * Every version of the standings is a persistent bracket: its nodes are never changed, and a new version
+ * stores only the nodes on the paths from its changes to the final, sharing all other subtrees with the version before.
+ * The nodes are indexed as in {@link at.ac.tuwien.sepr.assignment.individual.entity.Bracket}.
+ */
+public interface StandingsHistoryDao {
+
+  /**
+   * Get the latest version of the standings of a tournament.
+   *
+   * @param tournamentId the id of the tournament
+   * @return the number of the latest version, or 0 if no version was stored yet
+   */
+  int getLatestVersion(Long tournamentId);
+
+  /**
+   * Get the versions of the standings of a tournament, without their brackets.
+   *
+   * @param tournamentId the id of the tournament
+   * @return the versions, oldest first
+   */
+  List<StandingsVersion> getVersions(Long tournamentId);
+
+  /**
+   * Get a version of the standings of a tournament, with its bracket.
+   * The bracket is read with one query per round.
+   *
+   * @param tournamentId the id of the tournament
+   * @param version the number of the version
+   * @param bracketSize the bracket size of the tournament
+   * @return the version with its bracket
+   * @throws NotFoundException if the tournament has no such version
+   */
+  StandingsVersion getVersion(Long tournamentId, int version, int bracketSize) throws NotFoundException;
+
+  /**
+   * Store the next version of the standings of a tournament.
+   * It reads and writes only the nodes on the paths from the changed nodes to the final.
+   *
+   * @param tournamentId the id of the tournament
+   * @param baseVersion the latest version, which the new version is based on, or 0 for the first version
+   * @param changes the ID of the horse at every node that changed, 0 if no horse reaches the node anymore
+   * @return the number of the new version
+   * @throws ConflictException if another version was stored based on {@code baseVersion} in the meantime
+   */
+  int addVersion(Long tournamentId, int baseVersion, Map<Integer, Long> changes) throws ConflictException;
+}
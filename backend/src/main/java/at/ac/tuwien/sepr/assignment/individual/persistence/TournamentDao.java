@@ -3,12 +3,9 @@ package at.ac.tuwien.sepr.assignment.individual.persistence;
 import at.ac.tuwien.sepr.assignment.individual.dto.TournamentCreateDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.TournamentSearchParamsDto;
 import at.ac.tuwien.sepr.assignment.individual.entity.Tournament;
-import at.ac.tuwien.sepr.assignment.individual.exception.ConflictException;
 import at.ac.tuwien.sepr.assignment.individual.exception.NotFoundException;
 
-import java.time.LocalDate;
 import java.util.Collection;
-import java.util.List;
 
 /**
  * Interface for DAO for tournaments.
@@ -28,12 +25,14 @@ public interface TournamentDao {
 
 
   /**
-   * Create a new tournament with the given data.
+   * Create a new tournament with the given data, along with its participants.
+   * The participants start without an entry number and in the first round.
+   * Callers are expected to run this in a transaction, so that no tournament is created without its participants.
    *
    * @param tournament the tournament to create
    * @return the created tournament
    */
-  Tournament create(TournamentCreateDto tournament) throws ConflictException;
+  Tournament create(TournamentCreateDto tournament);
 
 
   /**
@@ -41,15 +40,7 @@ public interface TournamentDao {
    *
    * @param tournamentId the id of the tournament to get
    * @return the tournament with the given id
+   * @throws NotFoundException if no tournament with the given id exists
    */
-  Tournament getById(Long tournamentId);
-
-  /**
-   * Get the tournaments of the last 12 months.
-   *
-   * @param startDate this tournament's start date
-   * @return the tournaments of the last 12 months, excluding the given start date
-   * @throws NotFoundException if no tournaments could be found
-   */
-  List<Tournament> getLast12MonthsTournaments(LocalDate startDate) throws NotFoundException;
+  Tournament getById(Long tournamentId) throws NotFoundException;
 }
@@ -0,0 +1,32 @@
+package at.ac.tuwien.sepr.assignment.individual.persistence.impl;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Defers updates of in-memory indexes until the transaction that changed the data has committed,
+ * so that they never reflect changes that are rolled back.
+ */
+final class AfterCommit {
+
+  private AfterCommit() {
+  }
+
+  /**
+   * Run the given action once the current transaction has committed, or right away if there is none.
+   *
+   * @param action the action to run
+   */
+  static void run(Runnable action) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          action.run();
+        }
+      });
+    } else {
+      action.run();
+    }
+  }
+}
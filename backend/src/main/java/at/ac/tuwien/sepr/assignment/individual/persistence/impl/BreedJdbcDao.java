@@ -26,9 +26,13 @@ public class BreedJdbcDao implements BreedDao {
   private static final String SQL_FIND_BY_IDS =
       "SELECT * FROM " + TABLE_NAME
           + " WHERE id IN (:ids)";
+  private static final String SQL_FIND_ALL =
+      "SELECT * FROM " + TABLE_NAME
+          + " ORDER BY name, id";
   private static final String SQL_SEARCH =
       "SELECT * FROM " + TABLE_NAME
-          + " WHERE UPPER(name) LIKE UPPER('%'||:name||'%')";
+          + " WHERE UPPER(name) LIKE UPPER('%'||:name||'%')"
+          + " ORDER BY name, id";
   private static final String SQL_LIMIT_CLAUSE = " LIMIT :limit";
 
   private final NamedParameterJdbcTemplate jdbcTemplate;
@@ -43,6 +47,12 @@ public class BreedJdbcDao implements BreedDao {
     return jdbcTemplate.query(SQL_FIND_BY_IDS, Map.of("ids", breedIds), this::mapRow);
   }
 
+  @Override
+  public Collection<Breed> findAll() {
+    LOG.trace("findAll()");
+    return jdbcTemplate.query(SQL_FIND_ALL, this::mapRow);
+  }
+
   @Override
   public Collection<Breed> search(BreedSearchDto searchParams) {
     LOG.trace("search({})", searchParams);
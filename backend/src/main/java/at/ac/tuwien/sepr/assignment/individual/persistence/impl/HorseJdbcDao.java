@@ -2,6 +2,7 @@ package at.ac.tuwien.sepr.assignment.individual.persistence.impl;
 
 import at.ac.tuwien.sepr.assignment.individual.dto.HorseDetailDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.HorseSearchDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.PageCursor;
 import at.ac.tuwien.sepr.assignment.individual.entity.Horse;
 import at.ac.tuwien.sepr.assignment.individual.exception.ConflictException;
 import at.ac.tuwien.sepr.assignment.individual.exception.FatalException;
@@ -9,20 +10,29 @@ import at.ac.tuwien.sepr.assignment.individual.exception.NotFoundException;
 import at.ac.tuwien.sepr.assignment.individual.persistence.HorseDao;
 import at.ac.tuwien.sepr.assignment.individual.type.Sex;
 import java.lang.invoke.MethodHandles;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -36,21 +46,15 @@ public class HorseJdbcDao implements HorseDao {
   private static final String TABLE_NAME = "horse";
   private static final String SQL_SELECT_BY_ID = "SELECT * FROM " + TABLE_NAME + " WHERE id = ?";
 
-  private static final String SQL_SELECT_BY_IDS = "SELECT * FROM " + TABLE_NAME + " WHERE id IN (:ids)";
+  // the same statement for any number of IDs, so H2 can reuse its plan
+  private static final String SQL_SELECT_BY_IDS = "SELECT * FROM " + TABLE_NAME + " WHERE id = ANY(:ids)";
   private static final String SQL_SELECT_SEARCH = "SELECT  "
           + "    h.id as \"id\", h.name as \"name\", h.sex as \"sex\", h.date_of_birth as \"date_of_birth\""
-          + "    , h.height as \"height\", h.weight as \"weight\", h.breed_id as \"breed_id\""
-          + " FROM " + TABLE_NAME + " h LEFT OUTER JOIN breed b ON (h.breed_id = b.id)"
-          + " WHERE (:name IS NULL OR UPPER(h.name) LIKE UPPER('%'||:name||'%'))"
-          + "  AND (:sex IS NULL OR :sex = sex)"
-          + "  AND (:bornEarliest IS NULL OR :bornEarliest <= h.date_of_birth)"
-          + "  AND (:bornLatest IS NULL OR :bornLatest >= h.date_of_birth)"
-          + "  AND (:breed IS NULL OR UPPER(b.name) LIKE UPPER('%'||:breed||'%'))";
-
-  private static final String SQL_LIMIT_CLAUSE = " LIMIT :limit";
-  private static final String SQL_MAX_ID = " SELECT MAX(id) FROM " + TABLE_NAME;
-  private static final String SQL_MIN_ID = " SELECT MIN(id) FROM " + TABLE_NAME;
-
+          + "    , h.height as \"height\", h.weight as \"weight\", h.breed_id as \"breed_id\", h.version as \"version\""
+          + " FROM " + TABLE_NAME + " h";
+  private static final int MAX_CANDIDATES_PER_QUERY = 1000;
+  private static final int STREAM_FETCH_SIZE = 256;
+  private static final String SQL_SELECT_VERSION = "SELECT version FROM " + TABLE_NAME + " WHERE id = ?";
 
   private static final String SQL_UPDATE = "UPDATE "
       + TABLE_NAME
@@ -60,8 +64,14 @@ public class HorseJdbcDao implements HorseDao {
       + "  , height = ?"
       + "  , weight = ?"
       + "  , breed_id = ?"
+      + "  , version = version + 1"
       + " WHERE id = ?";
 
+  // reading the new version from the changed row itself saves a separate query after the update
+  private static final String SQL_UPDATE_RETURNING_VERSION = "SELECT version FROM FINAL TABLE (" + SQL_UPDATE + ")";
+  private static final String SQL_UPDATE_VERSIONED_RETURNING_VERSION =
+      "SELECT version FROM FINAL TABLE (" + SQL_UPDATE + " AND version = ?)";
+
   private static final String SQL_CREATE = "INSERT INTO "
       + TABLE_NAME + "(name, sex, date_of_birth, height, weight, breed_id) "
       + "VALUES (?, ?, ?, ?, ?, ?)";
@@ -72,17 +82,32 @@ public class HorseJdbcDao implements HorseDao {
 
   private final JdbcTemplate jdbcTemplate;
   private final NamedParameterJdbcTemplate jdbcNamed;
+  private final NamedParameterJdbcTemplate jdbcStreaming;
 
   private HorseTournamentJdbcDao horseTournamentDao;
+  private final HorseNameIndex nameIndex;
+  private final Map<Set<SearchPredicate>, String> searchQueries = new ConcurrentHashMap<>();
+
+  /**
+   * The predicates a horse search can consist of.
+   */
+  private enum SearchPredicate {
+    NAME, CANDIDATES, SEX, BORN_EARLIEST, BORN_LATEST, BREED, AFTER, LIMIT
+  }
 
 
   public HorseJdbcDao(
       NamedParameterJdbcTemplate jdbcNamed,
       JdbcTemplate jdbcTemplate,
-      HorseTournamentJdbcDao horseTournamentDao) {
+      HorseTournamentJdbcDao horseTournamentDao,
+      HorseNameIndex nameIndex) {
     this.jdbcTemplate = jdbcTemplate;
     this.jdbcNamed = jdbcNamed;
+    var streamingTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+    streamingTemplate.setFetchSize(STREAM_FETCH_SIZE);
+    this.jdbcStreaming = new NamedParameterJdbcTemplate(streamingTemplate);
     this.horseTournamentDao = horseTournamentDao;
+    this.nameIndex = nameIndex;
   }
 
   @Override
@@ -103,7 +128,7 @@ public class HorseJdbcDao implements HorseDao {
   public List<Horse> getByIds(Set<Long> ids) throws NotFoundException {
     LOG.trace("getByIds({})", ids);
     List<Horse> horses;
-    horses = jdbcNamed.query(SQL_SELECT_BY_IDS, Map.of("ids", ids), this::mapRow);
+    horses = jdbcNamed.query(SQL_SELECT_BY_IDS, Map.of("ids", ids.toArray(Long[]::new)), this::mapRow);
 
     if (horses.isEmpty()) {
       LOG.warn("Could not find horse with ID {}", ids);
@@ -117,46 +142,190 @@ public class HorseJdbcDao implements HorseDao {
   @Override
   public Collection<Horse> search(HorseSearchDto searchParameters) {
     LOG.trace("search({})", searchParameters);
-    var query = SQL_SELECT_SEARCH;
+    if (searchParameters.name() != null && nameIndex.canAnswer(searchParameters.name())) {
+      var after = PageCursor.decode(searchParameters.cursor());
+      return searchCandidates(nameIndex.candidates(searchParameters.name(), after, candidateLimit(searchParameters)),
+          searchParameters);
+    }
+    var params = searchParams(searchParameters);
     if (searchParameters.limit() != null) {
-      query += SQL_LIMIT_CLAUSE;
+      params.addValue("limit", searchParameters.limit());
     }
-    var params = new BeanPropertySqlParameterSource(searchParameters);
-    params.registerSqlType("sex", Types.VARCHAR);
-    return jdbcNamed.query(query, params, this::mapRow);
+    return jdbcNamed.query(searchQuery(searchParameters, false), params, this::mapRow);
   }
 
+  /**
+   * Apply the remaining search parameters to the horses whose names matched according to the name index.
+   * The candidates are passed to the database in chunks, so that the size of the ID array stays bounded.
+   * As they are sorted by name and ID already, concatenating the sorted chunks gives the sorted result.
+   */
+  private List<Horse> searchCandidates(long[] candidateIds, HorseSearchDto searchParameters) {
+    LOG.trace("searchCandidates({} candidates, {})", candidateIds.length, searchParameters);
+    List<Horse> horses = new ArrayList<>();
+    var query = searchQuery(searchParameters, true);
+    for (int from = 0; from < candidateIds.length; from += MAX_CANDIDATES_PER_QUERY) {
+      var params = candidateParams(candidateIds, from, searchParameters);
+      if (searchParameters.limit() != null) {
+        int remaining = searchParameters.limit() - horses.size();
+        if (remaining <= 0) {
+          break;
+        }
+        params.addValue("limit", remaining);
+      }
+      horses.addAll(jdbcNamed.query(query, params, this::mapRow));
+    }
+    return horses;
+  }
 
   @Override
-  public Horse update(HorseDetailDto horse) throws ConflictException {
-    LOG.trace("update({})", horse);
+  public Stream<Horse> searchStream(HorseSearchDto searchParameters) {
+    LOG.trace("searchStream({})", searchParameters);
+    if (searchParameters.name() != null && nameIndex.canAnswer(searchParameters.name())) {
+      var candidateIds = nameIndex.candidates(searchParameters.name(), PageCursor.decode(searchParameters.cursor()),
+          candidateLimit(searchParameters));
+      var query = searchQuery(searchParameters, true);
+      // flatMap opens the query for each chunk only once the previous one has been consumed, and closes it afterwards
+      var horses = IntStream.iterate(0, from -> from < candidateIds.length, from -> from + MAX_CANDIDATES_PER_QUERY)
+          .boxed()
+          .flatMap(from -> jdbcStreaming.queryForStream(
+              query,
+              candidateParams(candidateIds, from, searchParameters).addValue("limit", searchParameters.limit()),
+              this::mapRow));
+      return searchParameters.limit() == null ? horses : horses.limit(searchParameters.limit());
+    }
+    var params = searchParams(searchParameters).addValue("limit", searchParameters.limit());
+    return jdbcStreaming.queryForStream(searchQuery(searchParameters, false), params, this::mapRow);
+  }
 
-    Long minId = jdbcTemplate.queryForObject(SQL_MIN_ID, Long.class);
-    Long maxId = jdbcTemplate.queryForObject(SQL_MAX_ID, Long.class);
+  /**
+   * Get the limit the name index can apply to its candidates already.
+   * That is only the case if the name is the only filter; otherwise, the first candidates may be filtered out.
+   */
+  private static Integer candidateLimit(HorseSearchDto searchParameters) {
+    return searchParameters.sex() == null && searchParameters.bornEarliest() == null
+        && searchParameters.bornLatest() == null && searchParameters.breed() == null ? searchParameters.limit() : null;
+  }
 
-    // Check if the horse ID is outside the range of minimum and maximum IDs
-    if (minId != null && maxId != null) {
-      if (horse.id() < minId || horse.id() > maxId) {
-        LOG.warn("Update of horse failed. Horse ID is outside the range of IDs stored in the database.");
-        List<String> errors = new ArrayList<>();
-        errors.add("Update of horse failed. Horse ID is outside the range of IDs stored in the database.");
-        throw new ConflictException("Horse ID is outside the range of IDs stored in the database", errors);
-      }
+  private MapSqlParameterSource candidateParams(long[] candidateIds, int from, HorseSearchDto searchParameters) {
+    int to = Math.min(from + MAX_CANDIDATES_PER_QUERY, candidateIds.length);
+    return searchParams(searchParameters)
+        .addValue("ids", Arrays.stream(candidateIds, from, to).boxed().toArray(Long[]::new));
+  }
+
+  /**
+   * Get the SQL for a search with the given parameters.
+   * Only the parameters that are set end up as predicates; the statement for each such shape is built once and cached,
+   * so repeated searches of the same shape send the identical statement and H2 can reuse its prepared plan.
+   *
+   * @param searchParameters the parameters of the search
+   * @param byCandidates whether the name is matched through a list of candidate IDs instead of {@code LIKE}
+   * @return the SQL for the given shape of search
+   */
+  String searchQuery(HorseSearchDto searchParameters, boolean byCandidates) {
+    var shape = EnumSet.noneOf(SearchPredicate.class);
+    if (byCandidates) {
+      shape.add(SearchPredicate.CANDIDATES);
+    } else if (searchParameters.name() != null) {
+      shape.add(SearchPredicate.NAME);
+    }
+    if (searchParameters.sex() != null) {
+      shape.add(SearchPredicate.SEX);
+    }
+    if (searchParameters.bornEarliest() != null) {
+      shape.add(SearchPredicate.BORN_EARLIEST);
+    }
+    if (searchParameters.bornLatest() != null) {
+      shape.add(SearchPredicate.BORN_LATEST);
+    }
+    if (searchParameters.breed() != null) {
+      shape.add(SearchPredicate.BREED);
+    }
+    if (searchParameters.cursor() != null) {
+      shape.add(SearchPredicate.AFTER);
+    }
+    if (searchParameters.limit() != null) {
+      shape.add(SearchPredicate.LIMIT);
     }
+    return searchQueries.computeIfAbsent(shape, HorseJdbcDao::buildSearchQuery);
+  }
 
-    int updated = jdbcTemplate.update(SQL_UPDATE,
+  private static String buildSearchQuery(Set<SearchPredicate> shape) {
+    LOG.debug("Building horse search query for shape {}", shape);
+    var query = new SqlQueryBuilder(SQL_SELECT_SEARCH);
+    if (shape.contains(SearchPredicate.NAME)) {
+      query.where("UPPER(h.name) LIKE UPPER('%'||:name||'%')");
+    }
+    if (shape.contains(SearchPredicate.CANDIDATES)) {
+      query.where("h.id = ANY(:ids)");
+    }
+    if (shape.contains(SearchPredicate.SEX)) {
+      query.where("h.sex = :sex");
+    }
+    if (shape.contains(SearchPredicate.BORN_EARLIEST)) {
+      query.where("h.date_of_birth >= :bornEarliest");
+    }
+    if (shape.contains(SearchPredicate.BORN_LATEST)) {
+      query.where("h.date_of_birth <= :bornLatest");
+    }
+    if (shape.contains(SearchPredicate.BREED)) {
+      // a semi-join instead of joining breed lets H2 look the horses up through the index on breed_id
+      query.where("h.breed_id IN (SELECT b.id FROM breed b WHERE UPPER(b.name) LIKE UPPER('%'||:breed||'%'))");
+    }
+    if (shape.contains(SearchPredicate.AFTER)) {
+      // seek instead of skipping, so that later pages are as cheap as the first one
+      query.where("(h.name, h.id) > (:afterName, :afterId)");
+    }
+    query.orderBy("h.name, h.id");
+    if (shape.contains(SearchPredicate.LIMIT)) {
+      query.limit();
+    }
+    return query.build();
+  }
+
+  private MapSqlParameterSource searchParams(HorseSearchDto searchParameters) {
+    var after = PageCursor.decode(searchParameters.cursor());
+    return new MapSqlParameterSource()
+        .addValue("afterName", after == null ? null : after.key())
+        .addValue("afterId", after == null ? null : after.id())
+        .addValue("name", searchParameters.name())
+        .addValue("sex", searchParameters.sex() == null ? null : searchParameters.sex().toString())
+        .addValue("bornEarliest", searchParameters.bornEarliest())
+        .addValue("bornLatest", searchParameters.bornLatest())
+        .addValue("breed", searchParameters.breed());
+  }
+
+
+  @Override
+  public Horse update(HorseDetailDto horse) throws ConflictException {
+    LOG.trace("update({})", horse);
+
+    List<Object> args = new ArrayList<>(Arrays.asList(
         horse.name(),
         horse.sex().toString(),
         horse.dateOfBirth(),
         horse.height(),
         horse.weight(),
         horse.breed() == null ? null : horse.breed().id(),
-        horse.id());
+        horse.id()));
+    String query = SQL_UPDATE_RETURNING_VERSION;
+    if (horse.version() != null) {
+      query = SQL_UPDATE_VERSIONED_RETURNING_VERSION;
+      args.add(horse.version());
+    }
+    List<Integer> newVersion = jdbcTemplate.queryForList(query, Integer.class, args.toArray());
 
-    if (updated == 0) {
-      LOG.error("Update of horse failed.");
-      throw new FatalException("Could not update horse with ID " + horse.id());
+    if (newVersion.isEmpty()) {
+      // only on failure it is worth another query, to tell the client what went wrong
+      List<String> errors = new ArrayList<>();
+      if (jdbcTemplate.queryForList(SQL_SELECT_VERSION, Integer.class, horse.id()).isEmpty()) {
+        errors.add("Horse with ID " + horse.id() + " does not exist");
+      } else {
+        errors.add("Horse with ID " + horse.id() + " was changed in the meantime");
+      }
+      LOG.warn("Update of horse failed: {}", errors);
+      throw new ConflictException("Could not update horse with ID " + horse.id(), errors);
     }
+    AfterCommit.run(() -> nameIndex.put(horse.id(), horse.name()));
 
     Horse updatedHorse = new Horse()
         .setId(horse.id())
@@ -165,6 +334,7 @@ public class HorseJdbcDao implements HorseDao {
         .setDateOfBirth(horse.dateOfBirth())
         .setHeight(horse.height())
         .setWeight(horse.weight())
+        .setVersion(newVersion.get(0))
         ;
 
     if (horse.breed() != null) {
@@ -184,6 +354,7 @@ public class HorseJdbcDao implements HorseDao {
         .setHeight(result.getFloat("height"))
         .setWeight(result.getFloat("weight"))
         .setBreedId(result.getObject("breed_id", Long.class))
+        .setVersion(result.getInt("version"))
         ;
   }
 
@@ -192,27 +363,76 @@ public class HorseJdbcDao implements HorseDao {
   public Horse create(HorseDetailDto horse) {
     LOG.trace("create({})", horse);
 
-    int created = jdbcTemplate.update(SQL_CREATE,
-        horse.name(),
-        horse.sex().toString(),
-        horse.dateOfBirth(),
-        horse.height(),
-        horse.weight(),
-        horse.breed() == null ? null : horse.breed().id())
-        ;
+    KeyHolder keyHolder = new GeneratedKeyHolder();
+    int created = jdbcTemplate.update(connection -> {
+      PreparedStatement stmt = connection.prepareStatement(SQL_CREATE, new String[] {"id"});
+      setCreateValues(stmt, horse);
+      return stmt;
+    }, keyHolder);
 
-    if (created == 0) { //update returns the number of rows updated
+    if (created == 0 || keyHolder.getKey() == null) { //update returns the number of rows updated
       LOG.error("Creation of horse failed.");
       throw new FatalException("Could not create horse");
     }
+    long newId = keyHolder.getKey().longValue();
+    AfterCommit.run(() -> nameIndex.put(newId, horse.name()));
+    return createdHorse(newId, horse);
+  }
+
+  @Override
+  public List<Horse> createAll(List<HorseDetailDto> horses) {
+    LOG.trace("createAll({} horses)", horses.size());
+    if (horses.isEmpty()) {
+      return List.of();
+    }
 
+    KeyHolder keyHolder = new GeneratedKeyHolder();
+    jdbcTemplate.batchUpdate(
+        connection -> connection.prepareStatement(SQL_CREATE, new String[] {"id"}),
+        new BatchPreparedStatementSetter() {
+          @Override
+          public void setValues(PreparedStatement stmt, int i) throws SQLException {
+            setCreateValues(stmt, horses.get(i));
+          }
+
+          @Override
+          public int getBatchSize() {
+            return horses.size();
+          }
+        },
+        keyHolder);
+
+    var keys = keyHolder.getKeyList();
+    if (keys.size() != horses.size()) {
+      LOG.error("Batch creation of horses failed, got {} keys for {} horses", keys.size(), horses.size());
+      throw new FatalException("Could not create horses");
+    }
+    List<Horse> created = new ArrayList<>(horses.size());
+    for (int i = 0; i < horses.size(); i++) {
+      created.add(createdHorse(((Number) keys.get(i).get("id")).longValue(), horses.get(i)));
+    }
+    AfterCommit.run(() -> created.forEach(horse -> nameIndex.put(horse.getId(), horse.getName())));
+    return created;
+  }
+
+  private static void setCreateValues(PreparedStatement stmt, HorseDetailDto horse) throws SQLException {
+    stmt.setString(1, horse.name());
+    stmt.setString(2, horse.sex().toString());
+    stmt.setObject(3, horse.dateOfBirth());
+    stmt.setFloat(4, horse.height());
+    stmt.setFloat(5, horse.weight());
+    stmt.setObject(6, horse.breed() == null ? null : horse.breed().id(), Types.BIGINT);
+  }
+
+  private static Horse createdHorse(long id, HorseDetailDto horse) {
     Horse newHorse = new Horse()
-        .setId(horse.id())
+        .setId(id)
         .setName(horse.name())
         .setSex(horse.sex())
         .setDateOfBirth(horse.dateOfBirth())
         .setHeight(horse.height())
         .setWeight(horse.weight())
+        .setVersion(0)
         ;
 
     if (horse.breed() != null) {
@@ -239,6 +459,7 @@ public class HorseJdbcDao implements HorseDao {
       LOG.error("Deletion of horse with ID {} failed.", id);
       throw new FatalException("Could not delete horse with ID " + id);
     }
+    AfterCommit.run(() -> nameIndex.remove(id));
   }
 
 }
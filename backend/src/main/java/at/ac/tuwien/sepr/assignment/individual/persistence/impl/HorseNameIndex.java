@@ -0,0 +1,322 @@
+package at.ac.tuwien.sepr.assignment.individual.persistence.impl;
+
+import at.ac.tuwien.sepr.assignment.individual.dto.PageCursor;
+import at.ac.tuwien.sepr.assignment.individual.persistence.CaseFolding;
+import at.ac.tuwien.sepr.assignment.individual.persistence.DataReloadedEvent;
+import java.lang.invoke.MethodHandles;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory trigram index over the names of all stored horses.
+ * It is used by {@link HorseJdbcDao} to narrow a substring search on the name down to candidate IDs,
+ * so that the database only has to look at the matching rows instead of scanning the whole table.
+ *
+ * <p>The index is built from the database once the application context is ready,
+ * rebuilt on every {@link DataReloadedEvent} and kept up to date by the DAO on create, update and delete.
+ * Names are case-folded the same way as H2's {@code UPPER}, so the candidates are exactly the horses
+ * that {@code UPPER(name) LIKE UPPER('%'||:name||'%')} would match.
+ */
+@Component
+public class HorseNameIndex {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  private static final int GRAM_LENGTH = 3;
+  private static final String SQL_SELECT_NAMES = "SELECT id, name FROM horse";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private Map<Long, IndexedName> names = new HashMap<>();
+  private Map<String, Postings> postings = new HashMap<>();
+  private volatile boolean ready = false;
+
+  public HorseNameIndex(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  /**
+   * (Re-)build the whole index from the names currently stored in the database.
+   */
+  @EventListener({ContextRefreshedEvent.class, DataReloadedEvent.class})
+  public void rebuild() {
+    LOG.trace("rebuild()");
+    lock.writeLock().lock();
+    try {
+      names = new HashMap<>();
+      postings = new HashMap<>();
+      jdbcTemplate.query(SQL_SELECT_NAMES, rs -> {
+        add(rs.getLong("id"), rs.getString("name"));
+      });
+      ready = true;
+      LOG.info("Built horse name index for {} horses with {} distinct trigrams", names.size(), postings.size());
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Check whether this index can answer a substring search for the given name.
+   * That is not the case before the index has been built,
+   * or if the name contains characters that {@code LIKE} would interpret as wildcards or escapes.
+   *
+   * @param name the name to search for
+   * @return {@code true} if {@link #candidates(String, PageCursor, Integer)} gives the exact result for {@code name}
+   */
+  public boolean canAnswer(String name) {
+    return ready
+        && name != null
+        && name.indexOf('%') < 0
+        && name.indexOf('_') < 0
+        && name.indexOf('\\') < 0;
+  }
+
+  /**
+   * Get the IDs of the horses whose name contains the given string, ignoring case.
+   * They are sorted by name and then by ID, in the same order as {@code ORDER BY name, id}.
+   * With a limit, only that many of the matches are kept while they are found, instead of sorting all of them.
+   *
+   * @param name the string to search for
+   * @param after if not {@code null}, only horses sorted after this name and ID are returned
+   * @param limit if not {@code null}, at most this many IDs are returned, the first ones in that order
+   * @return the IDs of the matching horses, sorted by name and ID
+   */
+  public long[] candidates(String name, PageCursor after, Integer limit) {
+    LOG.trace("candidates({}, {}, {})", name, after, limit);
+    String needle = CaseFolding.upper(name);
+    lock.readLock().lock();
+    try {
+      Selection result = new Selection(limit == null ? Integer.MAX_VALUE : Math.max(limit, 0));
+      if (needle.length() < GRAM_LENGTH) {
+        // too short to have a trigram, so check every name; such queries match a large part of the table anyway
+        names.forEach((id, candidate) -> {
+          if (candidate.normalized().contains(needle) && isAfter(id, candidate, after)) {
+            result.offer(id, candidate.name());
+          }
+        });
+      } else {
+        Postings smallest = null;
+        for (int i = 0; i + GRAM_LENGTH <= needle.length(); i++) {
+          Postings gramPostings = postings.get(needle.substring(i, i + GRAM_LENGTH));
+          if (gramPostings == null) {
+            return new long[0];
+          }
+          if (smallest == null || gramPostings.size < smallest.size) {
+            smallest = gramPostings;
+          }
+        }
+        // every match contains all trigrams of the needle, so the rarest one already gives a complete candidate list
+        for (int i = 0; i < smallest.size; i++) {
+          long id = smallest.ids[i];
+          IndexedName candidate = names.get(id);
+          if (candidate.normalized().contains(needle) && isAfter(id, candidate, after)) {
+            result.offer(id, candidate.name());
+          }
+        }
+      }
+      return result.sorted();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Add the horse with the given ID to the index, replacing the name indexed for it before.
+   *
+   * @param id the ID of the horse
+   * @param name the (new) name of the horse
+   */
+  public void put(long id, String name) {
+    LOG.trace("put({}, {})", id, name);
+    lock.writeLock().lock();
+    try {
+      removeEntry(id);
+      add(id, name);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Remove the horse with the given ID from the index.
+   *
+   * @param id the ID of the horse
+   */
+  public void remove(long id) {
+    LOG.trace("remove({})", id);
+    lock.writeLock().lock();
+    try {
+      removeEntry(id);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private static boolean isAfter(long id, IndexedName candidate, PageCursor after) {
+    if (after == null) {
+      return true;
+    }
+    // H2 compares strings without collation, i.e. like String#compareTo
+    int byName = candidate.name().compareTo(after.key());
+    return byName > 0 || byName == 0 && id > after.id();
+  }
+
+  private void add(long id, String name) {
+    String normalized = CaseFolding.upper(name);
+    names.put(id, new IndexedName(name, normalized));
+    for (String gram : grams(normalized)) {
+      postings.computeIfAbsent(gram, g -> new Postings()).add(id);
+    }
+  }
+
+  private void removeEntry(long id) {
+    IndexedName removed = names.remove(id);
+    if (removed == null) {
+      return;
+    }
+    for (String gram : grams(removed.normalized())) {
+      Postings gramPostings = postings.get(gram);
+      if (gramPostings != null && gramPostings.remove(id) && gramPostings.size == 0) {
+        postings.remove(gram);
+      }
+    }
+  }
+
+  private static Set<String> grams(String normalized) {
+    Set<String> grams = new HashSet<>();
+    for (int i = 0; i + GRAM_LENGTH <= normalized.length(); i++) {
+      grams.add(normalized.substring(i, i + GRAM_LENGTH));
+    }
+    return grams;
+  }
+
+  /**
+   * Name of a horse as stored, and case-folded for matching.
+   */
+  private record IndexedName(String name, String normalized) {
+  }
+
+  /**
+   * Unordered list of horse IDs backed by a primitive array, each ID contained at most once.
+   */
+  private static final class Postings {
+    private long[] ids = new long[4];
+    private int size = 0;
+
+    private void add(long id) {
+      if (size == ids.length) {
+        ids = Arrays.copyOf(ids, size * 2);
+      }
+      ids[size++] = id;
+    }
+
+    /**
+     * Remove an ID by scanning for it, so this takes time linear in the number of IDs.
+     * A name has few trigrams, but a common one is contained in many names, so updating or deleting a horse costs
+     * up to a scan of the index per trigram of its name. Searches are far more frequent, and tracking the position
+     * of every ID would take a map per trigram.
+     */
+    private boolean remove(long id) {
+      for (int i = 0; i < size; i++) {
+        if (ids[i] == id) {
+          ids[i] = ids[--size];
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  /**
+   * The first IDs by name and ID among those offered, up to a limit.
+   * They are kept in a max-heap, so that an offered ID only has to be compared with the last one kept;
+   * the names are stored alongside, so comparing them needs no lookup.
+   */
+  private static final class Selection {
+    private final int limit;
+    private long[] ids = new long[16];
+    private String[] names = new String[16];
+    private int size = 0;
+
+    private Selection(int limit) {
+      this.limit = limit;
+    }
+
+    private void offer(long id, String name) {
+      if (size < limit) {
+        if (size == ids.length) {
+          int capacity = (int) Math.min(limit, 2L * size);
+          ids = Arrays.copyOf(ids, capacity);
+          names = Arrays.copyOf(names, capacity);
+        }
+        ids[size] = id;
+        names[size] = name;
+        siftUp(size++);
+      } else if (size > 0 && compare(id, name, 0) < 0) {
+        ids[0] = id;
+        names[0] = name;
+        siftDown(0, size);
+      }
+    }
+
+    /**
+     * Get the IDs kept, sorted by name and ID. The selection is used up by this.
+     */
+    private long[] sorted() {
+      // heap sort: the last one kept goes to the end
+      for (int end = size - 1; end > 0; end--) {
+        swap(0, end);
+        siftDown(0, end);
+      }
+      return Arrays.copyOf(ids, size);
+    }
+
+    private int compare(long id, String name, int i) {
+      int byName = name.compareTo(names[i]);
+      return byName != 0 ? byName : Long.compare(id, ids[i]);
+    }
+
+    private void siftUp(int i) {
+      while (i > 0) {
+        int parent = (i - 1) / 2;
+        if (compare(ids[i], names[i], parent) <= 0) {
+          return;
+        }
+        swap(i, parent);
+        i = parent;
+      }
+    }
+
+    private void siftDown(int i, int end) {
+      while (2 * i + 1 < end) {
+        int child = 2 * i + 1;
+        if (child + 1 < end && compare(ids[child + 1], names[child + 1], child) > 0) {
+          child++;
+        }
+        if (compare(ids[i], names[i], child) >= 0) {
+          return;
+        }
+        swap(i, child);
+        i = child;
+      }
+    }
+
+    private void swap(int i, int j) {
+      long id = ids[i];
+      ids[i] = ids[j];
+      ids[j] = id;
+      String name = names[i];
+      names[i] = names[j];
+      names[j] = name;
+    }
+  }
+}
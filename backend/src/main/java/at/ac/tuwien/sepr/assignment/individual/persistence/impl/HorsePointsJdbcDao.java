@@ -0,0 +1,136 @@
+package at.ac.tuwien.sepr.assignment.individual.persistence.impl;
+
+import at.ac.tuwien.sepr.assignment.individual.dto.HorsePointsDiscrepancyDto;
+import at.ac.tuwien.sepr.assignment.individual.persistence.HorsePointsDao;
+import java.lang.invoke.MethodHandles;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * DAO for the ranking points of horses.
+ * Points are only ever changed by deltas, so that concurrent standings updates of different tournaments add up.
+ */
+@Repository
+public class HorsePointsJdbcDao implements HorsePointsDao {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  static final String TABLE_NAME = "horse_points";
+
+  // must agree with HorsePointsDao.pointsForRound
+  private static final String POINTS_FOR_ROUND = "CASE WHEN th.round_reached < 2 THEN 0"
+      + " WHEN LSHIFT(1, th.round_reached - 1) = t.bracket_size THEN 5"
+      + " WHEN LSHIFT(1, th.round_reached) = t.bracket_size THEN 3"
+      + " WHEN LSHIFT(1, th.round_reached + 1) = t.bracket_size THEN 1"
+      + " ELSE 0 END";
+
+  private static final String SQL_RECOMPUTE = "SELECT th.horse_id, t.end_date, SUM(" + POINTS_FOR_ROUND + ") AS points"
+      + " FROM tournament_horses th"
+      + " JOIN tournament t ON t.id = th.tournament_id"
+      + " GROUP BY th.horse_id, t.end_date"
+      + " HAVING SUM(" + POINTS_FOR_ROUND + ") > 0";
+
+  private static final String SQL_SELECT_ALL = "SELECT horse_id, end_date, points FROM " + TABLE_NAME;
+
+  private static final String SQL_DELETE_ALL = "DELETE FROM " + TABLE_NAME;
+
+  private static final String SQL_INSERT_RECOMPUTED = "INSERT INTO " + TABLE_NAME + " (horse_id, end_date, points) "
+      + SQL_RECOMPUTE;
+
+  private static final String SQL_ADD_POINTS = "MERGE INTO " + TABLE_NAME + " hp"
+      + " USING (SELECT CAST(? AS BIGINT) AS horse_id, end_date, CAST(? AS INT) AS delta"
+      + "   FROM tournament WHERE id = ?) d"
+      + " ON hp.horse_id = d.horse_id AND hp.end_date = d.end_date"
+      + " WHEN MATCHED THEN UPDATE SET points = hp.points + d.delta"
+      + " WHEN NOT MATCHED THEN INSERT (horse_id, end_date, points) VALUES (d.horse_id, d.end_date, d.delta)";
+
+  // dates without points have no row, see V3__horse_points.sql
+  private static final String SQL_DELETE_EMPTY = "DELETE FROM " + TABLE_NAME + " WHERE horse_id = ANY(?) AND points = 0";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public HorsePointsJdbcDao(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  @Override
+  public void roundsChanged(Long tournamentId, int bracketSize, List<RoundChange> changes) {
+    LOG.trace("roundsChanged({}, {}, {})", tournamentId, bracketSize, changes);
+    List<Delta> deltas = new ArrayList<>(changes.size());
+    List<Long> lost = new ArrayList<>();
+    for (RoundChange change : changes) {
+      int delta = HorsePointsDao.pointsForRound(change.roundReached(), bracketSize)
+          - HorsePointsDao.pointsForRound(change.previousRound(), bracketSize);
+      if (delta != 0) {
+        deltas.add(new Delta(change.horseId(), delta));
+      }
+      if (delta < 0) {
+        lost.add(change.horseId());
+      }
+    }
+    if (deltas.isEmpty()) {
+      return;
+    }
+    jdbcTemplate.batchUpdate(SQL_ADD_POINTS, deltas, deltas.size(), (ps, delta) -> {
+      ps.setLong(1, delta.horseId());
+      ps.setInt(2, delta.points());
+      ps.setLong(3, tournamentId);
+    });
+    if (!lost.isEmpty()) {
+      jdbcTemplate.update(SQL_DELETE_EMPTY, (Object) lost.toArray(Long[]::new));
+    }
+    LOG.debug("Changed the points of {} horses in tournament {}", deltas.size(), tournamentId);
+  }
+
+  @Override
+  @Transactional
+  public int rebuild() {
+    LOG.trace("rebuild()");
+    jdbcTemplate.update(SQL_DELETE_ALL);
+    return jdbcTemplate.update(SQL_INSERT_RECOMPUTED);
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public List<HorsePointsDiscrepancyDto> check() {
+    LOG.trace("check()");
+    Map<Key, Integer> stored = read(SQL_SELECT_ALL);
+    Map<Key, Integer> expected = read(SQL_RECOMPUTE);
+    var keys = new HashSet<>(stored.keySet());
+    keys.addAll(expected.keySet());
+
+    List<HorsePointsDiscrepancyDto> discrepancies = new ArrayList<>();
+    for (var key : keys) {
+      int storedPoints = stored.getOrDefault(key, 0);
+      int expectedPoints = expected.getOrDefault(key, 0);
+      if (storedPoints != expectedPoints) {
+        discrepancies.add(new HorsePointsDiscrepancyDto(key.horseId(), key.endDate(), storedPoints, expectedPoints));
+      }
+    }
+    discrepancies.sort(Comparator.comparingLong(HorsePointsDiscrepancyDto::horseId)
+        .thenComparing(HorsePointsDiscrepancyDto::endDate));
+    return discrepancies;
+  }
+
+  private Map<Key, Integer> read(String query) {
+    Map<Key, Integer> points = new HashMap<>();
+    jdbcTemplate.query(query, (RowCallbackHandler) rs -> points.put(
+        new Key(rs.getLong("horse_id"), rs.getDate("end_date").toLocalDate()), rs.getInt("points")));
+    return points;
+  }
+
+  private record Key(long horseId, LocalDate endDate) {
+  }
+
+  private record Delta(long horseId, int points) {
+  }
+}
@@ -1,25 +1,29 @@
 package at.ac.tuwien.sepr.assignment.individual.persistence.impl;
 
+import at.ac.tuwien.sepr.assignment.individual.entity.HorsePoints;
 import at.ac.tuwien.sepr.assignment.individual.entity.HorseTournament;
 import at.ac.tuwien.sepr.assignment.individual.exception.ConflictException;
-import at.ac.tuwien.sepr.assignment.individual.exception.FatalException;
+import at.ac.tuwien.sepr.assignment.individual.persistence.HorsePointsDao;
 import at.ac.tuwien.sepr.assignment.individual.persistence.HorseTournamentDao;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.lang.invoke.MethodHandles;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 /**
  * DAO for working with horses in a tournament.
@@ -32,25 +36,48 @@ public class HorseTournamentJdbcDao implements HorseTournamentDao {
   private static final String TABLE_NAME = "tournament_horses";
 
   private static final String SQL_SEARCH_HORSE_BY_ID_TOURNAMENTS = "SELECT "
-      + " horse_id, entry_number, round_reached, tournament_id"
+      + " horse_id, entry_number, round_reached, tournament_id, version"
       + " FROM " + TABLE_NAME
       + " WHERE tournament_id = ? ";
 
-  private static final String SQL_SEARCH_HORSE_BY_ID_HORSE = "SELECT "
-      + " horse_id, entry_number, round_reached, tournament_id"
+  // a range sum over the primary key of the points read model per participant
+  static final String SQL_RANKING_POINTS = "SELECT"
+      + " h.id, h.name, h.date_of_birth, COALESCE(SUM(hp.points), 0) AS points"
+      + " FROM " + TABLE_NAME + " p"
+      + " JOIN horse h ON h.id = p.horse_id"
+      + " LEFT JOIN " + HorsePointsJdbcDao.TABLE_NAME + " hp"
+      + "   ON hp.horse_id = p.horse_id AND hp.end_date BETWEEN ? AND ?"
+      + " WHERE p.tournament_id = ?"
+      + " GROUP BY h.id, h.name, h.date_of_birth"
+      + " ORDER BY h.name, h.id";
+
+  private static final String SQL_SEARCH_CONTENDERS = "SELECT "
+      + " horse_id, entry_number, round_reached, tournament_id, version"
+      + " FROM " + TABLE_NAME
+      + " WHERE tournament_id = ? AND entry_number BETWEEN ? AND ? AND round_reached >= ?"
+      + " ORDER BY entry_number FOR UPDATE";
+
+  static final String SQL_SEARCH_HORSE_BY_ID_HORSE = "SELECT "
+      + " horse_id, entry_number, round_reached, tournament_id, version"
       + " FROM " + TABLE_NAME
       + " WHERE horse_id = ? ";
 
-  private static final String SQL_SET_ENTRY_NUMBER_AND_REACHED_ROUND = "UPDATE "
-      + " tournament_horses " + " SET entry_number = ?, round_reached = ? WHERE horse_id = ? AND tournament_id = ?";
+  private static final String SQL_LOCK_REACHED_ROUNDS = "SELECT th.horse_id, th.round_reached, t.bracket_size"
+      + " FROM " + TABLE_NAME + " th"
+      + " JOIN tournament t ON t.id = th.tournament_id"
+      + " WHERE th.tournament_id = ? AND th.horse_id = ANY(?) FOR UPDATE";
 
-  private static final String SQL_MAX_ID = " SELECT MAX(tournament_id) FROM " + TABLE_NAME;
-  private static final String SQL_MIN_ID = " SELECT MIN(tournament_id) FROM " + TABLE_NAME;
+  // a version of NULL updates the participation regardless of its version
+  private static final String SQL_SET_ENTRY_NUMBER_AND_REACHED_ROUND = "UPDATE "
+      + TABLE_NAME + " SET entry_number = ?, round_reached = ?, version = version + 1"
+      + " WHERE horse_id = ? AND tournament_id = ? AND version = COALESCE(?, version)";
 
   private final JdbcTemplate jdbcTemplate;
+  private final HorsePointsDao horsePointsDao;
 
-  public HorseTournamentJdbcDao(JdbcTemplate jdbcTemplate) {
+  public HorseTournamentJdbcDao(JdbcTemplate jdbcTemplate, HorsePointsDao horsePointsDao) {
     this.jdbcTemplate = jdbcTemplate;
+    this.horsePointsDao = horsePointsDao;
   }
 
 
@@ -59,7 +86,8 @@ public class HorseTournamentJdbcDao implements HorseTournamentDao {
         rs.getLong("horse_id"),
         rs.getLong("tournament_id"),
         rs.getInt("entry_number"),
-        rs.getInt("round_reached")
+        rs.getInt("round_reached"),
+        rs.getInt("version")
     );
   }
 
@@ -69,18 +97,6 @@ public class HorseTournamentJdbcDao implements HorseTournamentDao {
     return jdbcTemplate.query(SQL_SEARCH_HORSE_BY_ID_TOURNAMENTS, this::mapHorseRow, tournamentId);
   }
 
-  @Override
-  public Map<Long, List<HorseTournament>> getHorsesByIDsTournaments(Set<Long> tournamentIds) {
-    LOG.trace("getHorseByIDTournaments({})", tournamentIds);
-    Map<Long, List<HorseTournament>> results = new HashMap<>();
-    for (Long tournamentId : tournamentIds) {
-      List<HorseTournament> horses = jdbcTemplate.query(SQL_SEARCH_HORSE_BY_ID_TOURNAMENTS, this::mapHorseRow, tournamentId);
-      results.put(tournamentId, horses);
-    }
-
-    return results;
-  }
-
   @Override
   public List<HorseTournament> getParticipatingHorse(Long horseId) {
     LOG.trace("getHorseTournamentById({})", horseId);
@@ -93,29 +109,68 @@ public class HorseTournamentJdbcDao implements HorseTournamentDao {
   }
 
   @Override
-  public void updateStandings(Long tournamentId, Long horseId, int entryNumber, int roundReached) throws ConflictException {
-    LOG.trace("updateStandings({}, {}, {}, {})", tournamentId, horseId, entryNumber, roundReached);
-    Long minId = jdbcTemplate.queryForObject(SQL_MIN_ID, Long.class);
-    Long maxId = jdbcTemplate.queryForObject(SQL_MAX_ID, Long.class);
-    if (minId != null || maxId != null) {
-      if (tournamentId < minId || tournamentId > maxId) {
-        LOG.warn("Update of tournament failed. Tournament ID is outside the range of IDs stored in the database.");
-        List<String> errors = new ArrayList<>();
-        errors.add("Update of tournament failed. Tournament ID is outside the range of IDs stored in the database.");
-        throw new ConflictException("Tournaments ID is outside the range of IDs stored in the database", errors);
+  public void updateStandings(Long tournamentId, Long horseId, int entryNumber, int roundReached, Integer version)
+      throws ConflictException {
+    LOG.trace("updateStandings({}, {}, {}, {}, {})", tournamentId, horseId, entryNumber, roundReached, version);
+    updateStandings(tournamentId, List.of(new HorseTournament(horseId, tournamentId, entryNumber, roundReached, version)));
+  }
+
+  @Override
+  @Transactional(rollbackFor = ConflictException.class)
+  public int updateStandings(Long tournamentId, List<HorseTournament> standings) throws ConflictException {
+    LOG.trace("updateStandings({}, {})", tournamentId, standings);
+    if (standings.isEmpty()) {
+      return 0;
+    }
+    Map<Long, Integer> previousRounds = new HashMap<>();
+    int[] bracketSize = new int[1];
+    jdbcTemplate.query(SQL_LOCK_REACHED_ROUNDS, (RowCallbackHandler) rs -> {
+      previousRounds.put(rs.getLong("horse_id"), rs.getInt("round_reached"));
+      bracketSize[0] = rs.getInt("bracket_size");
+    },
+        tournamentId, standings.stream().map(HorseTournament::getHorseId).toArray(Long[]::new));
+
+    int[][] updatedRows = jdbcTemplate.batchUpdate(SQL_SET_ENTRY_NUMBER_AND_REACHED_ROUND, standings, standings.size(),
+        (ps, horse) -> {
+          ps.setInt(1, horse.getEntryNumber());
+          ps.setInt(2, horse.getRoundReached());
+          ps.setLong(3, horse.getHorseId());
+          ps.setLong(4, tournamentId);
+          ps.setObject(5, horse.getVersion(), Types.INTEGER);
+        });
+    List<String> errors = new ArrayList<>();
+    for (int i = 0; i < standings.size(); i++) {
+      if (updatedRows[0][i] == 0) {
+        errors.add("Horse " + standings.get(i).getHorseId() + " does not participate in tournament " + tournamentId
+            + " or its standing was changed in the meantime");
       }
     }
-    int updatedRows = jdbcTemplate.update(
-        SQL_SET_ENTRY_NUMBER_AND_REACHED_ROUND,
-        entryNumber,
-        roundReached,
-        horseId,
-        tournamentId
-    );
-    if (updatedRows != 1) {
-      LOG.warn("Standings could not be updated");
-      throw new FatalException("Standings could not be updated");
+    if (!errors.isEmpty()) {
+      LOG.warn("Standings of tournament {} could not be updated: {}", tournamentId, errors);
+      throw new ConflictException("Standings could not be updated", errors);
     }
+
+    horsePointsDao.roundsChanged(tournamentId, bracketSize[0], standings.stream()
+        .map(horse -> new HorsePointsDao.RoundChange(horse.getHorseId(), previousRounds.get(horse.getHorseId()),
+            horse.getRoundReached()))
+        .toList());
+    return standings.size();
   }
 
+  @Override
+  public List<HorsePoints> getRankingPoints(Long tournamentId, LocalDate from, LocalDate to) {
+    LOG.trace("getRankingPoints({}, {}, {})", tournamentId, from, to);
+    return jdbcTemplate.query(SQL_RANKING_POINTS, (rs, rowNum) -> new HorsePoints(
+        rs.getLong("id"),
+        rs.getString("name"),
+        rs.getDate("date_of_birth").toLocalDate(),
+        rs.getInt("points")
+    ), from, to, tournamentId);
+  }
+
+  @Override
+  public List<HorseTournament> getContenders(Long tournamentId, int firstEntry, int lastEntry, int round) {
+    LOG.trace("getContenders({}, {}, {}, {})", tournamentId, firstEntry, lastEntry, round);
+    return jdbcTemplate.query(SQL_SEARCH_CONTENDERS, this::mapHorseRow, tournamentId, firstEntry, lastEntry, round);
+  }
 }
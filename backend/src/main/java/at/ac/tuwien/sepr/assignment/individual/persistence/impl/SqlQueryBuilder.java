@@ -0,0 +1,52 @@
+package at.ac.tuwien.sepr.assignment.individual.persistence.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Assembles a {@code SELECT} statement from only those predicates a particular search needs.
+ * Leaving out the {@code (:x IS NULL OR ...)} branches of unused parameters keeps every predicate sargable,
+ * so H2 can pick an index for whatever is left.
+ */
+final class SqlQueryBuilder {
+  private final String selectFrom;
+  private final List<String> predicates = new ArrayList<>();
+  private String orderBy;
+  private boolean limit;
+
+  SqlQueryBuilder(String selectFrom) {
+    this.selectFrom = selectFrom;
+  }
+
+  SqlQueryBuilder where(String predicate) {
+    predicates.add(predicate);
+    return this;
+  }
+
+  SqlQueryBuilder orderBy(String orderBy) {
+    this.orderBy = orderBy;
+    return this;
+  }
+
+  /**
+   * Restrict the number of results to the named parameter {@code :limit}.
+   */
+  SqlQueryBuilder limit() {
+    this.limit = true;
+    return this;
+  }
+
+  String build() {
+    var sql = new StringBuilder(selectFrom);
+    if (!predicates.isEmpty()) {
+      sql.append(" WHERE ").append(String.join(" AND ", predicates));
+    }
+    if (orderBy != null) {
+      sql.append(" ORDER BY ").append(orderBy);
+    }
+    if (limit) {
+      sql.append(" LIMIT :limit");
+    }
+    return sql.toString();
+  }
+}
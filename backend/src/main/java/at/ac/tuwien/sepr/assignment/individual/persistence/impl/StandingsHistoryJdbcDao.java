@@ -0,0 +1,203 @@
+package at.ac.tuwien.sepr.assignment.individual.persistence.impl;
+
+import at.ac.tuwien.sepr.assignment.individual.entity.StandingsVersion;
+import at.ac.tuwien.sepr.assignment.individual.exception.ConflictException;
+import at.ac.tuwien.sepr.assignment.individual.exception.NotFoundException;
+import at.ac.tuwien.sepr.assignment.individual.persistence.StandingsHistoryDao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.invoke.MethodHandles;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * DAO for the history of the standings of tournaments.
+ * A version's bracket is read by walking down from its final one round at a time,
+ * with one primary key lookup per round for the children of the nodes of the round before.
+ */
+@Repository
+public class StandingsHistoryJdbcDao implements StandingsHistoryDao {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  private static final String VERSION_TABLE_NAME = "standings_version";
+  private static final String NODE_TABLE_NAME = "standings_node";
+
+  private static final String SQL_LATEST_VERSION = "SELECT COALESCE(MAX(version), 0)"
+      + " FROM " + VERSION_TABLE_NAME
+      + " WHERE tournament_id = ?";
+
+  private static final String SQL_SEARCH_VERSIONS = "SELECT tournament_id, version, root_id, created_at"
+      + " FROM " + VERSION_TABLE_NAME
+      + " WHERE tournament_id = ?";
+
+  private static final String SQL_SEARCH_NODES = "SELECT id, node, horse_id, left_id, right_id"
+      + " FROM " + NODE_TABLE_NAME
+      + " WHERE id = ANY(?)";
+
+  private static final String SQL_NEXT_NODE_IDS = "SELECT NEXT VALUE FOR standings_node_seq FROM SYSTEM_RANGE(1, ?)";
+
+  private static final String SQL_CREATE_VERSION = "INSERT INTO " + VERSION_TABLE_NAME
+      + " (tournament_id, version, root_id, created_at) VALUES (?, ?, ?, LOCALTIMESTAMP)";
+
+  private static final String SQL_CREATE_NODE = "INSERT INTO " + NODE_TABLE_NAME
+      + " (id, tournament_id, version, node, horse_id, left_id, right_id) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public StandingsHistoryJdbcDao(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  private record Node(long id, int node, long horseId, Long leftId, Long rightId) {
+  }
+
+  private Node mapNodeRow(ResultSet rs, int rowNum) throws SQLException {
+    return new Node(
+        rs.getLong("id"),
+        rs.getInt("node"),
+        rs.getLong("horse_id"),
+        rs.getObject("left_id", Long.class),
+        rs.getObject("right_id", Long.class)
+    );
+  }
+
+  private StandingsVersion mapVersionRow(ResultSet rs, int rowNum) throws SQLException {
+    return new StandingsVersion()
+        .setTournamentId(rs.getLong("tournament_id"))
+        .setVersion(rs.getInt("version"))
+        .setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+  }
+
+  @Override
+  public int getLatestVersion(Long tournamentId) {
+    LOG.trace("getLatestVersion({})", tournamentId);
+    return jdbcTemplate.queryForObject(SQL_LATEST_VERSION, Integer.class, tournamentId);
+  }
+
+  @Override
+  public List<StandingsVersion> getVersions(Long tournamentId) {
+    LOG.trace("getVersions({})", tournamentId);
+    return jdbcTemplate.query(SQL_SEARCH_VERSIONS + " ORDER BY version", this::mapVersionRow, tournamentId);
+  }
+
+  @Override
+  public StandingsVersion getVersion(Long tournamentId, int version, int bracketSize) throws NotFoundException {
+    LOG.trace("getVersion({}, {}, {})", tournamentId, version, bracketSize);
+    Long[] rootId = new Long[1];
+    List<StandingsVersion> versions = jdbcTemplate.query(SQL_SEARCH_VERSIONS + " AND version = ?", (rs, rowNum) -> {
+      rootId[0] = rs.getObject("root_id", Long.class);
+      return mapVersionRow(rs, rowNum);
+    }, tournamentId, version);
+    if (versions.isEmpty()) {
+      LOG.warn("Could not find version {} of the standings of tournament {}", version, tournamentId);
+      throw new NotFoundException("Could not find version " + version + " of the standings of tournament " + tournamentId);
+    }
+
+    long[] horseIds = new long[2 * bracketSize];
+    long[] nodeIds = new long[2 * bracketSize];
+    for (Node node : walk(rootId[0], null)) {
+      horseIds[node.node()] = node.horseId();
+      nodeIds[node.node()] = node.id();
+    }
+    return versions.get(0).setHorseIds(horseIds).setNodeIds(nodeIds);
+  }
+
+  /**
+   * Read the nodes of a version, starting at its final.
+   *
+   * @param rootId the ID of the final's node, or {@code null} if the bracket has no horses
+   * @param paths the nodes to read, along with all their ancestors, or {@code null} to read all nodes
+   */
+  private List<Node> walk(Long rootId, Set<Integer> paths) {
+    List<Node> nodes = new ArrayList<>();
+    List<Long> ids = rootId == null ? List.of() : List.of(rootId);
+    while (!ids.isEmpty()) {
+      var round = jdbcTemplate.query(SQL_SEARCH_NODES, this::mapNodeRow, (Object) ids.toArray(Long[]::new));
+      nodes.addAll(round);
+      ids = new ArrayList<>();
+      for (Node node : round) {
+        if (node.leftId() != null && (paths == null || paths.contains(2 * node.node()))) {
+          ids.add(node.leftId());
+        }
+        if (node.rightId() != null && (paths == null || paths.contains(2 * node.node() + 1))) {
+          ids.add(node.rightId());
+        }
+      }
+    }
+    return nodes;
+  }
+
+  @Override
+  @Transactional(rollbackFor = ConflictException.class)
+  public int addVersion(Long tournamentId, int baseVersion, Map<Integer, Long> changes) throws ConflictException {
+    LOG.trace("addVersion({}, {}, {})", tournamentId, baseVersion, changes);
+    // the final is always copied, it is the root of the new version
+    Set<Integer> paths = new HashSet<>();
+    paths.add(1);
+    for (int changed : changes.keySet()) {
+      // up to the first ancestor already on a path
+      int node = changed;
+      while (paths.add(node)) {
+        node >>= 1;
+      }
+    }
+    Map<Integer, Node> base = new HashMap<>();
+    if (baseVersion > 0) {
+      var rootIds = jdbcTemplate.query(SQL_SEARCH_VERSIONS + " AND version = ?",
+          (rs, rowNum) -> rs.getObject("root_id", Long.class), tournamentId, baseVersion);
+      for (Node node : walk(rootIds.isEmpty() ? null : rootIds.get(0), paths)) {
+        base.put(node.node(), node);
+      }
+    }
+
+    // children first, so that every node knows the IDs of its new children
+    Iterator<Long> nextIds = jdbcTemplate.queryForList(SQL_NEXT_NODE_IDS, Long.class, paths.size()).iterator();
+    List<Node> created = new ArrayList<>();
+    Map<Integer, Long> createdIds = new HashMap<>();
+    for (int node : paths.stream().sorted((a, b) -> b - a).toList()) {
+      var before = base.get(node);
+      long horseId = changes.containsKey(node) ? changes.get(node) : before == null ? 0 : before.horseId();
+      Long left = paths.contains(2 * node) ? createdIds.get(2 * node) : before == null ? null : before.leftId();
+      Long right = paths.contains(2 * node + 1) ? createdIds.get(2 * node + 1) : before == null ? null : before.rightId();
+      // a subtree without any horse is left out
+      if (horseId != 0 || left != null || right != null) {
+        var id = nextIds.next();
+        created.add(new Node(id, node, horseId, left, right));
+        createdIds.put(node, id);
+      }
+    }
+
+    int version = baseVersion + 1;
+    try {
+      jdbcTemplate.update(SQL_CREATE_VERSION, tournamentId, version, createdIds.get(1));
+    } catch (DuplicateKeyException e) {
+      LOG.warn("Version {} of the standings of tournament {} was stored in the meantime", version, tournamentId);
+      throw new ConflictException("Standings history could not be updated",
+          List.of("The standings of tournament " + tournamentId + " were changed in the meantime"));
+    }
+    jdbcTemplate.batchUpdate(SQL_CREATE_NODE, created, created.size(), (ps, node) -> {
+      ps.setLong(1, node.id());
+      ps.setLong(2, tournamentId);
+      ps.setInt(3, version);
+      ps.setInt(4, node.node());
+      ps.setObject(5, node.horseId() == 0 ? null : node.horseId(), Types.BIGINT);
+      ps.setObject(6, node.leftId(), Types.BIGINT);
+      ps.setObject(7, node.rightId(), Types.BIGINT);
+    });
+    LOG.debug("Stored version {} of the standings of tournament {} with {} nodes", version, tournamentId, created.size());
+    return version;
+  }
+}
@@ -0,0 +1,216 @@
+package at.ac.tuwien.sepr.assignment.individual.persistence.impl;
+
+import at.ac.tuwien.sepr.assignment.individual.dto.PageCursor;
+import at.ac.tuwien.sepr.assignment.individual.dto.TournamentSearchParamsDto;
+import at.ac.tuwien.sepr.assignment.individual.entity.Tournament;
+import at.ac.tuwien.sepr.assignment.individual.persistence.CaseFolding;
+import at.ac.tuwien.sepr.assignment.individual.persistence.DataReloadedEvent;
+import java.lang.invoke.MethodHandles;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory interval index over the periods of all stored tournaments.
+ * It is used by {@link TournamentJdbcDao} to answer searches for the tournaments overlapping a period,
+ * which the database can only answer by scanning one of the date indexes up to the end of the period.
+ *
+ * <p>The tournaments are kept sorted by start date and ID, the order of the search results,
+ * and augmented with the latest end date of every subtree of the implicit balanced tree over that order.
+ * A search walks the tree in order, skips every subtree ending before the period
+ * and stops at the first tournament starting after it, so it takes O(log n + k) for k overlapping tournaments.
+ * Tournaments are never updated or deleted; a create replaces the whole snapshot, which keeps searches lock-free.
+ *
+ * <p>The index is built from the database once the application context is ready,
+ * rebuilt on every {@link DataReloadedEvent} and kept up to date by the DAO on create.
+ * Names are case-folded the same way as H2's {@code UPPER}, so the results are exactly the ones of the SQL search.
+ */
+@Component
+public class TournamentDateIndex {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  private static final String SQL_SELECT_ALL = "SELECT id, name, start_date, end_date, bracket_size FROM tournament";
+
+  private final JdbcTemplate jdbcTemplate;
+  private volatile Snapshot snapshot = null;
+
+  public TournamentDateIndex(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  /**
+   * (Re-)build the whole index from the tournaments currently stored in the database.
+   */
+  @EventListener({ContextRefreshedEvent.class, DataReloadedEvent.class})
+  public synchronized void rebuild() {
+    LOG.trace("rebuild()");
+    List<Tournament> tournaments = new ArrayList<>();
+    jdbcTemplate.query(SQL_SELECT_ALL, rs -> {
+      tournaments.add(new Tournament()
+          .setId(rs.getLong("id"))
+          .setName(rs.getString("name"))
+          .setStartDate(rs.getDate("start_date").toLocalDate())
+          .setEndDate(rs.getDate("end_date").toLocalDate())
+          .setBracketSize(rs.getInt("bracket_size")));
+    });
+    snapshot = new Snapshot(tournaments.toArray(Tournament[]::new));
+    LOG.info("Built tournament date index for {} tournaments", tournaments.size());
+  }
+
+  /**
+   * Add a newly created tournament to the index.
+   *
+   * @param tournament the tournament
+   */
+  public synchronized void add(Tournament tournament) {
+    LOG.trace("add({})", tournament);
+    var current = snapshot;
+    if (current == null) {
+      // not built yet; the tournament will be read along with all others
+      return;
+    }
+    var tournaments = Arrays.copyOf(current.tournaments, current.tournaments.length + 1);
+    tournaments[tournaments.length - 1] = tournament;
+    snapshot = new Snapshot(tournaments);
+  }
+
+  /**
+   * Check whether this index can answer the given search.
+   * That is only the case for searches of the tournaments overlapping a period bounded on both sides,
+   * once the index has been built, and if the name does not contain characters that {@code LIKE} would interpret
+   * as wildcards or escapes.
+   *
+   * @param searchParams the parameters of the search
+   * @return {@code true} if {@link #search(TournamentSearchParamsDto)} gives the exact result for {@code searchParams}
+   */
+  public boolean canAnswer(TournamentSearchParamsDto searchParams) {
+    var name = searchParams.name();
+    return snapshot != null
+        && searchParams.startDate() != null
+        && searchParams.endDate() != null
+        && (name == null || name.indexOf('%') < 0 && name.indexOf('_') < 0 && name.indexOf('\\') < 0);
+  }
+
+  /**
+   * Get the tournaments overlapping the period of the search whose name contains the one searched for, ignoring case.
+   * They are sorted by start date and then by ID, start after the cursor and are at most as many as the limit,
+   * if these are given.
+   *
+   * @param searchParams the parameters of the search, see {@link #canAnswer(TournamentSearchParamsDto)}
+   * @return the tournaments found
+   */
+  public List<Tournament> search(TournamentSearchParamsDto searchParams) {
+    LOG.trace("search({})", searchParams);
+    var after = PageCursor.decode(searchParams.cursor());
+    var query = new Query(
+        searchParams.startDate().toEpochDay(),
+        searchParams.endDate().toEpochDay(),
+        searchParams.name() == null ? null : CaseFolding.upper(searchParams.name()),
+        after == null ? Long.MIN_VALUE : LocalDate.parse(after.key()).toEpochDay(),
+        after == null ? Long.MIN_VALUE : after.id(),
+        searchParams.limit() == null ? Integer.MAX_VALUE : searchParams.limit());
+    return snapshot.search(query);
+  }
+
+  /**
+   * The bounds of a search, with dates as epoch days.
+   */
+  private record Query(long from, long to, String name, long afterStart, long afterId, int limit) {
+  }
+
+  /**
+   * Immutable state of the index.
+   * The tournaments are sorted by start date and ID; {@code maxEnd[mid]} is the latest end date of the subtree
+   * rooted at {@code mid}, the middle of the range of positions it covers.
+   */
+  private static final class Snapshot {
+    private final Tournament[] tournaments;
+    private final String[] names;
+    private final long[] ids;
+    private final long[] starts;
+    private final long[] ends;
+    private final long[] maxEnd;
+
+    private Snapshot(Tournament[] tournaments) {
+      Arrays.sort(tournaments, Comparator.comparing(Tournament::getStartDate).thenComparing(Tournament::getId));
+      int size = tournaments.length;
+      this.tournaments = tournaments;
+      this.names = new String[size];
+      this.ids = new long[size];
+      this.starts = new long[size];
+      this.ends = new long[size];
+      this.maxEnd = new long[size];
+      for (int i = 0; i < size; i++) {
+        names[i] = CaseFolding.upper(tournaments[i].getName());
+        ids[i] = tournaments[i].getId();
+        starts[i] = tournaments[i].getStartDate().toEpochDay();
+        ends[i] = tournaments[i].getEndDate().toEpochDay();
+      }
+      augment(0, size);
+    }
+
+    private long augment(int lo, int hi) {
+      if (lo >= hi) {
+        return Long.MIN_VALUE;
+      }
+      int mid = (lo + hi) >>> 1;
+      maxEnd[mid] = Math.max(ends[mid], Math.max(augment(lo, mid), augment(mid + 1, hi)));
+      return maxEnd[mid];
+    }
+
+    private List<Tournament> search(Query query) {
+      // the first position sorted after the cursor; everything before it is skipped without being looked at
+      int first = 0;
+      int last = tournaments.length;
+      while (first < last) {
+        int mid = (first + last) >>> 1;
+        if (starts[mid] < query.afterStart() || starts[mid] == query.afterStart() && ids[mid] <= query.afterId()) {
+          first = mid + 1;
+        } else {
+          last = mid;
+        }
+      }
+      List<Tournament> results = new ArrayList<>();
+      collect(0, tournaments.length, first, query, results);
+      return results;
+    }
+
+    /**
+     * Collect the matches among the positions {@code [lo, hi)} in order.
+     *
+     * @return {@code false} if the search is complete, because a tournament starting after the period was reached
+     *     or the limit is exhausted
+     */
+    private boolean collect(int lo, int hi, int first, Query query, List<Tournament> results) {
+      if (lo >= hi || hi <= first) {
+        return true;
+      }
+      int mid = (lo + hi) >>> 1;
+      if (maxEnd[mid] < query.from()) {
+        // every tournament of this subtree ends before the period
+        return true;
+      }
+      if (!collect(lo, mid, first, query, results)) {
+        return false;
+      }
+      if (starts[mid] > query.to()) {
+        // so do all that are sorted after this one
+        return false;
+      }
+      if (mid >= first && ends[mid] >= query.from() && (query.name() == null || names[mid].contains(query.name()))) {
+        results.add(tournaments[mid]);
+        if (results.size() >= query.limit()) {
+          return false;
+        }
+      }
+      return collect(mid + 1, hi, first, query, results);
+    }
+  }
+}
@@ -1,27 +1,34 @@
 package at.ac.tuwien.sepr.assignment.individual.persistence.impl;
 
 import at.ac.tuwien.sepr.assignment.individual.dto.HorseSelectionDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.PageCursor;
 import at.ac.tuwien.sepr.assignment.individual.dto.TournamentCreateDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.TournamentSearchParamsDto;
 import at.ac.tuwien.sepr.assignment.individual.entity.Tournament;
-import at.ac.tuwien.sepr.assignment.individual.exception.ConflictException;
 import at.ac.tuwien.sepr.assignment.individual.exception.FatalException;
 import at.ac.tuwien.sepr.assignment.individual.exception.NotFoundException;
 import at.ac.tuwien.sepr.assignment.individual.persistence.TournamentDao;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
 
 import java.lang.invoke.MethodHandles;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Types;
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * DAO for tournaments.
@@ -33,53 +40,43 @@ public class TournamentJdbcDao implements TournamentDao {
   private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
   private static final String TABLE_NAME = "tournament";
   private static final String SQL_SELECT_SEARCH_TOURNAMENT = "SELECT "
-      + "    t.id as \"id\", t.name as \"name\", t.start_date as \"start_date\", t.end_date as \"end_date\""
-      + " FROM " + TABLE_NAME + " t"
-      + " WHERE (:name IS NULL OR UPPER(t.name) LIKE UPPER('%'||:name||'%'))"
-      + "  AND ("
-      + "(:startDate IS NULL OR :startDate <= t.start_date) AND (:endDate IS NULL OR :endDate >= t.end_date)"
-      + " OR "
-      + "(:startDate IS NULL OR :startDate <= t.start_date) AND (:endDate IS NULL OR :endDate >= t.start_date)"
-      + " OR "
-      + "(:startDate IS NULL OR :startDate <= t.end_date) AND (:endDate IS NULL OR :endDate >= t.end_date)"
-      + " OR "
-      + "(:startDate IS NULL OR :startDate >= t.start_date) AND (:endDate IS NULL OR :endDate <= t.end_date)"
-      + ")"
-      + " ORDER BY t.start_date";
+      + "    t.id as \"id\", t.name as \"name\", t.start_date as \"start_date\", t.end_date as \"end_date\","
+      + "    t.bracket_size as \"bracket_size\""
+      + " FROM " + TABLE_NAME + " t";
   private static final String SQL_CREATE = "INSERT INTO "
-      + TABLE_NAME + "(name, start_date, end_date) "
-      + "VALUES (?, ?, ?)";
-
-  private static final String SQL_FIND_TOURNAMENT_ID = "SELECT "
-      + "    t.id as \"id\", t.name as \"name\", t.start_date as \"start_date\", t.end_date as \"end_date\""
-      + " FROM " + TABLE_NAME + " t"
-      + " WHERE (:name IS NULL OR UPPER(t.name) LIKE UPPER('%'||:name||'%'))"
-      + "  AND (:startDate IS NULL OR t.start_date = :startDate)"
-      + "  AND (:endDate IS NULL OR t.end_date = :endDate)";
+      + TABLE_NAME + "(name, start_date, end_date, bracket_size) "
+      + "VALUES (?, ?, ?, ?)";
 
   private static final String SQL_SEARCH_TOURNAMENT_BY_ID = "SELECT "
-      + "    t.id as \"id\", t.name as \"name\", t.start_date as \"start_date\", t.end_date as \"end_date\""
+      + "    t.id as \"id\", t.name as \"name\", t.start_date as \"start_date\", t.end_date as \"end_date\","
+      + "    t.bracket_size as \"bracket_size\""
       + " FROM " + TABLE_NAME + " t"
       + " WHERE id = ?";
 
+  // participants start without an entry number and in the first round
   private static final String SQL_ASSOCIATE_HORSE_WITH_TOURNAMENT =
-      "INSERT INTO " + " tournament_horses " + " (tournament_id, horse_id) VALUES (?, ?)";
-
-  private static final String SQL_FIND_LAST_12_MONTHS = "SELECT *"
-      + " FROM " + TABLE_NAME
-      + " WHERE end_date BETWEEN ? AND ?";
+      "INSERT INTO " + " tournament_horses " + " (tournament_id, horse_id, entry_number, round_reached) VALUES (?, ?, -1, 0)";
 
 
   private final JdbcTemplate jdbcTemplate;
   private final NamedParameterJdbcTemplate jdbcNamed;
-  private HorseTournamentJdbcDao horseTournamentJdbcDao;
+  private final TournamentDateIndex dateIndex;
+  private final Map<Set<SearchPredicate>, String> searchQueries = new ConcurrentHashMap<>();
+
+  /**
+   * The predicates a tournament search can consist of.
+   */
+  private enum SearchPredicate {
+    NAME, DATES, AFTER, LIMIT
+  }
 
   public TournamentJdbcDao(
       JdbcTemplate jdbcTemplate,
-      NamedParameterJdbcTemplate jdbcNamed, HorseTournamentJdbcDao horseTournamentJdbcDao) {
+      NamedParameterJdbcTemplate jdbcNamed,
+      TournamentDateIndex dateIndex) {
     this.jdbcTemplate = jdbcTemplate;
     this.jdbcNamed = jdbcNamed;
-    this.horseTournamentJdbcDao = horseTournamentJdbcDao;
+    this.dateIndex = dateIndex;
   }
 
 
@@ -88,82 +85,137 @@ public class TournamentJdbcDao implements TournamentDao {
         .setId(rs.getLong("id"))
         .setName(rs.getString("name"))
         .setStartDate(rs.getDate("start_date").toLocalDate())
-        .setEndDate(rs.getDate("end_date").toLocalDate());
+        .setEndDate(rs.getDate("end_date").toLocalDate())
+        .setBracketSize(rs.getInt("bracket_size"));
   }
 
 
   @Override
   public Collection<Tournament> search(TournamentSearchParamsDto searchParams) {
     LOG.trace("search({})", searchParams);
-    String query = SQL_SELECT_SEARCH_TOURNAMENT;
-    var params = new BeanPropertySqlParameterSource(searchParams);
-    params.registerSqlType("name", Types.VARCHAR);
-    return jdbcNamed.query(query, params, this::mapRow);
+    if (dateIndex.canAnswer(searchParams)) {
+      return dateIndex.search(searchParams);
+    }
+    return searchInDatabase(searchParams);
+  }
+
+  /**
+   * Search with SQL only, without consulting the {@link TournamentDateIndex}.
+   *
+   * @param searchParams the parameters of the search
+   * @return the tournaments found
+   */
+  List<Tournament> searchInDatabase(TournamentSearchParamsDto searchParams) {
+    var after = PageCursor.decode(searchParams.cursor());
+    var params = new MapSqlParameterSource()
+        .addValue("name", searchParams.name())
+        .addValue("startDate", searchParams.startDate())
+        .addValue("endDate", searchParams.endDate())
+        .addValue("afterStartDate", after == null ? null : LocalDate.parse(after.key()))
+        .addValue("afterId", after == null ? null : after.id())
+        .addValue("limit", searchParams.limit());
+    return jdbcNamed.query(searchQuery(searchParams), params, this::mapRow);
+  }
+
+  /**
+   * Get the SQL for a search with the given parameters.
+   * Only the parameters that are set end up as predicates; the statement for each such shape is built once and cached,
+   * so repeated searches of the same shape send the identical statement and H2 can reuse its prepared plan.
+   *
+   * @param searchParams the parameters of the search
+   * @return the SQL for the given shape of search
+   */
+  String searchQuery(TournamentSearchParamsDto searchParams) {
+    var shape = EnumSet.noneOf(SearchPredicate.class);
+    if (searchParams.name() != null) {
+      shape.add(SearchPredicate.NAME);
+    }
+    // the period only restricts the result if it is bounded on both sides
+    if (searchParams.startDate() != null && searchParams.endDate() != null) {
+      shape.add(SearchPredicate.DATES);
+    }
+    if (searchParams.cursor() != null) {
+      shape.add(SearchPredicate.AFTER);
+    }
+    if (searchParams.limit() != null) {
+      shape.add(SearchPredicate.LIMIT);
+    }
+    return searchQueries.computeIfAbsent(shape, TournamentJdbcDao::buildSearchQuery);
+  }
+
+  private static String buildSearchQuery(Set<SearchPredicate> shape) {
+    LOG.debug("Building tournament search query for shape {}", shape);
+    var query = new SqlQueryBuilder(SQL_SELECT_SEARCH_TOURNAMENT);
+    if (shape.contains(SearchPredicate.NAME)) {
+      query.where("UPPER(t.name) LIKE UPPER('%'||:name||'%')");
+    }
+    if (shape.contains(SearchPredicate.DATES)) {
+      // the tournament overlaps the searched period
+      query.where("t.start_date <= :endDate").where("t.end_date >= :startDate");
+    }
+    if (shape.contains(SearchPredicate.AFTER)) {
+      // seek instead of skipping, so that later pages are as cheap as the first one
+      query.where("(t.start_date, t.id) > (:afterStartDate, :afterId)");
+    }
+    query.orderBy("t.start_date, t.id");
+    if (shape.contains(SearchPredicate.LIMIT)) {
+      query.limit();
+    }
+    return query.build();
   }
 
 
   @Override
-  public Tournament create(TournamentCreateDto tournament) throws ConflictException {
+  public Tournament create(TournamentCreateDto tournament) {
     LOG.trace("create({})", tournament);
     List<HorseSelectionDto> participants = tournament.participants();
 
-    int created = jdbcTemplate.update(
-        SQL_CREATE,
-        tournament.name(),
-        tournament.startDate(),
-        tournament.endDate()
-    );
-
-    if (created == 0) {
+    KeyHolder keyHolder = new GeneratedKeyHolder();
+    int created = jdbcTemplate.update(connection -> {
+      PreparedStatement stmt = connection.prepareStatement(SQL_CREATE, new String[] {"id"});
+      stmt.setString(1, tournament.name());
+      stmt.setObject(2, tournament.startDate());
+      stmt.setObject(3, tournament.endDate());
+      stmt.setInt(4, participants.size());
+      return stmt;
+    }, keyHolder);
+
+    if (created == 0 || keyHolder.getKey() == null) {
       LOG.warn("Tournament could not be created");
       throw new FatalException("Tournament could not be created");
     }
-
-    String query = SQL_FIND_TOURNAMENT_ID;
-    var params = new BeanPropertySqlParameterSource(new TournamentSearchParamsDto(
-        tournament.name(),
-        tournament.startDate(),
-        tournament.endDate()
-    ));
-    params.registerSqlType("name", Types.VARCHAR);
-    Long tournamentID =  jdbcNamed.query(query, params, this::mapRow).get(0).getId();
-
-    for (HorseSelectionDto participantDto : participants) {
-      int rowAffected = jdbcTemplate.update(
-          SQL_ASSOCIATE_HORSE_WITH_TOURNAMENT,
-          tournamentID,
-          participantDto.id()
-      );
-      if (rowAffected == 0) {
-        LOG.warn("Horse could not be associated with tournament");
-        throw new FatalException("Horse could not be associated with tournament");
-      }
-      horseTournamentJdbcDao.updateStandings(tournamentID, participantDto.id(), -1, 0);
+    long tournamentID = keyHolder.getKey().longValue();
+
+    int[] associated = jdbcTemplate.batchUpdate(SQL_ASSOCIATE_HORSE_WITH_TOURNAMENT, participants.stream()
+        .map(participant -> new Object[] {tournamentID, participant.id()})
+        .toList());
+    if (Arrays.stream(associated).anyMatch(rowsAffected -> rowsAffected == 0)) {
+      LOG.warn("Horse could not be associated with tournament");
+      throw new FatalException("Horse could not be associated with tournament");
     }
 
-    return new Tournament()
+    var createdTournament = new Tournament()
         .setId(tournamentID)
         .setName(tournament.name())
         .setStartDate(tournament.startDate())
-        .setEndDate(tournament.endDate());
+        .setEndDate(tournament.endDate())
+        .setBracketSize(participants.size());
+    AfterCommit.run(() -> dateIndex.add(createdTournament));
+    return createdTournament;
   }
 
 
 
 
   @Override
-  public Tournament getById(Long tournamentId) {
+  public Tournament getById(Long tournamentId) throws NotFoundException {
     LOG.trace("getById({})", tournamentId);
-    return jdbcTemplate.query(SQL_SEARCH_TOURNAMENT_BY_ID, this::mapRow, tournamentId).get(0);
-  }
-
-  @Override
-  public List<Tournament> getLast12MonthsTournaments(LocalDate startDate) {
-    LOG.trace("getLast12MonthsTournamentStandings()");
-    LocalDate endDate = startDate.minusMonths(12);
-    startDate = startDate.minusDays(1); //exclude the start date
-    List<Tournament> results = jdbcTemplate.query(SQL_FIND_LAST_12_MONTHS, this::mapRow, endDate, startDate);
-    return results;
+    List<Tournament> tournaments = jdbcTemplate.query(SQL_SEARCH_TOURNAMENT_BY_ID, this::mapRow, tournamentId);
+    if (tournaments.isEmpty()) {
+      LOG.warn("Could not find tournament with ID {}", tournamentId);
+      throw new NotFoundException("Could not find tournament with ID " + tournamentId);
+    }
+    return tournaments.get(0);
   }
 
 }
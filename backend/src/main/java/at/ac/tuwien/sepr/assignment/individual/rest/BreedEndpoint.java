@@ -1,5 +1,6 @@
 package at.ac.tuwien.sepr.assignment.individual.rest;
 
+import at.ac.tuwien.sepr.assignment.individual.dto.BreedCacheStatsDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.BreedDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.BreedSearchDto;
 import at.ac.tuwien.sepr.assignment.individual.service.BreedService;
@@ -40,4 +41,15 @@ public class BreedEndpoint {
     LOG.debug("Request Params: {}", searchParams);
     return ResponseEntity.ok(service.search(searchParams));
   }
+
+  /**
+   * Gets the usage statistics of the in-memory breed cache.
+   *
+   * @return ResponseEntity with HTTP status 200, along with the number of cache hits and misses
+   */
+  @GetMapping("cache-stats")
+  public ResponseEntity<BreedCacheStatsDto> cacheStats() {
+    LOG.info("GET " + BASE_PATH + "/cache-stats");
+    return ResponseEntity.ok(service.cacheStats());
+  }
 }
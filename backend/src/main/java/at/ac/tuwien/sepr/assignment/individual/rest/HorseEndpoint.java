@@ -1,17 +1,29 @@
 package at.ac.tuwien.sepr.assignment.individual.rest;
 
+import at.ac.tuwien.sepr.assignment.individual.dto.HorseBatchResultDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.HorseDetailDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.HorseImportResultDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.HorseListDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.HorseSearchDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.PageCursor;
 import at.ac.tuwien.sepr.assignment.individual.exception.ConflictException;
 import at.ac.tuwien.sepr.assignment.individual.exception.NotFoundException;
 import at.ac.tuwien.sepr.assignment.individual.exception.ValidationException;
+import at.ac.tuwien.sepr.assignment.individual.service.HorseImportService;
 import at.ac.tuwien.sepr.assignment.individual.service.HorseService;
+import at.ac.tuwien.sepr.assignment.individual.type.ImportFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
 import java.lang.invoke.MethodHandles;
+import java.util.Arrays;
+import java.util.List;
 import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -19,9 +31,11 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * Class for handling REST requests for Horses
@@ -31,24 +45,84 @@ import org.springframework.web.server.ResponseStatusException;
 public class HorseEndpoint {
   private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
   static final String BASE_PATH = "/horses";
+  static final String NDJSON = "application/x-ndjson";
+  static final String CSV = "text/csv";
+  private static final int FLUSH_EVERY = 100;
 
   private final HorseService service;
+  private final HorseImportService importService;
+  private final ObjectMapper objectMapper;
 
-  public HorseEndpoint(HorseService service) {
+  public HorseEndpoint(HorseService service, HorseImportService importService, ObjectMapper objectMapper) {
     this.service = service;
+    this.importService = importService;
+    this.objectMapper = objectMapper;
   }
 
   /**
    * Searches for horses based on the provided search parameters.
+   * If a limit is given and the page is full, the cursor of the next page is returned in the
+   * {@value PageCursor#NEXT_CURSOR_HEADER} header. It catches the Validation exceptions and returns a 422 status code.
    *
    * @param searchParameters The search parameters
    * @return ResponseEntity with status 200, along with the horses found
+   * @throws ResponseStatusException 422 if the limit or cursor is invalid
    */
   @GetMapping
-  public ResponseEntity<Stream<HorseListDto>> searchHorses(HorseSearchDto searchParameters) {
+  public ResponseEntity<List<HorseListDto>> searchHorses(HorseSearchDto searchParameters) {
     LOG.info("GET " + BASE_PATH);
     LOG.debug("request parameters:\n{}", searchParameters);
-    return ResponseEntity.ok(service.search(searchParameters));
+    try {
+      var horses = service.search(searchParameters).toList();
+      var response = ResponseEntity.ok();
+      if (searchParameters.limit() != null && horses.size() == searchParameters.limit()) {
+        var last = horses.get(horses.size() - 1);
+        response.header(PageCursor.NEXT_CURSOR_HEADER, new PageCursor(last.name(), last.id()).encode());
+      }
+      return response.body(horses);
+    } catch (ValidationException e) {
+      LOG.warn("An error occurred while searching for horses");
+      throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Searches for horses like {@link #searchHorses(HorseSearchDto)}, but streams the result as newline-delimited JSON.
+   * The horses are written and flushed while they are read from the database,
+   * so arbitrarily large exports need no more memory than small ones.
+   * It catches the Validation exceptions and returns a 422 status code.
+   *
+   * @param searchParameters The search parameters
+   * @return ResponseEntity with status 200, along with the horses found, one JSON object per line
+   * @throws ResponseStatusException 422 if the limit or cursor is invalid
+   */
+  @GetMapping(produces = NDJSON)
+  public ResponseEntity<StreamingResponseBody> exportHorses(HorseSearchDto searchParameters) {
+    LOG.info("GET " + BASE_PATH + " as " + NDJSON);
+    LOG.debug("request parameters:\n{}", searchParameters);
+    Stream<HorseListDto> horses;
+    try {
+      horses = service.searchStream(searchParameters);
+    } catch (ValidationException e) {
+      LOG.warn("An error occurred while exporting horses");
+      throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, e.getMessage(), e);
+    }
+    StreamingResponseBody body = out -> {
+      var writer = objectMapper.writerFor(HorseListDto.class);
+      int written = 0;
+      try (horses) {
+        for (var iterator = horses.iterator(); iterator.hasNext(); ) {
+          out.write(writer.writeValueAsBytes(iterator.next()));
+          out.write('\n');
+          if (++written % FLUSH_EVERY == 0) {
+            out.flush();
+          }
+        }
+      }
+      out.flush();
+      LOG.debug("Exported {} horses", written);
+    };
+    return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
   }
 
   /**
@@ -112,6 +186,56 @@ public class HorseEndpoint {
     }
   }
 
+  /**
+   * Creates all valid horses of the given batch with a single insert.
+   * Invalid horses are reported by their position in the batch and do not prevent the others from being created.
+   *
+   * @param toCreate The horses to create
+   * @return ResponseEntity with status 200, along with the generated ID or the validation errors of each horse
+   * @throws ResponseStatusException 422 if no horses are given
+   */
+  @PostMapping("batch")
+  public ResponseEntity<List<HorseBatchResultDto>> createBatch(@RequestBody List<HorseDetailDto> toCreate) {
+    LOG.info("POST " + BASE_PATH + "/batch");
+    LOG.debug("Body of request: {} horses", toCreate == null ? null : toCreate.size());
+    try {
+      return ResponseEntity.ok(service.createBatch(toCreate));
+    } catch (ValidationException e) {
+      LOG.warn("An error occurred while creating a batch of horses");
+      throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Imports all valid horses of a CSV or NDJSON file, given as the raw request body.
+   * The file is read while it is uploaded and written in batches, so it may be arbitrarily large.
+   * Invalid rows are reported by their line and do not prevent the others from being imported.
+   *
+   * @param contentType The format of the file, either {@value CSV} or {@value NDJSON}
+   * @param body The contents of the file
+   * @return ResponseEntity with status 200, along with the number of horses imported and the first invalid rows
+   * @throws ResponseStatusException 422 if the file cannot be imported at all, 400 if it cannot be read
+   */
+  @PostMapping(path = "import", consumes = {CSV, NDJSON})
+  public ResponseEntity<HorseImportResultDto> importHorses(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                           InputStream body) {
+    LOG.info("POST " + BASE_PATH + "/import as {}", contentType);
+    var mediaType = MediaType.parseMediaType(contentType);
+    var format = Arrays.stream(ImportFormat.values())
+        .filter(f -> MediaType.parseMediaType(f.mediaType()).isCompatibleWith(mediaType))
+        .findFirst()
+        .orElseThrow();
+    try {
+      return ResponseEntity.ok(importService.importHorses(body, format));
+    } catch (ValidationException e) {
+      LOG.warn("An error occurred while importing horses");
+      throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, e.getMessage(), e);
+    } catch (IOException e) {
+      LOG.warn("An error occurred while reading the horses to import");
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Could not read import file", e);
+    }
+  }
+
   /**
    * Deletes a horse by id. It catches the ConflictException and returns a 409 status code.
    *
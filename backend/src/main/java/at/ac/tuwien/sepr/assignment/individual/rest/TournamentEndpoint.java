@@ -1,8 +1,14 @@
 package at.ac.tuwien.sepr.assignment.individual.rest;
 
+import at.ac.tuwien.sepr.assignment.individual.dto.MatchResultDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.PageCursor;
+import at.ac.tuwien.sepr.assignment.individual.dto.StandingsChangeDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.StandingsVersionDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.TournamentCreateDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.TournamentDetailDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.TournamentDetailParticipantDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.TournamentListDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.TournamentPredictionDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.TournamentSearchParamsDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.TournamentStandingsDto;
 import at.ac.tuwien.sepr.assignment.individual.exception.ConflictException;
@@ -19,11 +25,12 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.lang.invoke.MethodHandles;
-import java.util.stream.Stream;
+import java.util.List;
 
 /**
  * Class for handling REST requests for Tournaments.
@@ -42,15 +49,29 @@ public class TournamentEndpoint {
 
   /**
    * Searches for tournaments with the given search parameters.
+   * If a limit is given and the page is full, the cursor of the next page is returned in the
+   * {@value PageCursor#NEXT_CURSOR_HEADER} header. It catches validation exceptions.
    *
    * @param searchParameters The search parameters
    * @return ResponseEntity with status 200, along with the tournaments found
+   * @throws ResponseStatusException 422 if the limit or cursor is invalid
    */
   @GetMapping
-  public ResponseEntity<Stream<TournamentListDto>> searchTournaments(TournamentSearchParamsDto searchParameters) {
+  public ResponseEntity<List<TournamentListDto>> searchTournaments(TournamentSearchParamsDto searchParameters) {
     LOG.info("GET " + BASE_PATH);
     LOG.debug("request parameters: {}", searchParameters);
-    return ResponseEntity.ok(service.search(searchParameters));
+    try {
+      var tournaments = service.search(searchParameters).toList();
+      var response = ResponseEntity.ok();
+      if (searchParameters.limit() != null && tournaments.size() == searchParameters.limit()) {
+        var last = tournaments.get(tournaments.size() - 1);
+        response.header(PageCursor.NEXT_CURSOR_HEADER, new PageCursor(last.startDate().toString(), last.id()).encode());
+      }
+      return response.body(tournaments);
+    } catch (ValidationException e) {
+      LOG.warn("An error occurred while searching for tournaments");
+      throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, e.getMessage(), e);
+    }
   }
 
   /**
@@ -92,6 +113,67 @@ public class TournamentEndpoint {
     }
   }
 
+  /**
+   * Gets the versions of the standings for the tournament with the given ID. It catches NotFoundExceptions.
+   *
+   * @param tournamentId the id of the tournament
+   * @return ResponseEntity with status 200, along with the versions, oldest first
+   * @throws ResponseStatusException 404 if no tournament was found
+   */
+  @GetMapping("standings/{id}/versions")
+  public ResponseEntity<List<StandingsVersionDto>> getStandingsVersions(@PathVariable("id") Long tournamentId) {
+    LOG.info("GET " + BASE_PATH + "/standings/{}/versions", tournamentId);
+    try {
+      return ResponseEntity.ok(service.getStandingsVersions(tournamentId));
+    } catch (NotFoundException e) {
+      LOG.warn("An error occurred while getting the standings versions for the tournament with id {}", tournamentId);
+      throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Gets the standings for the tournament with the given ID as they were in the given version. It catches NotFoundExceptions.
+   *
+   * @param tournamentId the id of the tournament
+   * @param version the number of the version
+   * @return ResponseEntity with status 200, along with the standings of the version
+   * @throws ResponseStatusException 404 if no tournament or version was found
+   */
+  @GetMapping("standings/{id}/versions/{version}")
+  public ResponseEntity<TournamentStandingsDto> getStandingsVersion(@PathVariable("id") Long tournamentId,
+                                                                    @PathVariable("version") int version) {
+    LOG.info("GET " + BASE_PATH + "/standings/{}/versions/{}", tournamentId, version);
+    try {
+      return ResponseEntity.ok(service.getStandingsVersion(tournamentId, version));
+    } catch (NotFoundException e) {
+      LOG.warn("An error occurred while getting version {} of the standings for the tournament with id {}", version, tournamentId);
+      throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Gets the positions of the standings tree that differ between two versions. It catches NotFoundExceptions.
+   *
+   * @param tournamentId the id of the tournament
+   * @param fromVersion the number of the older version
+   * @param toVersion the number of the newer version
+   * @return ResponseEntity with status 200, along with the differing positions
+   * @throws ResponseStatusException 404 if no tournament or one of the versions was not found
+   */
+  @GetMapping("standings/{id}/changes")
+  public ResponseEntity<List<StandingsChangeDto>> getStandingsChanges(@PathVariable("id") Long tournamentId,
+                                                                      @RequestParam("from") int fromVersion,
+                                                                      @RequestParam("to") int toVersion) {
+    LOG.info("GET " + BASE_PATH + "/standings/{}/changes", tournamentId);
+    LOG.debug("request parameters: {}, {}", fromVersion, toVersion);
+    try {
+      return ResponseEntity.ok(service.getStandingsChanges(tournamentId, fromVersion, toVersion));
+    } catch (NotFoundException e) {
+      LOG.warn("An error occurred while comparing versions of the standings for the tournament with id {}", tournamentId);
+      throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage(), e);
+    }
+  }
+
   /**
    * Updates the standings for a given tournament. It catches validation exceptions and NotFoundExceptions.
    *
@@ -121,6 +203,74 @@ public class TournamentEndpoint {
     }
   }
 
+  /**
+   * Records the winner of a single match. It catches validation exceptions, NotFoundExceptions and ConflictExceptions.
+   *
+   * @param tournamentId the id of the tournament
+   * @param round the round of the match, starting at 1
+   * @param slot the position of the match within its round, starting at 1
+   * @param result the winner of the match
+   * @return ResponseEntity with status 200, along with the winner's participation after the update
+   * @throws ResponseStatusException 404 if the tournament was not found, 409 if the match cannot be decided (anymore)
+   *     and 422 if the match does not exist or the winner does not play in it
+   */
+  @PatchMapping("{id}/matches/{round}/{slot}")
+  public ResponseEntity<TournamentDetailParticipantDto> recordMatchResult(@PathVariable("id") Long tournamentId,
+                                                                          @PathVariable("round") int round,
+                                                                          @PathVariable("slot") int slot,
+                                                                          @RequestBody MatchResultDto result) {
+    LOG.info("PATCH " + BASE_PATH + "/{}/matches/{}/{}", tournamentId, round, slot);
+    LOG.debug("request parameters: {}", result);
+    try {
+      return ResponseEntity.ok(service.recordMatchResult(tournamentId, round, slot, result));
+    } catch (ValidationException | NotFoundException | ConflictException e) {
+      HttpStatus status;
+      if (e instanceof ValidationException) {
+        status = HttpStatus.UNPROCESSABLE_ENTITY;
+      } else if (e instanceof ConflictException) {
+        status = HttpStatus.CONFLICT;
+      } else {
+        status = HttpStatus.NOT_FOUND;
+      }
+      LOG.warn("An error occurred while recording match {} of round {} of the tournament with id {}", slot, round, tournamentId);
+      throw new ResponseStatusException(status, e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Predicts how far every participant of the tournament with the given ID gets, by simulating its undecided matches.
+   * It catches validation exceptions, NotFoundExceptions and ConflictExceptions.
+   *
+   * @param tournamentId the id of the tournament
+   * @param simulations the number of brackets to simulate
+   * @param seed the seed of the simulation, the same seed gives the same predictions
+   * @return ResponseEntity with status 200, along with the predictions for the participants
+   * @throws ResponseStatusException 404 if the tournament was not found, 409 if it has not been seeded yet
+   *     and 422 if the number of simulations is invalid or too large for the bracket size
+   */
+  @GetMapping("{id}/predictions")
+  public ResponseEntity<List<TournamentPredictionDto>> predict(@PathVariable("id") Long tournamentId,
+                                                               @RequestParam(name = "simulations", defaultValue = "50000")
+                                                               long simulations,
+                                                               @RequestParam(name = "seed", defaultValue = "0") long seed) {
+    LOG.info("GET " + BASE_PATH + "/{}/predictions", tournamentId);
+    LOG.debug("request parameters: {}, {}", simulations, seed);
+    try {
+      return ResponseEntity.ok(service.predict(tournamentId, simulations, seed));
+    } catch (ValidationException | NotFoundException | ConflictException e) {
+      HttpStatus status;
+      if (e instanceof ValidationException) {
+        status = HttpStatus.UNPROCESSABLE_ENTITY;
+      } else if (e instanceof ConflictException) {
+        status = HttpStatus.CONFLICT;
+      } else {
+        status = HttpStatus.NOT_FOUND;
+      }
+      LOG.warn("An error occurred while predicting the tournament with id {}", tournamentId);
+      throw new ResponseStatusException(status, e.getMessage(), e);
+    }
+  }
+
   /**
    * Generates the first round for the tournament with the given ID. It catches NotFoundExceptions.
    *
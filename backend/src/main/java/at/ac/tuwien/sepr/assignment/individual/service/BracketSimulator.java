@@ -0,0 +1,97 @@
+package at.ac.tuwien.sepr.assignment.individual.service;
+
+import at.ac.tuwien.sepr.assignment.individual.entity.Bracket;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Monte Carlo simulation of the rest of a knockout bracket.
+ * A horse beats another with a probability proportional to its strength.
+ * The simulations are split into chunks of a fixed size, each with its own random generator split off the seed
+ * in chunk order, so the counts do not depend on how the chunks are spread over the cores.
+ * Within a chunk, every simulation replays the bracket in one preallocated array.
+ * The chunks run in a pool of their own with half of the cores, so that simulations neither take over
+ * the common pool other parallel streams of the application rely on nor all cores the requests are served with.
+ */
+final class BracketSimulator {
+  private static final int SIMULATIONS_PER_CHUNK = 1 << 16;
+  private static final ForkJoinPool POOL = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+
+  private BracketSimulator() {
+  }
+
+  /**
+   * Get the number of threads simulations run in.
+   */
+  static int parallelism() {
+    return POOL.getParallelism();
+  }
+
+  /**
+   * Simulate the undecided matches of a bracket.
+   *
+   * @param bracket the bracket, with all horses entered; its decided matches stay as they are
+   * @param strengths the strength of every horse, by entry number minus one, all positive
+   * @param simulations the number of simulations to run
+   * @param seed the seed of the random generators
+   * @return how often every horse reached every round, at index {@code (entryNumber - 1) * (rounds + 1) + round - 1},
+   *     where the round after the final counts the wins
+   */
+  static long[] simulate(Bracket bracket, double[] strengths, long simulations, long seed) {
+    int size = bracket.size();
+    int[] start = new int[2 * size];
+    int[] roundOfNode = new int[2 * size];
+    for (int node = 1; node < 2 * size; node++) {
+      start[node] = bracket.entryAt(node);
+      roundOfNode[node] = bracket.roundOf(node);
+    }
+    int roundsPerHorse = bracket.roundOf(1);
+
+    int chunks = (int) ((simulations + SIMULATIONS_PER_CHUNK - 1) / SIMULATIONS_PER_CHUNK);
+    var root = new SplittableRandom(seed);
+    var randoms = new SplittableRandom[chunks];
+    for (int chunk = 0; chunk < chunks; chunk++) {
+      randoms[chunk] = root.split();
+    }
+    // a parallel stream started within a pool runs its tasks in that pool
+    long[] counts = POOL.submit(() -> IntStream.range(0, chunks).parallel()
+        .mapToObj(chunk -> simulateChunk(start, roundOfNode, roundsPerHorse, strengths,
+            Math.min(SIMULATIONS_PER_CHUNK, simulations - (long) chunk * SIMULATIONS_PER_CHUNK), randoms[chunk]))
+        .reduce(BracketSimulator::add)
+        .orElseGet(() -> new long[size * roundsPerHorse])).join();
+
+    // every horse is in the first round of every simulation
+    for (int entry = 1; entry <= size; entry++) {
+      counts[(entry - 1) * roundsPerHorse] = simulations;
+    }
+    return counts;
+  }
+
+  private static long[] simulateChunk(int[] start, int[] roundOfNode, int roundsPerHorse, double[] strengths,
+                                      long simulations, SplittableRandom random) {
+    int size = start.length / 2;
+    int[] nodes = new int[start.length];
+    long[] counts = new long[size * roundsPerHorse];
+    for (long simulation = 0; simulation < simulations; simulation++) {
+      System.arraycopy(start, 0, nodes, 0, start.length);
+      for (int node = size - 1; node >= 1; node--) {
+        if (nodes[node] == 0) {
+          int left = nodes[2 * node];
+          int right = nodes[2 * node + 1];
+          double leftStrength = strengths[left - 1];
+          nodes[node] = random.nextDouble() * (leftStrength + strengths[right - 1]) < leftStrength ? left : right;
+        }
+        counts[(nodes[node] - 1) * roundsPerHorse + roundOfNode[node] - 1]++;
+      }
+    }
+    return counts;
+  }
+
+  private static long[] add(long[] counts, long[] more) {
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] += more[i];
+    }
+    return counts;
+  }
+}
@@ -1,5 +1,6 @@
 package at.ac.tuwien.sepr.assignment.individual.service;
 
+import at.ac.tuwien.sepr.assignment.individual.dto.BreedCacheStatsDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.BreedDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.BreedSearchDto;
 
@@ -24,7 +25,22 @@ public interface BreedService {
    * The parameters may include a limit on the amount of results to return.
    *
    * @param searchParams parameters to search breeds by
-   * @return a stream of breeds matching the parameters
+   * @return a stream of breeds matching the parameters, sorted by name
    */
   Stream<BreedDto> search(BreedSearchDto searchParams);
+
+  /**
+   * Retrieve all stored breeds.
+   * This is not a lookup of particular breeds, so it is not counted in the {@link #cacheStats()}.
+   *
+   * @return a stream of all breeds, sorted by name
+   */
+  Stream<BreedDto> all();
+
+  /**
+   * Get how often breed lookups were answered from memory, and how often they had to go to the database.
+   *
+   * @return the usage statistics of the breed cache
+   */
+  BreedCacheStatsDto cacheStats();
 }
@@ -1,41 +1,148 @@
 package at.ac.tuwien.sepr.assignment.individual.service;
 
+import at.ac.tuwien.sepr.assignment.individual.dto.BreedCacheStatsDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.BreedDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.BreedSearchDto;
 import at.ac.tuwien.sepr.assignment.individual.mapper.BreedMapper;
 import at.ac.tuwien.sepr.assignment.individual.persistence.BreedDao;
+import at.ac.tuwien.sepr.assignment.individual.persistence.CaseFolding;
+import at.ac.tuwien.sepr.assignment.individual.persistence.DataReloadedEvent;
 import java.lang.invoke.MethodHandles;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
+/**
+ * Service for breeds, answering lookups from an in-memory copy of the breed table.
+ * Breeds are never changed through the application, so the copy is loaded once the application context is ready
+ * and only reloaded on a {@link DataReloadedEvent}.
+ * Searches by name are answered by walking a {@link BreedTrie} over all breed names.
+ * Lookups the copy cannot answer, e.g. before it is loaded, fall back to the database and are counted as misses.
+ */
 @Service
 public class BreedServiceImpl implements BreedService {
   private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
   private final BreedDao dao;
   private final BreedMapper mapper;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private volatile Snapshot snapshot;
 
   public BreedServiceImpl(BreedDao dao, BreedMapper mapper) {
     this.dao = dao;
     this.mapper = mapper;
   }
 
+  /**
+   * (Re-)load all breeds from the database.
+   */
+  @EventListener({ContextRefreshedEvent.class, DataReloadedEvent.class})
+  public void reload() {
+    LOG.trace("reload()");
+    var breeds = dao.findAll().stream().map(mapper::entityToDto).toList();
+    snapshot = new Snapshot(
+        breeds.stream().collect(Collectors.toUnmodifiableMap(BreedDto::id, Function.identity())),
+        breeds,
+        new BreedTrie(breeds.stream().map(breed -> CaseFolding.upper(breed.name())).toList()));
+    LOG.info("Loaded {} breeds into the breed cache", breeds.size());
+  }
 
   @Override
   public Stream<BreedDto> findBreedsByIds(Set<Long> breedIds) {
     LOG.trace("findBreedsByIds({})", breedIds);
-    return dao.findBreedsById(breedIds)
-        .stream()
-        .map(mapper::entityToDto);
+    var current = snapshot;
+    if (current == null) {
+      misses.increment();
+      return findInDatabase(breedIds);
+    }
+    // horses without a breed look up the null ID, which the database never matches either
+    var ids = breedIds.stream().filter(Objects::nonNull).collect(Collectors.toSet());
+    var found = ids.stream()
+        .map(current.byId()::get)
+        .filter(Objects::nonNull)
+        .toList();
+    if (found.size() == ids.size()) {
+      hits.increment();
+      return found.stream();
+    }
+    // an unknown ID is most likely invalid input, but the breed could also have been added behind our back
+    misses.increment();
+    Set<Long> missing = new HashSet<>(ids);
+    found.forEach(breed -> missing.remove(breed.id()));
+    return Stream.concat(found.stream(), findInDatabase(missing));
   }
 
   @Override
   public Stream<BreedDto> search(BreedSearchDto searchParams) {
     LOG.trace("search({})", searchParams);
-    return dao.search(searchParams)
+    var current = snapshot;
+    if (current == null || !canAnswer(searchParams)) {
+      misses.increment();
+      return dao.search(searchParams)
+          .stream()
+          .map(mapper::entityToDto);
+    }
+    hits.increment();
+    if (searchParams.name() == null) {
+      // the database does not match anything then either, as concatenating with NULL gives NULL
+      return Stream.empty();
+    }
+    return Arrays.stream(current.names().matches(CaseFolding.upper(searchParams.name()), searchParams.limit()))
+        .mapToObj(current.all()::get);
+  }
+
+  @Override
+  public Stream<BreedDto> all() {
+    LOG.trace("all()");
+    var current = snapshot;
+    if (current == null) {
+      return dao.findAll().stream().map(mapper::entityToDto);
+    }
+    return current.all().stream();
+  }
+
+  @Override
+  public BreedCacheStatsDto cacheStats() {
+    LOG.trace("cacheStats()");
+    var current = snapshot;
+    return new BreedCacheStatsDto(current == null ? 0 : current.all().size(), hits.sum(), misses.sum());
+  }
+
+  private Stream<BreedDto> findInDatabase(Set<Long> breedIds) {
+    return dao.findBreedsById(breedIds)
         .stream()
         .map(mapper::entityToDto);
   }
+
+  /**
+   * Check whether the cache matches exactly the breeds that {@code UPPER(name) LIKE UPPER('%'||:name||'%')} would,
+   * which is not the case if the name contains characters that {@code LIKE} interprets as wildcards or escapes.
+   */
+  private static boolean canAnswer(BreedSearchDto searchParams) {
+    var name = searchParams.name();
+    return (name == null || name.indexOf('%') < 0 && name.indexOf('_') < 0 && name.indexOf('\\') < 0)
+        && (searchParams.limit() == null || searchParams.limit() >= 0);
+  }
+
+  /**
+   * Immutable copy of the breed table.
+   *
+   * @param byId all breeds by their ID
+   * @param all all breeds, sorted by name and ID
+   * @param names the case-folded names of {@code all}, for searching them
+   */
+  private record Snapshot(Map<Long, BreedDto> byId, List<BreedDto> all, BreedTrie names) {
+  }
 }
@@ -0,0 +1,80 @@
+package at.ac.tuwien.sepr.assignment.individual.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable trie over every suffix of a list of case-folded names.
+ * A name contains a string if and only if one of its suffixes starts with it,
+ * so following the string from the root answers a substring search with a single walk,
+ * whatever part of the name the string matches.
+ * Each node lists the positions of all names below it in ascending order,
+ * so the first {@code n} matches in list order are just the first {@code n} entries of that list.
+ */
+final class BreedTrie {
+  private final Node root;
+
+  /**
+   * Build the trie.
+   *
+   * @param normalizedNames the case-folded names, in the order matches are to be returned in
+   */
+  BreedTrie(List<String> normalizedNames) {
+    var builder = new NodeBuilder();
+    for (int i = 0; i < normalizedNames.size(); i++) {
+      var name = normalizedNames.get(i);
+      builder.add(i);
+      for (int start = 0; start < name.length(); start++) {
+        var node = builder;
+        for (int j = start; j < name.length(); j++) {
+          node = node.children.computeIfAbsent(name.charAt(j), c -> new NodeBuilder());
+          node.add(i);
+        }
+      }
+    }
+    this.root = builder.build();
+  }
+
+  /**
+   * Get the positions of all names containing the given string.
+   *
+   * @param normalizedNeedle the case-folded string to search for
+   * @param limit the maximum number of positions to return, or {@code null} for all
+   * @return the positions of the first matching names, in ascending order
+   */
+  int[] matches(String normalizedNeedle, Integer limit) {
+    var node = root;
+    for (int i = 0; i < normalizedNeedle.length() && node != null; i++) {
+      node = node.children.get(normalizedNeedle.charAt(i));
+    }
+    if (node == null) {
+      return new int[0];
+    }
+    int count = limit == null ? node.names.length : Math.min(limit, node.names.length);
+    return count == node.names.length ? node.names.clone() : Arrays.copyOf(node.names, count);
+  }
+
+  private record Node(Map<Character, Node> children, int[] names) {
+  }
+
+  private static final class NodeBuilder {
+    private final Map<Character, NodeBuilder> children = new HashMap<>();
+    private final List<Integer> names = new ArrayList<>();
+
+    private void add(int name) {
+      // names are added in ascending order, but a name can reach a node through several of its suffixes
+      if (names.isEmpty() || names.get(names.size() - 1) != name) {
+        names.add(name);
+      }
+    }
+
+    private Node build() {
+      Map<Character, Node> built = new HashMap<>(children.size() * 2);
+      children.forEach((c, child) -> built.put(c, child.build()));
+      return new Node(Map.copyOf(built), names.stream().mapToInt(Integer::intValue).toArray());
+    }
+  }
+}
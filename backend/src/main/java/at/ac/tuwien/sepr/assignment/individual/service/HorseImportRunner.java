@@ -0,0 +1,47 @@
+package at.ac.tuwien.sepr.assignment.individual.service;
+
+import at.ac.tuwien.sepr.assignment.individual.exception.ValidationException;
+import at.ac.tuwien.sepr.assignment.individual.type.ImportFormat;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Imports horses from local files on startup.
+ * Each file is given by an {@code --import-horses=<path>} command line option;
+ * its format is determined by its extension, see {@link ImportFormat#fromFileName(String)}.
+ */
+@Component
+public class HorseImportRunner implements ApplicationRunner {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  static final String OPTION = "import-horses";
+
+  private final HorseImportService importService;
+
+  public HorseImportRunner(HorseImportService importService) {
+    this.importService = importService;
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    if (!args.containsOption(OPTION)) {
+      return;
+    }
+    for (var file : args.getOptionValues(OPTION)) {
+      LOG.info("Importing horses from {}", file);
+      try (var in = Files.newInputStream(Path.of(file))) {
+        var result = importService.importHorses(in, ImportFormat.fromFileName(file));
+        LOG.info("Imported {} of {} horses from {}", result.imported(), result.rows(), file);
+        result.errors().forEach(error -> LOG.warn("Line {} of {} not imported: {}", error.line(), file, error.errors()));
+      } catch (ValidationException | IOException | IllegalArgumentException e) {
+        LOG.error("Importing horses from {} failed", file, e);
+      }
+    }
+  }
+}
@@ -0,0 +1,26 @@
+package at.ac.tuwien.sepr.assignment.individual.service;
+
+import at.ac.tuwien.sepr.assignment.individual.dto.HorseImportResultDto;
+import at.ac.tuwien.sepr.assignment.individual.exception.ValidationException;
+import at.ac.tuwien.sepr.assignment.individual.type.ImportFormat;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Service for importing horses from files.
+ */
+public interface HorseImportService {
+
+  /**
+   * Import all valid horses of the given file.
+   * The file is read line by line and written in batches of bounded size, so it may be arbitrarily large.
+   * Each batch is committed on its own; invalid rows are reported, but do not prevent the valid ones from being imported.
+   *
+   * @param in the contents of the file, encoded in UTF-8
+   * @param format the format of the file
+   * @return the number of rows imported, along with the first invalid rows
+   * @throws ValidationException if the file cannot be imported at all, e.g. because the CSV header lacks a column
+   * @throws IOException if reading the file fails
+   */
+  HorseImportResultDto importHorses(InputStream in, ImportFormat format) throws ValidationException, IOException;
+}
@@ -0,0 +1,289 @@
+package at.ac.tuwien.sepr.assignment.individual.service;
+
+import at.ac.tuwien.sepr.assignment.individual.dto.BreedDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.HorseDetailDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.HorseImportErrorDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.HorseImportResultDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.HorseImportRowDto;
+import at.ac.tuwien.sepr.assignment.individual.exception.ValidationException;
+import at.ac.tuwien.sepr.assignment.individual.persistence.CaseFolding;
+import at.ac.tuwien.sepr.assignment.individual.persistence.HorseDao;
+import at.ac.tuwien.sepr.assignment.individual.type.ImportFormat;
+import at.ac.tuwien.sepr.assignment.individual.type.Sex;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.invoke.MethodHandles;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Service
+public class HorseImportServiceImpl implements HorseImportService {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  static final int BATCH_SIZE = 1000;
+  static final int MAX_REPORTED_ERRORS = 100;
+  private static final List<String> CSV_REQUIRED_COLUMNS = List.of("name", "sex", "dateofbirth", "height", "weight");
+  private static final String CSV_BREED_COLUMN = "breed";
+
+  private final HorseDao dao;
+  private final HorseValidator validator;
+  private final BreedService breedService;
+  private final TransactionTemplate transactionTemplate;
+  private final ObjectReader rowReader;
+
+  public HorseImportServiceImpl(HorseDao dao, HorseValidator validator, BreedService breedService,
+                                TransactionTemplate transactionTemplate, ObjectMapper objectMapper) {
+    this.dao = dao;
+    this.validator = validator;
+    this.breedService = breedService;
+    this.transactionTemplate = transactionTemplate;
+    this.rowReader = objectMapper.readerFor(HorseImportRowDto.class);
+  }
+
+  @Override
+  public HorseImportResultDto importHorses(InputStream in, ImportFormat format) throws ValidationException, IOException {
+    LOG.trace("importHorses({})", format);
+    var reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    long lineNumber = 0;
+    Function<String, HorseImportRowDto> parser;
+    if (format == ImportFormat.CSV) {
+      parser = csvParser(reader.readLine());
+      lineNumber++;
+    } else {
+      parser = this::parseNdjson;
+    }
+
+    var progress = new ImportProgress(breedsPerName());
+    long started = System.nanoTime();
+    List<Row> batch = new ArrayList<>(BATCH_SIZE);
+    String line;
+    while ((line = reader.readLine()) != null) {
+      lineNumber++;
+      if (line.isBlank()) {
+        continue;
+      }
+      try {
+        batch.add(new Row(lineNumber, parser.apply(line), null));
+      } catch (IllegalArgumentException e) {
+        batch.add(new Row(lineNumber, null, List.of(e.getMessage())));
+      }
+      // the next line is only read once the batch is written, so memory use does not grow with the file
+      if (batch.size() == BATCH_SIZE) {
+        progress.write(batch);
+        batch.clear();
+        LOG.info("Imported {} of {} horses read so far", progress.imported, progress.rows);
+      }
+    }
+    if (!batch.isEmpty()) {
+      progress.write(batch);
+    }
+    LOG.info("Imported {} of {} horses in {} ms", progress.imported, progress.rows, (System.nanoTime() - started) / 1_000_000);
+    return new HorseImportResultDto(progress.rows, progress.imported, progress.failed, List.copyOf(progress.errors));
+  }
+
+  /**
+   * Breeds are few, so they are all resolved once per import instead of once per row.
+   */
+  private Map<String, BreedDto> breedsPerName() {
+    return breedService.all()
+        .collect(Collectors.toUnmodifiableMap(breed -> CaseFolding.upper(breed.name()), Function.identity(),
+            (first, second) -> first));
+  }
+
+  private HorseImportRowDto parseNdjson(String line) {
+    HorseImportRowDto row;
+    try {
+      row = rowReader.readValue(line);
+    } catch (JsonProcessingException e) {
+      throw new IllegalArgumentException("Malformed JSON");
+    }
+    // a line of just null is valid JSON, but no horse
+    if (row == null) {
+      throw new IllegalArgumentException("Malformed JSON");
+    }
+    return row;
+  }
+
+  private Function<String, HorseImportRowDto> csvParser(String header) throws ValidationException {
+    if (header == null) {
+      throw new ValidationException("Import of horses failed", List.of("No CSV header given"));
+    }
+    Map<String, Integer> columns = new HashMap<>();
+    var names = splitCsvLine(header.replace("\uFEFF", ""));
+    for (int i = 0; i < names.size(); i++) {
+      columns.putIfAbsent(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+    }
+    var missing = CSV_REQUIRED_COLUMNS.stream()
+        .filter(column -> !columns.containsKey(column))
+        .map(column -> "Missing CSV column " + column)
+        .toList();
+    if (!missing.isEmpty()) {
+      throw new ValidationException("Import of horses failed", missing);
+    }
+    int name = columns.get("name");
+    int sex = columns.get("sex");
+    int dateOfBirth = columns.get("dateofbirth");
+    int height = columns.get("height");
+    int weight = columns.get("weight");
+    int breed = columns.getOrDefault(CSV_BREED_COLUMN, -1);
+    int width = names.size();
+
+    return line -> {
+      var cells = splitCsvLine(line);
+      if (cells.size() != width) {
+        throw new IllegalArgumentException("Expected " + width + " values, but got " + cells.size());
+      }
+      try {
+        return new HorseImportRowDto(
+            cell(cells, name),
+            cell(cells, sex) == null ? null : Sex.valueOf(cell(cells, sex).toUpperCase(Locale.ROOT)),
+            cell(cells, dateOfBirth) == null ? null : LocalDate.parse(cell(cells, dateOfBirth)),
+            cell(cells, height) == null ? null : Float.valueOf(cell(cells, height)),
+            cell(cells, weight) == null ? null : Float.valueOf(cell(cells, weight)),
+            breed < 0 ? null : cell(cells, breed));
+      } catch (DateTimeParseException e) {
+        throw new IllegalArgumentException("Malformed date of birth");
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("Malformed height or weight");
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException("Malformed sex");
+      }
+    };
+  }
+
+  private static String cell(List<String> cells, int column) {
+    var value = cells.get(column).trim();
+    return value.isEmpty() ? null : value;
+  }
+
+  /**
+   * Split a line of CSV into its values.
+   * Values may be enclosed in double quotes, with double quotes inside written twice;
+   * values spanning several lines are not supported.
+   */
+  static List<String> splitCsvLine(String line) {
+    List<String> values = new ArrayList<>();
+    var value = new StringBuilder();
+    boolean quoted = false;
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+      if (quoted) {
+        if (c != '"') {
+          value.append(c);
+        } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+          value.append('"');
+          i++;
+        } else {
+          quoted = false;
+        }
+      } else if (c == '"') {
+        quoted = true;
+      } else if (c == ',') {
+        values.add(value.toString());
+        value.setLength(0);
+      } else {
+        value.append(c);
+      }
+    }
+    if (quoted) {
+      throw new IllegalArgumentException("Unterminated quoted value");
+    }
+    values.add(value.toString());
+    return values;
+  }
+
+  /**
+   * A row read from the file: either the horse it describes or why it could not be read.
+   */
+  private record Row(long line, HorseImportRowDto horse, List<String> errors) {
+  }
+
+  /**
+   * Progress of a single import.
+   */
+  private final class ImportProgress {
+    private final Map<String, BreedDto> breedsPerName;
+    private final Set<Long> existingBreedIds;
+    private final List<HorseImportErrorDto> errors = new ArrayList<>();
+    private long rows;
+    private long imported;
+    private long failed;
+
+    ImportProgress(Map<String, BreedDto> breedsPerName) {
+      this.breedsPerName = breedsPerName;
+      this.existingBreedIds = breedsPerName.values().stream().map(BreedDto::id).collect(Collectors.toUnmodifiableSet());
+    }
+
+    /**
+     * Validate the rows of a batch and create the valid horses in a transaction of their own.
+     */
+    void write(List<Row> batch) {
+      List<List<String>> rowErrors = new ArrayList<>(batch.size());
+      List<HorseDetailDto> horses = new ArrayList<>(batch.size());
+      // the index in the batch of the row every horse was read from
+      List<Integer> rowOfHorse = new ArrayList<>(batch.size());
+      for (var row : batch) {
+        rowErrors.add(row.errors());
+        var horse = row.horse();
+        if (horse == null) {
+          continue;
+        }
+        BreedDto breed = null;
+        if (horse.breed() != null && !horse.breed().isBlank()) {
+          breed = breedsPerName.get(CaseFolding.upper(horse.breed().trim()));
+          if (breed == null) {
+            rowErrors.set(rowErrors.size() - 1, List.of("Breed does not exist"));
+            continue;
+          }
+        }
+        horses.add(new HorseDetailDto(null, horse.name(), horse.sex(), horse.dateOfBirth(),
+            horse.height() == null ? 0 : horse.height(), horse.weight() == null ? 0 : horse.weight(), breed, null));
+        rowOfHorse.add(rowErrors.size() - 1);
+      }
+
+      var validationErrors = validator.validateForCreateBatch(horses, existingBreedIds);
+      List<HorseDetailDto> valid = new ArrayList<>(horses.size());
+      for (int i = 0; i < horses.size(); i++) {
+        if (validationErrors.get(i).isEmpty()) {
+          valid.add(horses.get(i));
+        } else {
+          rowErrors.set(rowOfHorse.get(i), validationErrors.get(i));
+        }
+      }
+      for (int i = 0; i < batch.size(); i++) {
+        if (rowErrors.get(i) != null) {
+          fail(batch.get(i).line(), rowErrors.get(i));
+        }
+      }
+      if (!valid.isEmpty()) {
+        transactionTemplate.executeWithoutResult(status -> dao.createAll(valid));
+      }
+      rows += batch.size();
+      imported += valid.size();
+    }
+
+    private void fail(long line, List<String> rowErrors) {
+      failed++;
+      if (errors.size() < MAX_REPORTED_ERRORS) {
+        errors.add(new HorseImportErrorDto(line, rowErrors));
+      }
+    }
+  }
+}
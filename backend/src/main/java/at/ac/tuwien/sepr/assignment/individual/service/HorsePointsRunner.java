@@ -0,0 +1,37 @@
+package at.ac.tuwien.sepr.assignment.individual.service;
+
+import java.lang.invoke.MethodHandles;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Maintains the ranking points read model on startup, if asked to on the command line.
+ * {@code --check-horse-points} compares it against a full recompute and logs every difference;
+ * {@code --rebuild-horse-points} recomputes it from scratch. Given both, the check runs first.
+ */
+@Component
+public class HorsePointsRunner implements ApplicationRunner {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  static final String CHECK_OPTION = "check-horse-points";
+  static final String REBUILD_OPTION = "rebuild-horse-points";
+
+  private final HorsePointsService service;
+
+  public HorsePointsRunner(HorsePointsService service) {
+    this.service = service;
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    if (args.containsOption(CHECK_OPTION)) {
+      service.check().forEach(d -> LOG.warn("Horse {} has {} points for {} instead of {}",
+          d.horseId(), d.stored(), d.endDate(), d.expected()));
+    }
+    if (args.containsOption(REBUILD_OPTION)) {
+      LOG.info("Rebuilt {} rows of horse points", service.rebuild());
+    }
+  }
+}
@@ -0,0 +1,24 @@
+package at.ac.tuwien.sepr.assignment.individual.service;
+
+import at.ac.tuwien.sepr.assignment.individual.dto.HorsePointsDiscrepancyDto;
+import java.util.List;
+
+/**
+ * Service for maintaining the ranking points read model of the horses.
+ */
+public interface HorsePointsService {
+
+  /**
+   * Recompute the ranking points of all horses from their tournament results.
+   *
+   * @return the number of rows stored
+   */
+  int rebuild();
+
+  /**
+   * Compare the stored ranking points with a full recompute from the tournament results.
+   *
+   * @return the differences found, empty if the stored points are consistent
+   */
+  List<HorsePointsDiscrepancyDto> check();
+}
@@ -0,0 +1,37 @@
+package at.ac.tuwien.sepr.assignment.individual.service;
+
+import at.ac.tuwien.sepr.assignment.individual.dto.HorsePointsDiscrepancyDto;
+import at.ac.tuwien.sepr.assignment.individual.persistence.HorsePointsDao;
+import java.lang.invoke.MethodHandles;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+@Service
+public class HorsePointsServiceImpl implements HorsePointsService {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  private final HorsePointsDao dao;
+
+  public HorsePointsServiceImpl(HorsePointsDao dao) {
+    this.dao = dao;
+  }
+
+  @Override
+  public int rebuild() {
+    LOG.trace("rebuild()");
+    return dao.rebuild();
+  }
+
+  @Override
+  public List<HorsePointsDiscrepancyDto> check() {
+    LOG.trace("check()");
+    var discrepancies = dao.check();
+    if (discrepancies.isEmpty()) {
+      LOG.info("Horse points are consistent with the tournament results");
+    } else {
+      LOG.warn("Horse points differ from the tournament results in {} places", discrepancies.size());
+    }
+    return discrepancies;
+  }
+}
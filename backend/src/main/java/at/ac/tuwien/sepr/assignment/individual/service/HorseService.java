@@ -1,11 +1,13 @@
 package at.ac.tuwien.sepr.assignment.individual.service;
 
+import at.ac.tuwien.sepr.assignment.individual.dto.HorseBatchResultDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.HorseDetailDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.HorseListDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.HorseSearchDto;
 import at.ac.tuwien.sepr.assignment.individual.exception.ConflictException;
 import at.ac.tuwien.sepr.assignment.individual.exception.NotFoundException;
 import at.ac.tuwien.sepr.assignment.individual.exception.ValidationException;
+import java.util.List;
 import java.util.stream.Stream;
 
 /**
@@ -15,11 +17,25 @@ public interface HorseService {
   /**
    * Search for horses in the persistent data store matching all provided fields.
    * The name is considered a match, if the search string is a substring.
+   * The horses are sorted by name and ID; the page after a previous one is selected by its cursor.
    *
    * @param searchParameters the search parameters to use in filtering.
    * @return a stream of the horses where the given fields match.
+   * @throws ValidationException if the limit or cursor given is invalid
    */
-  Stream<HorseListDto> search(HorseSearchDto searchParameters);
+  Stream<HorseListDto> search(HorseSearchDto searchParameters) throws ValidationException;
+
+  /**
+   * Search for horses like {@link #search(HorseSearchDto)}, without loading all of them at once.
+   * The horses are read from the persistent data store while the stream is consumed,
+   * so memory usage does not depend on the number of results.
+   * The stream must be closed after use.
+   *
+   * @param searchParameters the search parameters to use in filtering.
+   * @return a stream of the horses where the given fields match.
+   * @throws ValidationException if the limit or cursor given is invalid
+   */
+  Stream<HorseListDto> searchStream(HorseSearchDto searchParameters) throws ValidationException;
 
   /**
    * Updates the horse with the ID given in {@code horse}
@@ -51,6 +67,16 @@ public interface HorseService {
    */
   HorseDetailDto create(HorseDetailDto horse) throws ValidationException;
 
+  /**
+   * Create all valid horses of the given batch at once.
+   * Invalid horses are reported, but do not prevent the valid ones from being created.
+   *
+   * @param horses the horses to create
+   * @return for each horse, in the same order, either its generated ID or its validation errors
+   * @throws ValidationException if no batch is given
+   */
+  List<HorseBatchResultDto> createBatch(List<HorseDetailDto> horses) throws ValidationException;
+
   /**
    * Delete the horse with the given ID.
    *
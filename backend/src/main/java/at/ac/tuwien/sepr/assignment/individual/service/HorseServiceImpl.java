@@ -1,6 +1,7 @@
 package at.ac.tuwien.sepr.assignment.individual.service;
 
 import at.ac.tuwien.sepr.assignment.individual.dto.BreedDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.HorseBatchResultDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.HorseDetailDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.HorseListDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.HorseSearchDto;
@@ -11,7 +12,10 @@ import at.ac.tuwien.sepr.assignment.individual.exception.ValidationException;
 import at.ac.tuwien.sepr.assignment.individual.mapper.HorseMapper;
 import at.ac.tuwien.sepr.assignment.individual.persistence.HorseDao;
 import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
@@ -21,6 +25,7 @@ import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class HorseServiceImpl implements HorseService {
@@ -38,8 +43,9 @@ public class HorseServiceImpl implements HorseService {
   }
 
   @Override
-  public Stream<HorseListDto> search(HorseSearchDto searchParameters) {
+  public Stream<HorseListDto> search(HorseSearchDto searchParameters) throws ValidationException {
     LOG.trace("search({})", searchParameters);
+    validator.validateForSearch(searchParameters);
     var horses = dao.search(searchParameters);
 
     var breeds = horses.stream()
@@ -52,8 +58,24 @@ public class HorseServiceImpl implements HorseService {
     return horses.stream().map(horse -> mapper.entityToListDto(horse, breedsPerId));
   }
 
+  @Override
+  public Stream<HorseListDto> searchStream(HorseSearchDto searchParameters) throws ValidationException {
+    LOG.trace("searchStream({})", searchParameters);
+    validator.validateForSearch(searchParameters);
+    // breeds are few, so remembering those already seen keeps the lookups to one per breed for the whole stream
+    Map<Long, BreedDto> breedsPerId = new HashMap<>();
+    return dao.searchStream(searchParameters).map(horse -> {
+      var breedId = horse.getBreedId();
+      if (breedId != null && !breedsPerId.containsKey(breedId)) {
+        breedsPerId.putAll(breedMapForHorses(Set.of(breedId)));
+      }
+      return mapper.entityToListDto(horse, breedsPerId);
+    });
+  }
+
 
   @Override
+  @Transactional(rollbackFor = {ValidationException.class, ConflictException.class})
   public HorseDetailDto update(HorseDetailDto horse) throws ValidationException, ConflictException {
     LOG.trace("update({})", horse);
     validator.validateForUpdate(horse);
@@ -83,6 +105,7 @@ public class HorseServiceImpl implements HorseService {
   }
 
   @Override
+  @Transactional(rollbackFor = ValidationException.class)
   public HorseDetailDto create(HorseDetailDto horse) throws ValidationException {
     LOG.trace("create({})", horse);
     validator.validateForCreate(horse);
@@ -92,6 +115,39 @@ public class HorseServiceImpl implements HorseService {
   }
 
   @Override
+  @Transactional(rollbackFor = ValidationException.class)
+  public List<HorseBatchResultDto> createBatch(List<HorseDetailDto> horses) throws ValidationException {
+    LOG.trace("createBatch({})", horses == null ? null : horses.size() + " horses");
+    if (horses == null || horses.isEmpty()) {
+      throw new ValidationException("Validation of horse batch failed", List.of("No horses given"));
+    }
+    var breedIds = horses.stream()
+        .filter(horse -> horse != null && horse.breed() != null)
+        .map(horse -> horse.breed().id())
+        .collect(Collectors.toSet());
+    var existingBreedIds = breedMapForHorses(breedIds).keySet();
+    var errors = validator.validateForCreateBatch(horses, existingBreedIds);
+
+    List<HorseDetailDto> valid = new ArrayList<>();
+    for (int i = 0; i < horses.size(); i++) {
+      if (errors.get(i).isEmpty()) {
+        valid.add(horses.get(i));
+      }
+    }
+    var created = dao.createAll(valid).iterator();
+
+    List<HorseBatchResultDto> results = new ArrayList<>(horses.size());
+    for (int i = 0; i < horses.size(); i++) {
+      results.add(errors.get(i).isEmpty()
+          ? new HorseBatchResultDto(i, created.next().getId(), null)
+          : new HorseBatchResultDto(i, null, errors.get(i)));
+    }
+    LOG.info("Created {} of {} horses in batch", valid.size(), horses.size());
+    return results;
+  }
+
+  @Override
+  @Transactional(rollbackFor = ConflictException.class)
   public void delete(long id) throws ConflictException {
     LOG.trace("delete({})", id);
     dao.delete(id);
@@ -1,11 +1,14 @@
 package at.ac.tuwien.sepr.assignment.individual.service;
 
 import at.ac.tuwien.sepr.assignment.individual.dto.HorseDetailDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.HorseSearchDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.PageCursor;
 import at.ac.tuwien.sepr.assignment.individual.exception.ValidationException;
 import java.lang.invoke.MethodHandles;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -62,4 +65,48 @@ public class HorseValidator {
       throw new ValidationException("Validation of horse for create failed", validationErrors);
     }
   }
+
+  /**
+   * Validate all horses of a batch for creation in one pass, without stopping at the first invalid one.
+   *
+   * @param horses the horses to validate
+   * @param existingBreedIds the IDs of those breeds referenced by {@code horses} that exist
+   * @return the validation errors of each horse, in the same order as {@code horses}; empty for valid horses
+   */
+  public List<List<String>> validateForCreateBatch(List<HorseDetailDto> horses, Set<Long> existingBreedIds) {
+    LOG.trace("validateForCreateBatch({} horses)", horses.size());
+    List<List<String>> validationErrors = new ArrayList<>(horses.size());
+    for (HorseDetailDto horse : horses) {
+      List<String> errors = new ArrayList<>();
+      if (horse == null) {
+        errors.add("No horse given");
+      } else {
+        validateHelper(horse, errors);
+        if (horse.breed() != null && !existingBreedIds.contains(horse.breed().id())) {
+          errors.add("Breed does not exist");
+        }
+      }
+      validationErrors.add(errors);
+    }
+    return validationErrors;
+  }
+
+  public void validateForSearch(HorseSearchDto searchParameters) throws ValidationException {
+    LOG.trace("validateForSearch({})", searchParameters);
+    List<String> validationErrors = new ArrayList<>();
+
+    if (searchParameters.limit() != null && searchParameters.limit() <= 0) {
+      validationErrors.add("Limit must be positive");
+    }
+    try {
+      PageCursor.decode(searchParameters.cursor());
+    } catch (IllegalArgumentException e) {
+      validationErrors.add("Invalid cursor given");
+    }
+
+    if (!validationErrors.isEmpty()) {
+      LOG.warn("Invalid horse search: {}", validationErrors);
+      throw new ValidationException("Validation of horse search failed", validationErrors);
+    }
+  }
 }
@@ -0,0 +1,60 @@
+package at.ac.tuwien.sepr.assignment.individual.service;
+
+import java.util.Arrays;
+
+/**
+ * Seeds a knockout bracket from the ranking points of its entrants.
+ * The entrants are ranked with a single sort of packed keys, the negated points in the upper half
+ * and the position in the tie-break order in the lower half, so no comparator is needed.
+ * The ranked entrants are then placed in standard bracket order, in which the two best seeds
+ * can only meet in the final, the four best only from the semifinals on, and so on.
+ */
+final class SeedingEngine {
+
+  private SeedingEngine() {
+  }
+
+  /**
+   * Seed a bracket.
+   *
+   * @param points the ranking points of the entrants, in the order ties are to be broken in;
+   *     their number is the bracket size and has to be a power of two or 0
+   * @return the index of the entrant for every entry number minus one
+   */
+  static int[] seed(int[] points) {
+    int size = points.length;
+    if (size != 0 && Integer.bitCount(size) != 1) {
+      throw new IllegalArgumentException("Bracket size must be a power of two, but is " + size);
+    }
+    long[] keys = new long[size];
+    for (int i = 0; i < size; i++) {
+      keys[i] = -(long) points[i] << 32 | i;
+    }
+    Arrays.sort(keys);
+
+    int[] seeds = bracketOrder(size);
+    int[] entrants = new int[size];
+    for (int entry = 0; entry < size; entry++) {
+      entrants[entry] = (int) keys[seeds[entry]];
+    }
+    return entrants;
+  }
+
+  /**
+   * Get the standard order of the seeds in a bracket, for 8 entries 1, 8, 4, 5, 2, 7, 3, 6.
+   *
+   * @param size the bracket size, a power of two or 0
+   * @return the seed, starting at 0, for every entry number minus one
+   */
+  static int[] bracketOrder(int size) {
+    int[] seeds = new int[size];
+    for (int half = 1; half < size; half <<= 1) {
+      // doubling the bracket puts every seed s against seed 2 * half - 1 - s, which completes the sum of its match
+      for (int i = half - 1; i >= 0; i--) {
+        seeds[2 * i + 1] = 2 * half - 1 - seeds[i];
+        seeds[2 * i] = seeds[i];
+      }
+    }
+    return seeds;
+  }
+}
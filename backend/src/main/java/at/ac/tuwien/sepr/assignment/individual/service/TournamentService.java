@@ -1,13 +1,15 @@
 package at.ac.tuwien.sepr.assignment.individual.service;
 
+import at.ac.tuwien.sepr.assignment.individual.dto.MatchResultDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.StandingsChangeDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.StandingsVersionDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.TournamentCreateDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.TournamentDetailDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.TournamentDetailParticipantDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.TournamentListDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.TournamentPredictionDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.TournamentSearchParamsDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.TournamentStandingsDto;
-import at.ac.tuwien.sepr.assignment.individual.dto.TournamentStandingsTreeDto;
-import at.ac.tuwien.sepr.assignment.individual.entity.HorseTournament;
 import at.ac.tuwien.sepr.assignment.individual.exception.ConflictException;
 import at.ac.tuwien.sepr.assignment.individual.exception.NotFoundException;
 import at.ac.tuwien.sepr.assignment.individual.exception.ValidationException;
@@ -22,11 +24,13 @@ public interface TournamentService {
 
   /**
    * Search for tournaments in the persistent data store matching all provided fields.
+   * The tournaments are sorted by start date and ID; the page after a previous one is selected by its cursor.
    *
    * @param searchParams the search parameters to use in filtering.
    * @return the tournaments where the given fields match.
+   * @throws ValidationException if the limit or cursor given is invalid
    */
-  Stream<TournamentListDto> search(TournamentSearchParamsDto searchParams);
+  Stream<TournamentListDto> search(TournamentSearchParamsDto searchParams) throws ValidationException;
 
   /**
    * Create a tournament with the data given.
@@ -54,16 +58,6 @@ public interface TournamentService {
    */
   TournamentStandingsDto updateStandings(TournamentStandingsDto standings) throws ValidationException, NotFoundException, ConflictException;
 
-  /**
-   * Fill the tournament standings tree.
-   *
-   * @param standings the standings to fill.
-   * @param horseTournaments the horse tournaments to fill the tree with.
-   * @param entryNumber the entry number to start filling the tree with.
-   * @return the last entry number after filling the tree.
-   */
-  int fillTree(TournamentStandingsTreeDto standings, List<HorseTournament> horseTournaments, int entryNumber);
-
   /**
    * Get the horses of the tournaments with the given ids.
    *
@@ -73,6 +67,74 @@ public interface TournamentService {
    */
   List<TournamentDetailParticipantDto> calculatePointsForHorses(Long tournamentId) throws NotFoundException, ConflictException;
 
+  /**
+   * Estimate how far every participant of a tournament gets, by simulating its undecided matches.
+   * The strength of a horse follows from the same ranking points its seeding is based on.
+   *
+   * @param tournamentId the id of the tournament
+   * @param simulations the number of brackets to simulate
+   * @param seed the seed of the simulation; the same seed gives the same predictions
+   * @return the predictions for the participants, sorted by entry number
+   * @throws ValidationException if the number of simulations is invalid or too large for the bracket size
+   * @throws NotFoundException if the tournament could not be found
+   * @throws ConflictException if the tournament has not been seeded yet
+   */
+  List<TournamentPredictionDto> predict(Long tournamentId, long simulations, long seed)
+      throws ValidationException, NotFoundException, ConflictException;
+
+  /**
+   * Get the versions of the standings of a tournament.
+   * Every accepted change of the standings is kept as a version; the first one is the tournament as it was created,
+   * or, for a tournament created before the history was kept, as it was before its first change since.
+   *
+   * @param tournamentId the id of the tournament
+   * @return the versions, oldest first
+   * @throws NotFoundException if the tournament could not be found
+   */
+  List<StandingsVersionDto> getStandingsVersions(Long tournamentId) throws NotFoundException;
+
+  /**
+   * Get the standings of a tournament as they were in the given version.
+   * The participants carry the versions of their current participations,
+   * so the standings can be submitted to {@link #updateStandings(TournamentStandingsDto)} to restore them.
+   *
+   * @param tournamentId the id of the tournament
+   * @param version the number of the version
+   * @return the standings of the version
+   * @throws NotFoundException if the tournament or the version could not be found
+   */
+  TournamentStandingsDto getStandingsVersion(Long tournamentId, int version) throws NotFoundException;
+
+  /**
+   * Get the positions of the standings tree of a tournament that differ between two versions.
+   * Subtrees the versions share are skipped without being compared.
+   *
+   * @param tournamentId the id of the tournament
+   * @param fromVersion the number of the older version
+   * @param toVersion the number of the newer version
+   * @return the differing positions, sorted by round and position
+   * @throws NotFoundException if the tournament or one of the versions could not be found
+   */
+  List<StandingsChangeDto> getStandingsChanges(Long tournamentId, int fromVersion, int toVersion) throws NotFoundException;
+
+  /**
+   * Record the winner of a single match.
+   * The match is played between the two horses that reached {@code round} among the entries it covers:
+   * the entries {@code (slot - 1) * 2^round + 1} to {@code slot * 2^round}.
+   * Only the winner's participation is written; it advances to the next round.
+   *
+   * @param tournamentId the id of the tournament
+   * @param round the round of the match, starting at 1 for the first round
+   * @param slot the position of the match within its round, starting at 1
+   * @param result the winner of the match
+   * @return the participation of the winner after the update
+   * @throws ValidationException if the match does not exist, or the winner does not play in it
+   * @throws NotFoundException if the tournament does not exist
+   * @throws ConflictException if the match cannot be played yet or was already decided
+   */
+  TournamentDetailParticipantDto recordMatchResult(Long tournamentId, int round, int slot, MatchResultDto result)
+      throws ValidationException, NotFoundException, ConflictException;
+
   /**
    * Generate the first round of the standings.
    *
@@ -1,15 +1,22 @@
 package at.ac.tuwien.sepr.assignment.individual.service;
 
+import at.ac.tuwien.sepr.assignment.individual.config.LogFilter;
 import at.ac.tuwien.sepr.assignment.individual.dto.HorseSelectionDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.MatchResultDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.StandingsChangeDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.StandingsVersionDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.TournamentCreateDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.TournamentDetailDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.TournamentDetailParticipantDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.TournamentListDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.TournamentPredictionDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.TournamentSearchParamsDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.TournamentStandingsDto;
-import at.ac.tuwien.sepr.assignment.individual.dto.TournamentStandingsTreeDto;
+import at.ac.tuwien.sepr.assignment.individual.entity.Bracket;
 import at.ac.tuwien.sepr.assignment.individual.entity.Horse;
+import at.ac.tuwien.sepr.assignment.individual.entity.HorsePoints;
 import at.ac.tuwien.sepr.assignment.individual.entity.HorseTournament;
+import at.ac.tuwien.sepr.assignment.individual.entity.StandingsVersion;
 import at.ac.tuwien.sepr.assignment.individual.entity.Tournament;
 import at.ac.tuwien.sepr.assignment.individual.exception.ConflictException;
 import at.ac.tuwien.sepr.assignment.individual.exception.NotFoundException;
@@ -19,20 +26,23 @@ import at.ac.tuwien.sepr.assignment.individual.mapper.TournamentMapper;
 import at.ac.tuwien.sepr.assignment.individual.persistence.HorseDao;
 import at.ac.tuwien.sepr.assignment.individual.persistence.TournamentDao;
 import at.ac.tuwien.sepr.assignment.individual.persistence.HorseTournamentDao;
+import at.ac.tuwien.sepr.assignment.individual.persistence.StandingsHistoryDao;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.lang.invoke.MethodHandles;
 import java.time.LocalDate;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -42,41 +52,44 @@ public class TournamentServiceImpl implements TournamentService {
   private final TournamentDao tournamentDao;
   private final HorseDao horseDao;
   private final HorseTournamentDao horseTournamentDao;
+  private final StandingsHistoryDao standingsHistoryDao;
   private final TournamentMapper tournamentMapper;
   private final HorseMapper horseMapper;
   private final TournamentValidator validator;
 
   public TournamentServiceImpl(TournamentDao tournamentDao, HorseDao horseDao, HorseTournamentDao horseTournamentDao,
-                               TournamentMapper mapper, HorseMapper horseMapper, TournamentValidator validator) {
+                               StandingsHistoryDao standingsHistoryDao, TournamentMapper mapper, HorseMapper horseMapper,
+                               TournamentValidator validator) {
     this.tournamentDao = tournamentDao;
     this.horseDao = horseDao;
     this.horseTournamentDao = horseTournamentDao;
+    this.standingsHistoryDao = standingsHistoryDao;
     this.tournamentMapper = mapper;
     this.horseMapper = horseMapper;
     this.validator = validator;
   }
 
   @Override
-  public Stream<TournamentListDto> search(TournamentSearchParamsDto searchParameters) {
+  public Stream<TournamentListDto> search(TournamentSearchParamsDto searchParameters) throws ValidationException {
     LOG.trace("search({})", searchParameters);
+    validator.validateForSearch(searchParameters);
     var tournaments = tournamentDao.search(searchParameters);
     return tournaments.stream()
         .map(tournamentMapper::entityToListDto);
   }
 
   @Override
+  @Transactional(rollbackFor = {ValidationException.class, ConflictException.class})
   public TournamentDetailDto create(TournamentCreateDto tournament) throws ValidationException, ConflictException {
     LOG.trace("create({})", tournament);
     validator.validateForCreate(tournament);
     var createdTournament = tournamentDao.create(tournament);
-    var horseTournaments = horseTournamentDao.getHorsesByIDTournament(createdTournament.getId());
+    // the first version of the standings is the empty bracket
+    standingsHistoryDao.addVersion(createdTournament.getId(), 0, Map.of());
+    // the participants are stored exactly as given, so there is no need to read them back
     List<TournamentDetailParticipantDto> participantDtos = new ArrayList<>();
     for (HorseSelectionDto participantDto : tournament.participants()) {
-      horseTournaments
-          .stream()
-          .filter(ht -> ht.getHorseId().equals(participantDto.id()))
-          .findFirst().ifPresent(horseTournament -> participantDtos.add(tournamentMapper.entityToTournamentDetailParticipantDto(participantDto,
-              horseTournament.getEntryNumber(), horseTournament.getRoundReached())));
+      participantDtos.add(tournamentMapper.entityToTournamentDetailParticipantDto(participantDto, -1, 0, 0));
     }
     return tournamentMapper.entityToDetailDto(createdTournament, participantDtos);
   }
@@ -84,163 +97,316 @@ public class TournamentServiceImpl implements TournamentService {
   @Override
   public TournamentStandingsDto getStandingsByTournamentId(Long tournamentId) throws NotFoundException {
     LOG.trace("getStandingsByTournamentId({})", tournamentId);
-    Tournament tournament = tournamentDao.getById(tournamentId);
-    Collection<HorseTournament> horseTournaments = horseTournamentDao.getHorsesByIDTournament(tournamentId);
+    return standingsOf(tournamentDao.getById(tournamentId));
+  }
+
+  private TournamentStandingsDto standingsOf(Tournament tournament) throws NotFoundException {
+    return standingsOf(tournament, horseTournamentDao.getHorsesByIDTournament(tournament.getId()));
+  }
+
+  private TournamentStandingsDto standingsOf(Tournament tournament, Collection<HorseTournament> horseTournaments)
+      throws NotFoundException {
     Map<Long, HorseSelectionDto> horseMap = new HashMap<>();
-    for (HorseTournament horseTournament : horseTournaments) {
-      horseMap.put(horseTournament.getHorseId(), horseMapper.entityToSelectionDto(horseDao.getById(horseTournament.getHorseId())));
+    if (!horseTournaments.isEmpty()) {
+      // one query for all participants, however large the bracket
+      var horseIds = horseTournaments.stream().map(HorseTournament::getHorseId).collect(Collectors.toSet());
+      for (Horse horse : horseDao.getByIds(horseIds)) {
+        horseMap.put(horse.getId(), horseMapper.entityToSelectionDto(horse));
+      }
     }
     return tournamentMapper.entityToTournamentStandingsDto(tournament, horseTournaments, horseMap);
   }
 
   @Override
+  public List<StandingsVersionDto> getStandingsVersions(Long tournamentId) throws NotFoundException {
+    LOG.trace("getStandingsVersions({})", tournamentId);
+    tournamentDao.getById(tournamentId);
+    return standingsHistoryDao.getVersions(tournamentId).stream()
+        .map(tournamentMapper::entityToStandingsVersionDto)
+        .toList();
+  }
+
+  @Override
+  public TournamentStandingsDto getStandingsVersion(Long tournamentId, int version) throws NotFoundException {
+    LOG.trace("getStandingsVersion({}, {})", tournamentId, version);
+    Tournament tournament = tournamentDao.getById(tournamentId);
+    var bracket = Bracket.ofHorseIds(
+        standingsHistoryDao.getVersion(tournamentId, version, tournament.getBracketSize()).getHorseIds());
+    Map<Long, Integer> entries = new HashMap<>();
+    for (int entry = 1; entry <= bracket.size(); entry++) {
+      if (bracket.entryAt(bracket.leaf(entry)) != 0) {
+        entries.put(bracket.horseId(entry), entry);
+      }
+    }
+    // the participations as of the version, with their current versions; horses not in its bracket were not seeded yet
+    int[] roundsReached = bracket.roundsReached();
+    List<HorseTournament> participations = new ArrayList<>();
+    for (HorseTournament current : horseTournamentDao.getHorsesByIDTournament(tournamentId)) {
+      Integer entry = entries.get(current.getHorseId());
+      participations.add(entry == null
+          ? new HorseTournament(current.getHorseId(), tournamentId, -1, 0, current.getVersion())
+          : new HorseTournament(current.getHorseId(), tournamentId, entry, roundsReached[entry - 1], current.getVersion()));
+    }
+    return standingsOf(tournament, participations);
+  }
+
+  @Override
+  public List<StandingsChangeDto> getStandingsChanges(Long tournamentId, int fromVersion, int toVersion)
+      throws NotFoundException {
+    LOG.trace("getStandingsChanges({}, {}, {})", tournamentId, fromVersion, toVersion);
+    int bracketSize = tournamentDao.getById(tournamentId).getBracketSize();
+    StandingsVersion from = standingsHistoryDao.getVersion(tournamentId, fromVersion, bracketSize);
+    StandingsVersion to = standingsHistoryDao.getVersion(tournamentId, toVersion, bracketSize);
+
+    var bracket = new Bracket(bracketSize);
+    List<StandingsChangeDto> changes = new ArrayList<>();
+    Deque<Integer> pending = new ArrayDeque<>();
+    pending.push(1);
+    while (!pending.isEmpty()) {
+      int node = pending.pop();
+      // the same stored node is the same subtree, and an ID of 0 is a subtree without horses
+      if (from.getNodeIds()[node] == to.getNodeIds()[node]) {
+        continue;
+      }
+      long fromHorseId = from.getHorseIds()[node];
+      long toHorseId = to.getHorseIds()[node];
+      if (fromHorseId != toHorseId) {
+        changes.add(new StandingsChangeDto(bracket.roundOf(node), node - Integer.highestOneBit(node) + 1,
+            fromHorseId == 0 ? null : fromHorseId, toHorseId == 0 ? null : toHorseId));
+      }
+      if (!bracket.isLeaf(node)) {
+        pending.push(2 * node + 1);
+        pending.push(2 * node);
+      }
+    }
+    changes.sort(Comparator.comparingInt(StandingsChangeDto::round).thenComparingInt(StandingsChangeDto::position));
+    return changes;
+  }
+
+  @Override
+  @Transactional(rollbackFor = {ValidationException.class, NotFoundException.class, ConflictException.class})
   public TournamentStandingsDto updateStandings(TournamentStandingsDto standings) throws ValidationException, NotFoundException, ConflictException {
     LOG.trace("updateStandings({})", standings);
     validator.validateForStandings(standings);
-    List<HorseTournament> horseTournaments = new ArrayList<>();
+    Tournament stored = tournamentDao.getById(standings.id());
+    int bracketSize = stored.getBracketSize();
+    var bracket = tournamentMapper.treeDtoToBracket(standings.tree(), bracketSize);
+    validator.validateForStandings(standings, bracketSize, bracket);
+    int latestVersion = startHistory(stored);
+    Map<Long, HorseTournament> submitted = new HashMap<>();
     for (TournamentDetailParticipantDto horse : standings.participants()) {
-      horseTournaments.add(tournamentMapper.tournamentDetailParticipantDtoToHorseTournament(horse, standings.id()));
+      submitted.put(horse.horseId(), tournamentMapper.tournamentDetailParticipantDtoToHorseTournament(horse, standings.id()));
     }
-    fillTree(standings.tree(), horseTournaments, 1);
-    for (HorseTournament horse : horseTournaments) {
-      horseTournamentDao.updateStandings(horse.getTournamentId(), horse.getHorseId(), horse.getEntryNumber(), horse.getRoundReached());
+    // a horse in the bracket has the entry number of its leaf and reached as many rounds as it reached nodes
+    int[] roundsReached = bracket.roundsReached();
+    for (int entry = 1; entry <= bracket.size(); entry++) {
+      var horse = bracket.entryAt(bracket.leaf(entry)) == 0 ? null : submitted.get(bracket.horseId(entry));
+      if (horse != null) {
+        horse.setEntryNumber(entry);
+        horse.setRoundReached(roundsReached[entry - 1]);
+      }
     }
-    return getStandingsByTournamentId(standings.id());
-  }
 
-  @Override
-  public int fillTree(TournamentStandingsTreeDto standings, List<HorseTournament> horseTournaments, int entryNumber) {
-    LOG.trace("fillTree({}, {}, {})", standings, horseTournaments, entryNumber);
-    if (standings.thisParticipant() != null) {
-      for (HorseTournament horseTournament : horseTournaments) {
-        if (horseTournament.getHorseId().equals(standings.thisParticipant().horseId())) {
-          horseTournament.setRoundReached(horseTournament.getRoundReached() + 1);
-        }
+    // only write the participations the tree actually changed
+    var participations = horseTournamentDao.getHorsesByIDTournament(standings.id());
+    List<HorseTournament> changed = new ArrayList<>();
+    List<HorseTournament> result = new ArrayList<>(participations.size());
+    for (HorseTournament current : participations) {
+      var horse = submitted.remove(current.getHorseId());
+      if (horse == null || current.getEntryNumber() == horse.getEntryNumber()
+          && current.getRoundReached() == horse.getRoundReached()) {
+        result.add(current);
+      } else {
+        changed.add(horse);
+        // as written by the update, which increments the version
+        result.add(new HorseTournament(current.getHorseId(), current.getTournamentId(), horse.getEntryNumber(),
+            horse.getRoundReached(), current.getVersion() + 1));
       }
     }
-    if (standings.branches() == null) {
-      for (HorseTournament horseTournament : horseTournaments) {
-        if (standings.thisParticipant() != null
-            && horseTournament.getHorseId().equals(standings.thisParticipant().horseId())) {
-          horseTournament.setEntryNumber(entryNumber);
-        }
-      }
-      return entryNumber + 1;
+    // submitted horses that do not participate make the update fail
+    changed.addAll(submitted.values());
+    recordRowsWritten(standings.id(), horseTournamentDao.updateStandings(standings.id(), changed),
+        standings.participants().size());
+    var changedNodes = changedNodes(bracketOf(participations, bracketSize), bracketOf(result, bracketSize));
+    if (!changedNodes.isEmpty()) {
+      standingsHistoryDao.addVersion(standings.id(), latestVersion, changedNodes);
     }
-    entryNumber = fillTree(standings.branches().get(0), horseTournaments, entryNumber);
-    entryNumber = fillTree(standings.branches().get(1), horseTournaments, entryNumber);
 
-    return entryNumber;
+    // the participations are the stored state plus the changes just written, so only the horses are read,
+    // as the update does not change them, whatever names and dates of birth were submitted
+    return standingsOf(stored, result);
   }
 
   @Override
-  public List<TournamentDetailParticipantDto> calculatePointsForHorses(Long tournamentId) throws NotFoundException, ConflictException {
-    LOG.trace("calculatePointsForHorses({})", tournamentId);
+  @Transactional(rollbackFor = {ValidationException.class, NotFoundException.class, ConflictException.class})
+  public TournamentDetailParticipantDto recordMatchResult(Long tournamentId, int round, int slot, MatchResultDto result)
+      throws ValidationException, NotFoundException, ConflictException {
+    LOG.trace("recordMatchResult({}, {}, {}, {})", tournamentId, round, slot, result);
     Tournament tournament = tournamentDao.getById(tournamentId);
-    LocalDate startDate = tournament.getStartDate();
-    Collection<HorseTournament> horses = horseTournamentDao.getHorsesByIDTournament(tournamentId);
-
-
+    int bracketSize = tournament.getBracketSize();
+    validator.validateForMatchResult(bracketSize, round, slot, result);
+
+    // the match covers 2^round entries; each half of them sends one horse into it
+    int firstEntry = ((slot - 1) << round) + 1;
+    int firstOfSecondHalf = firstEntry + (1 << (round - 1));
+    // the contenders stay locked, so a concurrent result for the same match waits and then finds it decided
+    var contenders = horseTournamentDao.getContenders(tournamentId, firstEntry, (slot << round), round);
+    long fromFirstHalf = contenders.stream().filter(c -> c.getEntryNumber() < firstOfSecondHalf).count();
+    if (contenders.size() != 2 || fromFirstHalf != 1) {
+      throw new ConflictException("Match result could not be recorded",
+          List.of("Match " + slot + " of round " + round + " does not have its two horses yet"));
+    }
+    if (contenders.stream().anyMatch(c -> c.getRoundReached() > round)) {
+      throw new ConflictException("Match result could not be recorded",
+          List.of("Match " + slot + " of round " + round + " was already decided"));
+    }
+    var winner = contenders.stream()
+        .filter(c -> c.getHorseId().equals(result.horseId()))
+        .findFirst()
+        .orElseThrow(() -> new ValidationException("Match result could not be recorded",
+            List.of("Horse " + result.horseId() + " does not play in match " + slot + " of round " + round)));
+
+    int latestVersion = startHistory(tournament);
+    horseTournamentDao.updateStandings(tournamentId, winner.getHorseId(), winner.getEntryNumber(), round + 1,
+        winner.getVersion());
+    recordRowsWritten(tournamentId, 1, 1);
+    // the winner reaches the node the match is played for
+    standingsHistoryDao.addVersion(tournamentId, latestVersion, Map.of((bracketSize >> round) + slot - 1, winner.getHorseId()));
+    var horse = horseMapper.entityToSelectionDto(horseDao.getById(winner.getHorseId()));
+    return tournamentMapper.entityToTournamentDetailParticipantDto(horse, winner.getEntryNumber(), round + 1,
+        winner.getVersion() + 1);
+  }
 
-    List<Tournament> tournaments = tournamentDao.getLast12MonthsTournaments(startDate);
-    if (tournaments.size() == 0) {
-      List<Horse> horseList = horseDao.getByIds(horses.stream().map(HorseTournament::getHorseId).collect(Collectors.toSet()));
-      horseList.sort(Comparator.comparing(Horse::getName));
-      TournamentDetailParticipantDto[] results = new TournamentDetailParticipantDto[8];
+  /**
+   * Get the latest version of the standings of a tournament, before they are changed.
+   * A tournament created before the history was kept gets its current standings as its first version.
+   */
+  private int startHistory(Tournament tournament) throws ConflictException {
+    int latestVersion = standingsHistoryDao.getLatestVersion(tournament.getId());
+    if (latestVersion > 0) {
+      return latestVersion;
+    }
+    var current = bracketOf(horseTournamentDao.getHorsesByIDTournament(tournament.getId()), tournament.getBracketSize());
+    return standingsHistoryDao.addVersion(tournament.getId(), 0,
+        changedNodes(new Bracket(tournament.getBracketSize()), current));
+  }
 
-      for (int i = 0; i < horses.size() / 2; i++) {
-        results[2 * i] = horseMapper.entityToTournamentParticipantDto(horseList.get(i), 2 * i + 1);
-      }
-      int a = 1;
-      for (int i = 7; i >= horses.size() / 2; i--) {
-        results[a] = horseMapper.entityToTournamentParticipantDto(horseList.get(i), a + 1);
-        a = a + 2;
+  /**
+   * Get the bracket of the participations of a tournament, as the standings tree shows it.
+   * Participations without an entry number or still in round 0 are not in the bracket.
+   */
+  private static Bracket bracketOf(Collection<HorseTournament> participations, int bracketSize) {
+    long[] horseIds = new long[bracketSize];
+    int[] roundsReached = new int[bracketSize];
+    for (HorseTournament participation : participations) {
+      int entry = participation.getEntryNumber();
+      if (entry >= 1 && entry <= bracketSize) {
+        horseIds[entry - 1] = participation.getHorseId();
+        roundsReached[entry - 1] = participation.getRoundReached();
       }
+    }
+    return Bracket.ofRoundsReached(horseIds, roundsReached);
+  }
 
-      for (TournamentDetailParticipantDto dto : results) {
-        horseTournamentDao.updateStandings(tournamentId, dto.horseId(), dto.entryNumber(), 1);
+  private static Map<Integer, Long> changedNodes(Bracket before, Bracket after) {
+    Map<Integer, Long> changes = new HashMap<>();
+    for (int node = 1; node < 2 * after.size(); node++) {
+      if (before.horseIdAt(node) != after.horseIdAt(node)) {
+        changes.put(node, after.horseIdAt(node));
       }
+    }
+    return changes;
+  }
+
+  private static void recordRowsWritten(Long tournamentId, int written, int total) {
+    LOG.debug("Wrote {} of {} standings of tournament {}", written, total, tournamentId);
+    var before = MDC.get(LogFilter.ROWS_WRITTEN);
+    MDC.put(LogFilter.ROWS_WRITTEN, Integer.toString(written + (before == null ? 0 : Integer.parseInt(before))));
+  }
 
-      return Arrays.asList(results);
+  @Override
+  @Transactional(rollbackFor = {NotFoundException.class, ConflictException.class})
+  public List<TournamentDetailParticipantDto> calculatePointsForHorses(Long tournamentId) throws NotFoundException, ConflictException {
+    LOG.trace("calculatePointsForHorses({})", tournamentId);
+    Tournament tournament = tournamentDao.getById(tournamentId);
+    var ranking = rankingPoints(tournament);
 
+    int[] points = new int[ranking.size()];
+    for (int i = 0; i < points.length; i++) {
+      points[i] = ranking.get(i).getPoints();
     }
-    Set<Long> tournamentIds = tournaments.stream().map(Tournament::getId).collect(Collectors.toSet());
-    Map<Long, List<HorseTournament>> map = horseTournamentDao.getHorsesByIDsTournaments(tournamentIds); //tournamentId, horseTournaments
-
-
-    Map<Long, Integer> points = new HashMap<>(); //horseId, points
-
-    for (Tournament t : tournaments) {
-      Long currentTournamentId = t.getId();
-      List<HorseTournament> horseTournaments = map.get(currentTournamentId);
-
-      for (HorseTournament horse : horses) { //you need to check the horse's points from the past tournaments
-        int tournamentPoints = points.getOrDefault(horse.getHorseId(), 0);
-        if (containsHorse(horse, horseTournaments)) {
-          HorseTournament wanted = new HorseTournament(null, null, 0, 0);
-          for (HorseTournament horseTournament : horseTournaments) {
-            if (horseTournament.getHorseId().equals(horse.getHorseId())) {
-              wanted = horseTournament;
-              break;
-            }
-          }
-          if (wanted.getRoundReached() == 4) {
-            tournamentPoints += 5;
-          }
-          if (wanted.getRoundReached() == 3) {
-            tournamentPoints += 3;
-          }
-          if (wanted.getRoundReached() == 2) {
-            tournamentPoints += 1;
-          }
-        }
-        points.put(horse.getHorseId(), tournamentPoints);
-      }
+    int[] entrants = SeedingEngine.seed(points);
+    List<TournamentDetailParticipantDto> participantDtos = new ArrayList<>(ranking.size());
+    for (int i = 0; i < entrants.length; i++) {
+      var horse = ranking.get(entrants[i]);
+      participantDtos.add(new TournamentDetailParticipantDto(horse.getHorseId(), horse.getName(), horse.getDateOfBirth(),
+          i + 1, 1, null));
     }
 
-    List<Map.Entry<Long, Integer>> list = new ArrayList<>(points.entrySet());
-    list.sort((entry1, entry2) -> {
-      int compareByValue = entry1.getValue().compareTo(entry2.getValue());
-
-      if (compareByValue == 0) {
-        try {
-          return horseDao.getById(entry1.getKey()).getName().compareTo(horseDao.getById(entry2.getKey()).getName());
-        } catch (NotFoundException e) {
-          LOG.warn(e.getMessage(), e);
-          throw new RuntimeException(e);
-        }
-      } else {
-        return compareByValue;
-      }
-    });
-
+    List<HorseTournament> standings = new ArrayList<>(participantDtos.size());
+    for (TournamentDetailParticipantDto participant : participantDtos) {
+      standings.add(new HorseTournament(participant.horseId(), tournamentId, participant.entryNumber(), participant.roundReached()));
+    }
+    int latestVersion = startHistory(tournament);
+    var before = bracketOf(horseTournamentDao.getHorsesByIDTournament(tournamentId), tournament.getBracketSize());
+    recordRowsWritten(tournamentId, horseTournamentDao.updateStandings(tournamentId, standings), standings.size());
+    var changedNodes = changedNodes(before, bracketOf(standings, tournament.getBracketSize()));
+    if (!changedNodes.isEmpty()) {
+      standingsHistoryDao.addVersion(tournamentId, latestVersion, changedNodes);
+    }
 
-    List<Horse> participants = new ArrayList<>();
-    participants.add(horseDao.getById(list.get(7).getKey())); //1
-    participants.add(horseDao.getById(list.get(0).getKey())); //2
-    participants.add(horseDao.getById(list.get(6).getKey())); //3
-    participants.add(horseDao.getById(list.get(1).getKey()));
-    participants.add(horseDao.getById(list.get(5).getKey()));
-    participants.add(horseDao.getById(list.get(2).getKey()));
-    participants.add(horseDao.getById(list.get(4).getKey()));
-    participants.add(horseDao.getById(list.get(3).getKey()));
+    return participantDtos;
+  }
 
-    List<TournamentDetailParticipantDto> participantDtos = new ArrayList<>();
+  private List<HorsePoints> rankingPoints(Tournament tournament) {
+    LocalDate startDate = tournament.getStartDate();
+    // points count from the tournaments that ended in the 12 months before this one starts
+    return horseTournamentDao.getRankingPoints(tournament.getId(), startDate.minusMonths(12), startDate.minusDays(1));
+  }
 
-    for (int i = 0; i < 8; i++) {
-      participantDtos.add(new TournamentDetailParticipantDto(participants.get(i).getId(), participants.get(i).getName(), participants.get(i).getDateOfBirth(),
-          i + 1, 1));
+  @Override
+  public List<TournamentPredictionDto> predict(Long tournamentId, long simulations, long seed)
+      throws ValidationException, NotFoundException, ConflictException {
+    LOG.trace("predict({}, {}, {})", tournamentId, simulations, seed);
+    Tournament tournament = tournamentDao.getById(tournamentId);
+    validator.validateForPredictions(simulations, tournament.getBracketSize());
+    var standings = standingsOf(tournament);
+    var bracket = tournamentMapper.treeDtoToBracket(standings.tree(), tournament.getBracketSize());
+    for (int entry = 1; entry <= bracket.size(); entry++) {
+      if (bracket.entryAt(bracket.leaf(entry)) == 0) {
+        throw new ConflictException("Predictions could not be made",
+            List.of("Tournament " + tournamentId + " has not been seeded yet"));
+      }
     }
 
-    for (HorseTournament horse : horses) {
-      TournamentDetailParticipantDto current = participantDtos.stream().filter(p -> p.horseId().equals(horse.getHorseId())).findFirst().get();
-      horseTournamentDao.updateStandings(tournamentId, current.horseId(), current.entryNumber(), current.roundReached());
+    // a horse without points still has a chance
+    Map<Long, Integer> points = new HashMap<>();
+    for (HorsePoints horse : rankingPoints(tournament)) {
+      points.put(horse.getHorseId(), horse.getPoints());
     }
-
-    return participantDtos;
+    double[] strengths = new double[bracket.size()];
+    for (int entry = 1; entry <= bracket.size(); entry++) {
+      strengths[entry - 1] = 1 + points.getOrDefault(bracket.horseId(entry), 0);
+    }
+    long[] counts = BracketSimulator.simulate(bracket, strengths, simulations, seed);
+
+    Map<Long, TournamentDetailParticipantDto> participants = new HashMap<>();
+    standings.participants().forEach(participant -> participants.put(participant.horseId(), participant));
+    int roundsPerHorse = bracket.roundOf(1);
+    List<TournamentPredictionDto> predictions = new ArrayList<>(bracket.size());
+    for (int entry = 1; entry <= bracket.size(); entry++) {
+      List<Double> reachProbabilities = new ArrayList<>(roundsPerHorse);
+      for (int round = 1; round <= roundsPerHorse; round++) {
+        reachProbabilities.add((double) counts[(entry - 1) * roundsPerHorse + round - 1] / simulations);
+      }
+      var participant = participants.get(bracket.horseId(entry));
+      predictions.add(new TournamentPredictionDto(participant.horseId(), participant.name(), entry, reachProbabilities));
+    }
+    return predictions;
   }
 
   @Override
+  @Transactional(rollbackFor = {NotFoundException.class, ConflictException.class})
   public TournamentStandingsDto generateFirstRound(TournamentStandingsDto standings) throws NotFoundException, ConflictException {
     LOG.trace("generateFirstRound({})", standings);
 
@@ -250,13 +416,5 @@ public class TournamentServiceImpl implements TournamentService {
     return getStandingsByTournamentId(standings.id());
   }
 
-  private boolean containsHorse(HorseTournament horseTournament, List<HorseTournament> horseTournaments) {
-    LOG.trace("containsHorse({}, {})", horseTournament, horseTournaments);
-    for (HorseTournament ht : horseTournaments) {
-      if (ht.getHorseId().equals(horseTournament.getHorseId())) {
-        return true;
-      }
-    }
-    return false;
-  }
+
 }
@@ -1,8 +1,11 @@
 package at.ac.tuwien.sepr.assignment.individual.service;
 
+import at.ac.tuwien.sepr.assignment.individual.dto.MatchResultDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.PageCursor;
 import at.ac.tuwien.sepr.assignment.individual.dto.TournamentCreateDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.TournamentSearchParamsDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.TournamentStandingsDto;
-import at.ac.tuwien.sepr.assignment.individual.dto.TournamentStandingsTreeDto;
+import at.ac.tuwien.sepr.assignment.individual.entity.Bracket;
 import at.ac.tuwien.sepr.assignment.individual.exception.ValidationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -10,6 +13,7 @@ import org.springframework.stereotype.Component;
 
 import java.lang.invoke.MethodHandles;
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -18,6 +22,9 @@ import java.util.Set;
 @Component
 public class TournamentValidator {
   private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  static final int MAX_PARTICIPANTS = 1024;
+  // about one second of a core, whatever the bracket size
+  static final long MAX_SIMULATED_MATCHES = 100_000_000;
 
 
   private void validateHelper(TournamentCreateDto tournament, List<String> validationErrors) {
@@ -40,12 +47,16 @@ public class TournamentValidator {
         || tournament.endDate() != null && tournament.endDate().isAfter(LocalDate.of(2030, 1, 1))) {
       validationErrors.add("Invalid date given");
     }
-    if (tournament.participants() == null || tournament.participants().size() != 8) {
-      validationErrors.add("No 8 horses given");
+    if (tournament.participants() == null || !isBracketSize(tournament.participants().size())) {
+      validationErrors.add("Number of horses must be a power of two from 2 to " + MAX_PARTICIPANTS);
     }
 
   }
 
+  private static boolean isBracketSize(int participants) {
+    return participants >= 2 && participants <= MAX_PARTICIPANTS && Integer.bitCount(participants) == 1;
+  }
+
   public void validateForCreate(TournamentCreateDto tournament) throws ValidationException {
     LOG.trace("validateForCreate({})", tournament);
     List<String> validationErrors = new ArrayList<>();
@@ -59,6 +70,29 @@ public class TournamentValidator {
     }
   }
 
+  public void validateForSearch(TournamentSearchParamsDto searchParams) throws ValidationException {
+    LOG.trace("validateForSearch({})", searchParams);
+    List<String> validationErrors = new ArrayList<>();
+
+    if (searchParams.limit() != null && searchParams.limit() <= 0) {
+      validationErrors.add("Limit must be positive");
+    }
+    try {
+      var cursor = PageCursor.decode(searchParams.cursor());
+      if (cursor != null) {
+        LocalDate.parse(cursor.key());
+      }
+    } catch (IllegalArgumentException | DateTimeParseException e) {
+      validationErrors.add("Invalid cursor given");
+    }
+
+    if (!validationErrors.isEmpty()) {
+      String errorMessage = "Validation of tournament search failed: " + validationErrors;
+      LOG.warn(errorMessage);
+      throw new ValidationException(errorMessage, validationErrors);
+    }
+  }
+
   public void validateForStandings(TournamentStandingsDto tournament) throws ValidationException {
     LOG.trace("validateForStandings({})", tournament);
     List<String> validationErrors = new ArrayList<>();
@@ -69,11 +103,8 @@ public class TournamentValidator {
     if (tournament.name() == null) {
       validationErrors.add("No name given");
     }
-    if (tournament.participants() == null || tournament.participants().size() != 8) {
-      validationErrors.add("No 8 horses given");
-    }
-    if (tournament.participants() != null && hasDuplicateParticipants(tournament.tree())) {
-      validationErrors.add("Duplicate participants given");
+    if (tournament.participants() == null) {
+      validationErrors.add("No horses given");
     }
     if (tournament.tree() == null) {
       validationErrors.add("No tree given");
@@ -85,28 +116,81 @@ public class TournamentValidator {
     }
   }
 
-  private boolean hasDuplicateParticipants(TournamentStandingsTreeDto standingsTree) {
-    Set<Long> horseIds = new HashSet<>();
-    return hasDuplicateParticipantsRecursive(standingsTree, horseIds);
+  /**
+   * Validate the standings of a tournament against its bracket.
+   *
+   * @param tournament the standings, which passed {@link #validateForStandings(TournamentStandingsDto)}
+   * @param bracketSize the bracket size of the tournament
+   * @param bracket the bracket converted from the standings tree, or {@code null} if that is not a bracket of the size
+   * @throws ValidationException if the standings do not fit the tournament's bracket
+   */
+  public void validateForStandings(TournamentStandingsDto tournament, int bracketSize, Bracket bracket) throws ValidationException {
+    LOG.trace("validateForStandings({}, {})", tournament, bracketSize);
+    List<String> validationErrors = new ArrayList<>();
+
+    if (tournament.participants().size() != bracketSize) {
+      validationErrors.add("No " + bracketSize + " horses given");
+    }
+    if (bracket == null) {
+      validationErrors.add("Invalid tree given");
+    } else if (hasDuplicateParticipants(bracket)) {
+      validationErrors.add("Duplicate participants given");
+    }
+    if (!validationErrors.isEmpty()) {
+      String errorMessage = "Validation of tournament for standings failed: " + validationErrors;
+      LOG.warn(errorMessage);
+      throw new ValidationException(errorMessage, validationErrors);
+    }
   }
 
-  private boolean hasDuplicateParticipantsRecursive(TournamentStandingsTreeDto node, Set<Long> horseIds) {
-    if (node == null) {
-      return false;
+  public void validateForMatchResult(int bracketSize, int round, int slot, MatchResultDto result) throws ValidationException {
+    LOG.trace("validateForMatchResult({}, {}, {}, {})", bracketSize, round, slot, result);
+    List<String> validationErrors = new ArrayList<>();
+
+    int rounds = Integer.numberOfTrailingZeros(bracketSize);
+    if (round < 1 || round > rounds) {
+      validationErrors.add("Round must be between 1 and " + rounds);
+    } else if (slot < 1 || slot > bracketSize >> round) {
+      validationErrors.add("Match of round " + round + " must be between 1 and " + (bracketSize >> round));
     }
-    // Check if the current participant's horseId already exists in the first round
-    if (node.thisParticipant() != null && node.branches() == null && !horseIds.add(node.thisParticipant().horseId())) {
-      return true;
+    if (result == null || result.horseId() == null) {
+      validationErrors.add("No winner given");
     }
 
-    if (node.branches() != null) {
-      for (TournamentStandingsTreeDto branch : node.branches()) {
-        if (hasDuplicateParticipantsRecursive(branch, horseIds)) {
-          return true;
-        }
-      }
+    if (!validationErrors.isEmpty()) {
+      String errorMessage = "Validation of match result failed: " + validationErrors;
+      LOG.warn(errorMessage);
+      throw new ValidationException(errorMessage, validationErrors);
+    }
+  }
+
+  /**
+   * Validate the number of simulations of a prediction.
+   * Every simulation plays all matches of the bracket, so the larger the bracket, the fewer simulations are allowed.
+   *
+   * @param simulations the number of simulations
+   * @param bracketSize the bracket size of the tournament
+   * @throws ValidationException if there are no simulations or they would play more than {@link #MAX_SIMULATED_MATCHES}
+   */
+  public void validateForPredictions(long simulations, int bracketSize) throws ValidationException {
+    LOG.trace("validateForPredictions({}, {})", simulations, bracketSize);
+    long maxSimulations = MAX_SIMULATED_MATCHES / (bracketSize - 1);
+    if (simulations < 1 || simulations > maxSimulations) {
+      List<String> validationErrors = List.of("Number of simulations must be between 1 and " + maxSimulations
+          + " for a bracket of " + bracketSize + " horses");
+      String errorMessage = "Validation of predictions failed: " + validationErrors;
+      LOG.warn(errorMessage);
+      throw new ValidationException(errorMessage, validationErrors);
     }
+  }
 
+  private boolean hasDuplicateParticipants(Bracket bracket) {
+    Set<Long> horseIds = new HashSet<>();
+    for (int entry = 1; entry <= bracket.size(); entry++) {
+      if (bracket.entryAt(bracket.leaf(entry)) != 0 && !horseIds.add(bracket.horseId(entry))) {
+        return true;
+      }
+    }
     return false;
   }
 }
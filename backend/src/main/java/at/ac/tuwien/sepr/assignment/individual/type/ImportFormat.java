@@ -0,0 +1,45 @@
+package at.ac.tuwien.sepr.assignment.individual.type;
+
+import java.util.Locale;
+
+/**
+ * Line-based file formats horses can be imported from.
+ */
+public enum ImportFormat {
+  /**
+   * Comma-separated values with a header line naming the columns.
+   */
+  CSV("text/csv"),
+  /**
+   * One JSON object per line.
+   */
+  NDJSON("application/x-ndjson");
+
+  private final String mediaType;
+
+  ImportFormat(String mediaType) {
+    this.mediaType = mediaType;
+  }
+
+  public String mediaType() {
+    return mediaType;
+  }
+
+  /**
+   * Determine the format of a file from the extension of its name.
+   *
+   * @param fileName the name of the file
+   * @return the format, {@code .csv} files being CSV and {@code .ndjson}, {@code .jsonl} files being NDJSON
+   * @throws IllegalArgumentException if the extension is not one of those
+   */
+  public static ImportFormat fromFileName(String fileName) {
+    var lower = fileName.toLowerCase(Locale.ROOT);
+    if (lower.endsWith(".csv")) {
+      return CSV;
+    }
+    if (lower.endsWith(".ndjson") || lower.endsWith(".jsonl")) {
+      return NDJSON;
+    }
+    throw new IllegalArgumentException("Unknown import file format: " + fileName);
+  }
+}
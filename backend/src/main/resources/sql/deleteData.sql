@@ -1,3 +1,6 @@
+DELETE FROM standings_node;
+DELETE FROM standings_version;
+DELETE FROM horse_points;
 DELETE FROM tournament_horses;
 DELETE FROM tournament;
 DELETE FROM horse;
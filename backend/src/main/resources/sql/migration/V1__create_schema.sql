@@ -1,3 +1,6 @@
+-- Baseline schema.
+-- Databases created before migrations were introduced already contain these tables, hence IF NOT EXISTS throughout.
+
 CREATE TABLE IF NOT EXISTS breed
 (
   id BIGINT PRIMARY KEY,
@@ -13,7 +16,7 @@ CREATE TABLE IF NOT EXISTS horse
   date_of_birth DATE NOT NULL,
   height NUMERIC(4,2),
   weight NUMERIC(7,2),
-  // TODO handle optional everywhere
+  -- TODO handle optional everywhere
   breed_id BIGINT REFERENCES breed(id)
 );
 
@@ -35,3 +38,7 @@ CREATE TABLE IF NOT EXISTS tournament_horses
   FOREIGN KEY (horse_id) REFERENCES horse(id),
   PRIMARY KEY (tournament_id, horse_id)
 );
+
+-- incremented on every update, so that concurrent changes can be detected
+ALTER TABLE horse ADD COLUMN IF NOT EXISTS version INT NOT NULL DEFAULT 0;
+ALTER TABLE tournament_horses ADD COLUMN IF NOT EXISTS version INT NOT NULL DEFAULT 0;
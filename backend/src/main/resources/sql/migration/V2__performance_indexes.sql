@@ -0,0 +1,11 @@
+-- Indexes for the predicates and sort orders of the DAO queries.
+
+-- horse search: sorted by name and ID, filtered by date of birth
+CREATE INDEX IF NOT EXISTS horse_name_idx ON horse(name, id);
+CREATE INDEX IF NOT EXISTS horse_date_of_birth_idx ON horse(date_of_birth);
+
+-- tournament search: sorted by start date and ID, filtered by period; standings: tournaments ending in a period
+CREATE INDEX IF NOT EXISTS tournament_start_date_idx ON tournament(start_date, id);
+CREATE INDEX IF NOT EXISTS tournament_end_date_idx ON tournament(end_date);
+
+-- tournaments of a horse need no index of their own: H2 indexes the foreign key tournament_horses(horse_id)
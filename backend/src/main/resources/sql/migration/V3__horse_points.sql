@@ -0,0 +1,19 @@
+-- Read model of the ranking points of every horse, summed per end date of the tournaments they were earned in.
+-- Maintained along with tournament_horses.round_reached; the points of a period are a range sum over the primary key.
+-- Dates without points have no row.
+
+CREATE TABLE IF NOT EXISTS horse_points
+(
+  horse_id BIGINT NOT NULL REFERENCES horse(id) ON DELETE CASCADE,
+  end_date DATE NOT NULL,
+  points INT NOT NULL,
+  PRIMARY KEY (horse_id, end_date)
+);
+
+-- 5 points for the final round, 3 for the semifinals, 1 for the quarterfinals
+INSERT INTO horse_points (horse_id, end_date, points)
+SELECT th.horse_id, t.end_date, SUM(CASE th.round_reached WHEN 4 THEN 5 WHEN 3 THEN 3 WHEN 2 THEN 1 ELSE 0 END)
+FROM tournament_horses th
+JOIN tournament t ON t.id = th.tournament_id
+GROUP BY th.horse_id, t.end_date
+HAVING SUM(CASE th.round_reached WHEN 4 THEN 5 WHEN 3 THEN 3 WHEN 2 THEN 1 ELSE 0 END) > 0;
@@ -0,0 +1,4 @@
+-- The number of entries of a tournament's bracket, a power of two.
+-- Every tournament so far was created with 8 horses.
+
+ALTER TABLE tournament ADD COLUMN IF NOT EXISTS bracket_size INT NOT NULL DEFAULT 8;
@@ -0,0 +1,29 @@
+-- Every accepted change of a tournament's standings is kept as a version of its bracket.
+-- The nodes of a version are never changed; a new version stores only the nodes on the paths from the nodes
+-- that changed to the final and points to the nodes of the versions before it for all other subtrees.
+
+CREATE TABLE IF NOT EXISTS standings_version
+(
+  tournament_id BIGINT NOT NULL REFERENCES tournament(id),
+  version INT NOT NULL,
+  -- the node of the final, NULL for a bracket without horses; it is stored along with the version
+  root_id BIGINT,
+  created_at TIMESTAMP NOT NULL,
+  PRIMARY KEY (tournament_id, version)
+);
+
+CREATE SEQUENCE IF NOT EXISTS standings_node_seq;
+
+-- the position of a node is as in the Bracket entity; subtrees without any horse have no nodes,
+-- so the children of a leaf and of such a subtree are NULL
+CREATE TABLE IF NOT EXISTS standings_node
+(
+  id BIGINT PRIMARY KEY,
+  tournament_id BIGINT NOT NULL,
+  version INT NOT NULL,
+  node INT NOT NULL,
+  horse_id BIGINT,
+  left_id BIGINT,
+  right_id BIGINT,
+  FOREIGN KEY (tournament_id, version) REFERENCES standings_version(tournament_id, version)
+);
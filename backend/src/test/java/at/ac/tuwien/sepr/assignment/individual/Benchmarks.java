@@ -0,0 +1,51 @@
+package at.ac.tuwien.sepr.assignment.individual;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+/**
+ * Helpers for the tests tagged {@value #TAG}, which measure instead of verify.
+ * They are excluded from the normal build and run with {@code mvn test -Pbenchmark}.
+ */
+public final class Benchmarks {
+  public static final String TAG = "benchmark";
+  private static final int WARMUP_RUNS = 3;
+  private static final int MEASURED_RUNS = 10;
+
+  private Benchmarks() {
+  }
+
+  /**
+   * Run the given task repeatedly and measure how long it takes.
+   * A few runs are made beforehand and not measured, so that the JIT compiler and caches have warmed up.
+   *
+   * @param task the task to measure
+   * @return the median duration of a run, in milliseconds
+   */
+  public static double medianMillis(Runnable task) {
+    for (int i = 0; i < WARMUP_RUNS; i++) {
+      task.run();
+    }
+    long[] nanos = new long[MEASURED_RUNS];
+    for (int i = 0; i < MEASURED_RUNS; i++) {
+      long start = System.nanoTime();
+      task.run();
+      nanos[i] = System.nanoTime() - start;
+    }
+    Arrays.sort(nanos);
+    return nanos[MEASURED_RUNS / 2] / 1_000_000.0;
+  }
+
+  /**
+   * Run the given task once and measure how much memory it allocates on the calling thread.
+   *
+   * @param task the task to measure
+   * @return the number of bytes allocated
+   */
+  public static long allocatedBytes(Runnable task) {
+    var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long before = threads.getCurrentThreadAllocatedBytes();
+    task.run();
+    return threads.getCurrentThreadAllocatedBytes() - before;
+  }
+}
@@ -0,0 +1,30 @@
+package at.ac.tuwien.sepr.assignment.individual.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import at.ac.tuwien.sepr.assignment.individual.TestBase;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles({"test", "datagen"})
+// enable "test" spring profile during test execution in order to pick up configuration from application-test.yml
+@SpringBootTest
+public class CaseFoldingTest extends TestBase {
+  // letters whose upper case depends on the locale or is longer than the letter itself
+  private static final List<String> NAMES = List.of("Spring Cup", "istanbul Derby", "Straße", "ﬁlly", "Ærø Ålborg",
+      "Ἀθῆναι", "Бурка", "");
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  @Test
+  public void upperIsTheSameAsTheDatabases() {
+    for (String name : NAMES) {
+      assertThat(CaseFolding.upper(name)).isEqualTo(jdbcTemplate.queryForObject("SELECT UPPER(?)", String.class, name));
+    }
+  }
+}
@@ -9,11 +9,15 @@ import at.ac.tuwien.sepr.assignment.individual.TestBase;
 import at.ac.tuwien.sepr.assignment.individual.dto.BreedDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.HorseDetailDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.HorseSearchDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.PageCursor;
 import at.ac.tuwien.sepr.assignment.individual.entity.Horse;
 import at.ac.tuwien.sepr.assignment.individual.exception.ConflictException;
 import at.ac.tuwien.sepr.assignment.individual.exception.FatalException;
 import at.ac.tuwien.sepr.assignment.individual.type.Sex;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -29,11 +33,11 @@ public class HorseDaoTest extends TestBase {
 
   @Test
   public void searchByBreedWelFindsThreeHorses() {
-    var searchDto = new HorseSearchDto(null, null, null, null, "Wel", null);
+    var searchDto = new HorseSearchDto(null, null, null, null, "Wel", null, null);
     var horses = horseDao.search(searchDto);
     assertNotNull(horses);
     assertThat(horses)
-        .usingRecursiveFieldByFieldElementComparator()
+        .usingRecursiveFieldByFieldElementComparatorIgnoringFields("version")
         .containsExactlyInAnyOrder(
             (new Horse())
                 .setId(-32L)
@@ -66,12 +70,12 @@ public class HorseDaoTest extends TestBase {
     var searchDto = new HorseSearchDto(null, null,
         LocalDate.of(2017, 3, 5),
         LocalDate.of(2018, 10, 10),
-        null, null);
+        null, null, null);
     var horses = horseDao.search(searchDto);
     assertNotNull(horses);
     assertThat(horses)
         .hasSize(4)
-        .usingRecursiveFieldByFieldElementComparator()
+        .usingRecursiveFieldByFieldElementComparatorIgnoringFields("version")
         .containsExactlyInAnyOrder(
             (new Horse())
                 .setId(-24L)
@@ -107,6 +111,123 @@ public class HorseDaoTest extends TestBase {
                 .setBreedId(-19L));
   }
 
+  @Test
+  public void searchByNameSubstringFindsAllMatchesIgnoringCase() {
+    var horses = horseDao.search(new HorseSearchDto("eLL", null, null, null, null, null, null));
+    assertThat(horses)
+        .extracting(Horse::getId)
+        .containsExactlyInAnyOrder(-3L, -9L, -21L);
+  }
+
+  @Test
+  public void searchByNameAppliesRemainingFilters() {
+    var horses = horseDao.search(new HorseSearchDto("ock", Sex.MALE, LocalDate.of(2010, 1, 1), null, "pony", null, null));
+    assertThat(horses)
+        .extracting(Horse::getId)
+        .containsExactly(-24L);
+  }
+
+  @Test
+  public void searchByNameWithoutMatchFindsNothing() {
+    var horses = horseDao.search(new HorseSearchDto("Xyz", null, null, null, null, null, null));
+    assertThat(horses).isEmpty();
+  }
+
+  @Test
+  public void searchPagesThroughAllHorsesSortedByNameAndId() {
+    var all = List.copyOf(horseDao.search(new HorseSearchDto(null, null, null, null, null, null, null)));
+    assertThat(all)
+        .hasSize(32)
+        .isSortedAccordingTo(Comparator.comparing(Horse::getName).thenComparing(Horse::getId));
+
+    assertThat(collectPages(null, 5)).containsExactlyElementsOf(all.stream().map(Horse::getId).toList());
+  }
+
+  @Test
+  public void searchByNamePagesThroughMatchesSortedByNameAndId() {
+    var all = List.copyOf(horseDao.search(new HorseSearchDto("a", null, null, null, null, null, null)));
+    assertThat(all)
+        .isNotEmpty()
+        .isSortedAccordingTo(Comparator.comparing(Horse::getName).thenComparing(Horse::getId));
+
+    assertThat(collectPages("a", 3)).containsExactlyElementsOf(all.stream().map(Horse::getId).toList());
+  }
+
+  @Test
+  public void searchByTrigramPagesThroughHorsesWithTheSameNameByTheirId() {
+    var all = List.copyOf(horseDao.search(new HorseSearchDto("ell", null, null, null, null, null, null)));
+    assertThat(all.stream().filter(horse -> horse.getName().equals("Bella"))).hasSizeGreaterThan(2);
+
+    for (int pageSize = 1; pageSize <= 3; pageSize++) {
+      assertThat(collectPages("ell", pageSize)).containsExactlyElementsOf(all.stream().map(Horse::getId).toList());
+    }
+  }
+
+  @Test
+  public void searchStreamFindsTheSameHorsesAsSearch() {
+    for (var searchDto : List.of(
+        new HorseSearchDto(null, null, null, null, "pony", null, null),
+        new HorseSearchDto("a", Sex.FEMALE, null, null, null, 4, null),
+        new HorseSearchDto("b_", null, null, null, null, null, null))) {
+      try (var stream = horseDao.searchStream(searchDto)) {
+        assertThat(stream.toList())
+            .usingRecursiveFieldByFieldElementComparator()
+            .containsExactlyElementsOf(horseDao.search(searchDto));
+      }
+    }
+  }
+
+  private List<Long> collectPages(String name, int pageSize) {
+    List<Long> ids = new ArrayList<>();
+    String cursor = null;
+    while (true) {
+      var page = List.copyOf(horseDao.search(new HorseSearchDto(name, null, null, null, null, pageSize, cursor)));
+      page.forEach(horse -> ids.add(horse.getId()));
+      if (page.size() < pageSize) {
+        return ids;
+      }
+      var last = page.get(page.size() - 1);
+      cursor = new PageCursor(last.getName(), last.getId()).encode();
+    }
+  }
+
+  @Test
+  public void searchByNameFindsCreatedUpdatedAndNotDeletedHorses() throws ConflictException {
+    var created = horseDao.create(new HorseDetailDto(null, "Trigramson", Sex.MALE, LocalDate.of(2010, 2, 20), 2, 320, null, null));
+    assertThat(horseDao.search(new HorseSearchDto("gramso", null, null, null, null, null, null)))
+        .extracting(Horse::getId)
+        .containsExactly(created.getId());
+
+    horseDao.update(new HorseDetailDto(created.getId(), "Renamed", Sex.MALE, LocalDate.of(2010, 2, 20), 2, 320, null, null));
+    assertThat(horseDao.search(new HorseSearchDto("gramso", null, null, null, null, null, null))).isEmpty();
+    assertThat(horseDao.search(new HorseSearchDto("named", null, null, null, null, null, null)))
+        .extracting(Horse::getId)
+        .containsExactly(created.getId());
+
+    horseDao.delete(created.getId());
+    assertThat(horseDao.search(new HorseSearchDto("named", null, null, null, null, null, null))).isEmpty();
+  }
+
+  @Test
+  public void updateWithCurrentVersionIncrementsVersion() throws Exception {
+    var horse = horseDao.getById(-1L);
+    var updated = horseDao.update(new HorseDetailDto(-1L, "Wendy", Sex.FEMALE, LocalDate.of(2019, 8, 5), 1.4f, 380,
+        null, horse.getVersion()));
+    assertThat(updated.getVersion()).isEqualTo(horse.getVersion() + 1);
+    assertThat(horseDao.getById(-1L).getVersion()).isEqualTo(horse.getVersion() + 1);
+  }
+
+  @Test
+  public void updateWithStaleVersionThrowsConflictException() throws Exception {
+    var stale = horseDao.getById(-1L).getVersion();
+    horseDao.update(new HorseDetailDto(-1L, "Wendy", Sex.FEMALE, LocalDate.of(2019, 8, 5), 1.4f, 380, null, stale));
+
+    var e = assertThrows(ConflictException.class, () -> horseDao.update(
+        new HorseDetailDto(-1L, "Other Wendy", Sex.FEMALE, LocalDate.of(2019, 8, 5), 1.4f, 380, null, stale)));
+    assertThat(e.errors()).containsExactly("Horse with ID -1 was changed in the meantime");
+    assertThat(horseDao.getById(-1L).getName()).isEqualTo("Wendy");
+  }
+
   @Test
   public void createHorseSuccessfully() {
     HorseDetailDto horse = new HorseDetailDto(
@@ -116,7 +237,7 @@ public class HorseDaoTest extends TestBase {
         LocalDate.of(2010, 2, 20),
         2,
         320,
-        new BreedDto(-19L, "Welsh Cob")
+        new BreedDto(-19L, "Welsh Cob"), null
         );
     var createdHorse = horseDao.create(horse);
     assertNotNull(createdHorse);
@@ -138,7 +259,7 @@ public class HorseDaoTest extends TestBase {
         LocalDate.of(2010, 2, 20),
         2,
         320,
-        null
+        null, null
     );
 
     assertThrows(ConflictException.class, () -> horseDao.update(horseDetailDto));
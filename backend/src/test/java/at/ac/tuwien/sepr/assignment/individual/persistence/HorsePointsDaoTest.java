@@ -0,0 +1,102 @@
+package at.ac.tuwien.sepr.assignment.individual.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import at.ac.tuwien.sepr.assignment.individual.TestBase;
+import at.ac.tuwien.sepr.assignment.individual.dto.HorsePointsDiscrepancyDto;
+import at.ac.tuwien.sepr.assignment.individual.entity.HorseTournament;
+import at.ac.tuwien.sepr.assignment.individual.exception.ConflictException;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles({"test", "datagen"})
+// enable "test" spring profile during test execution in order to pick up configuration from application-test.yml
+@SpringBootTest
+public class HorsePointsDaoTest extends TestBase {
+
+  private static final LocalDate END_OF_TOURNAMENT_1 = LocalDate.of(2011, 1, 31);
+
+  @Autowired
+  HorsePointsDao horsePointsDao;
+
+  @Autowired
+  HorseTournamentDao horseTournamentDao;
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  private List<Integer> pointsOf(long horseId, LocalDate endDate) {
+    return jdbcTemplate.queryForList("SELECT points FROM horse_points WHERE horse_id = ? AND end_date = ?",
+        Integer.class, horseId, endDate);
+  }
+
+  @Test
+  public void generatedDataIsConsistent() {
+    assertThat(horsePointsDao.check()).isEmpty();
+    // -8 won tournament -1
+    assertThat(pointsOf(-8L, END_OF_TOURNAMENT_1)).containsExactly(5);
+    // -7 dropped out in the first round
+    assertThat(pointsOf(-7L, END_OF_TOURNAMENT_1)).isEmpty();
+  }
+
+  @Test
+  public void updateStandingsMaintainsPoints() throws Exception {
+    horseTournamentDao.updateStandings(-1L, -8L, 1, 1, null);
+    horseTournamentDao.updateStandings(-1L, -7L, 2, 3, null);
+
+    assertThat(pointsOf(-8L, END_OF_TOURNAMENT_1)).isEmpty();
+    assertThat(pointsOf(-7L, END_OF_TOURNAMENT_1)).containsExactly(3);
+    assertThat(horsePointsDao.check()).isEmpty();
+
+    horseTournamentDao.updateStandings(-1L, -7L, 2, 4, null);
+    assertThat(pointsOf(-7L, END_OF_TOURNAMENT_1)).containsExactly(5);
+    assertThat(horsePointsDao.check()).isEmpty();
+  }
+
+  @Test
+  public void updateStandingsOfSeveralHorsesMaintainsPointsInOneBatch() throws Exception {
+    // the final is turned around and -5 loses the quarterfinal it won
+    horseTournamentDao.updateStandings(-1L, List.of(
+        new HorseTournament(-8L, -1L, 1, 3, null),
+        new HorseTournament(-7L, -1L, 2, 4, null),
+        new HorseTournament(-5L, -1L, 4, 1, null)));
+
+    assertThat(pointsOf(-8L, END_OF_TOURNAMENT_1)).containsExactly(3);
+    assertThat(pointsOf(-7L, END_OF_TOURNAMENT_1)).containsExactly(5);
+    assertThat(pointsOf(-5L, END_OF_TOURNAMENT_1)).isEmpty();
+    assertThat(horsePointsDao.check()).isEmpty();
+  }
+
+  @Test
+  public void rejectedUpdateLeavesPointsUnchanged() {
+    assertThrows(ConflictException.class, () -> horseTournamentDao.updateStandings(-1L, -8L, 1, 1, 42));
+    assertThrows(ConflictException.class, () -> horseTournamentDao.updateStandings(-1L, -32L, 1, 4, null));
+
+    assertThat(pointsOf(-8L, END_OF_TOURNAMENT_1)).containsExactly(5);
+    assertThat(pointsOf(-32L, END_OF_TOURNAMENT_1)).isEmpty();
+    assertThat(horsePointsDao.check()).isEmpty();
+  }
+
+  @Test
+  public void checkFindsDifferencesAndRebuildRepairsThem() {
+    jdbcTemplate.update("UPDATE horse_points SET points = 7 WHERE horse_id = -8 AND end_date = ?", END_OF_TOURNAMENT_1);
+    jdbcTemplate.update("INSERT INTO horse_points (horse_id, end_date, points) VALUES (-7, ?, 1)", END_OF_TOURNAMENT_1);
+
+    assertThat(horsePointsDao.check())
+        .extracting(HorsePointsDiscrepancyDto::horseId, HorsePointsDiscrepancyDto::endDate,
+            HorsePointsDiscrepancyDto::stored, HorsePointsDiscrepancyDto::expected)
+        .containsExactly(
+            tuple(-8L, END_OF_TOURNAMENT_1, 7, 5),
+            tuple(-7L, END_OF_TOURNAMENT_1, 1, 0));
+
+    assertThat(horsePointsDao.rebuild()).isPositive();
+    assertThat(horsePointsDao.check()).isEmpty();
+  }
+}
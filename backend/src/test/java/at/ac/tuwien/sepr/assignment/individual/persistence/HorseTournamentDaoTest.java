@@ -9,8 +9,10 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.util.Collection;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
@@ -45,10 +47,36 @@ public class HorseTournamentDaoTest extends TestBase {
     int entryNumber = 1;
     int roundReached = 2;
 
-    assertThrows(ConflictException.class, () -> horseTournamentDao.updateStandings(nonExistingTournamentId, horseId, entryNumber, roundReached));
+    assertThrows(ConflictException.class, () -> horseTournamentDao.updateStandings(nonExistingTournamentId, horseId, entryNumber, roundReached, null));
   }
 
+  @Test
+  public void updateStandingsWithStaleVersionThrowsConflictException() throws ConflictException {
+    var participation = horseTournamentDao.getHorsesByIDTournament(-1L).iterator().next();
+    var version = participation.getVersion();
+    horseTournamentDao.updateStandings(-1L, participation.getHorseId(), 1, 2, version);
 
+    assertThrows(ConflictException.class,
+        () -> horseTournamentDao.updateStandings(-1L, participation.getHorseId(), 1, 3, version));
+    assertThat(horseTournamentDao.getHorsesByIDTournament(-1L))
+        .filteredOn(horse -> horse.getHorseId().equals(participation.getHorseId()))
+        .extracting(HorseTournament::getRoundReached, HorseTournament::getVersion)
+        .containsExactly(tuple(2, version + 1));
+  }
 
+  @Test
+  public void updateStandingsBatchWithOneStaleParticipationUpdatesNone() {
+    var stale = List.of(
+        new HorseTournament(-8L, -1L, 1, 3, 0),
+        new HorseTournament(-7L, -1L, 2, 2, 42));
 
+    var e = assertThrows(ConflictException.class, () -> horseTournamentDao.updateStandings(-1L, stale));
+    assertThat(e.errors()).containsExactly(
+        "Horse -7 does not participate in tournament -1 or its standing was changed in the meantime");
+    assertThat(horseTournamentDao.getHorsesByIDTournament(-1L))
+        .filteredOn(horse -> horse.getHorseId() >= -8L)
+        .extracting(HorseTournament::getHorseId, HorseTournament::getRoundReached, HorseTournament::getVersion)
+        .containsExactlyInAnyOrder(tuple(-8L, 4, 0), tuple(-7L, 1, 0), tuple(-5L, 2, 0), tuple(-4L, 3, 0),
+            tuple(-3L, 2, 0), tuple(-1L, 1, 0));
+  }
 }
@@ -0,0 +1,54 @@
+package at.ac.tuwien.sepr.assignment.individual.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import at.ac.tuwien.sepr.assignment.individual.TestBase;
+import at.ac.tuwien.sepr.assignment.individual.exception.FatalException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles({"test", "datagen"})
+// enable "test" spring profile during test execution in order to pick up configuration from application-test.yml
+@SpringBootTest
+public class SchemaMigrationRunnerTest extends TestBase {
+
+  @Autowired
+  SchemaMigrationRunner migrationRunner;
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  @Test
+  public void allMigrationsAreAppliedOnStartupWithTheirChecksums() {
+    var history = jdbcTemplate.queryForList("SELECT version, description, checksum FROM schema_version ORDER BY version");
+    assertThat(history)
+        .extracting(row -> row.get("VERSION"), row -> row.get("DESCRIPTION"))
+        .containsExactly(tuple(1, "create schema"), tuple(2, "performance indexes"),
+            tuple(3, "horse points"), tuple(4, "bracket size"), tuple(5, "standings history"));
+    assertThat(history)
+        .extracting(row -> (String) row.get("CHECKSUM"))
+        .allSatisfy(checksum -> assertThat(checksum).matches("[0-9a-f]{64}"));
+  }
+
+  @Test
+  public void migrationsAreAppliedOnlyOnce() {
+    assertThat(migrationRunner.migrate()).isZero();
+  }
+
+  @Test
+  public void changedMigrationFailsTheMigration() {
+    var checksum = jdbcTemplate.queryForObject("SELECT checksum FROM schema_version WHERE version = 1", String.class);
+    jdbcTemplate.update("UPDATE schema_version SET checksum = ? WHERE version = 1", "0".repeat(64));
+    try {
+      var e = assertThrows(FatalException.class, () -> migrationRunner.migrate());
+      assertThat(e.getMessage()).contains("V1");
+    } finally {
+      jdbcTemplate.update("UPDATE schema_version SET checksum = ? WHERE version = 1", checksum);
+    }
+  }
+}
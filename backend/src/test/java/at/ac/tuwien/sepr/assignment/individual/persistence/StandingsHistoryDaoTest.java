@@ -0,0 +1,105 @@
+package at.ac.tuwien.sepr.assignment.individual.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import at.ac.tuwien.sepr.assignment.individual.TestBase;
+import at.ac.tuwien.sepr.assignment.individual.exception.ConflictException;
+import at.ac.tuwien.sepr.assignment.individual.exception.NotFoundException;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles({"test", "datagen"})
+// enable "test" spring profile during test execution in order to pick up configuration from application-test.yml
+@SpringBootTest
+public class StandingsHistoryDaoTest extends TestBase {
+
+  @Autowired
+  StandingsHistoryDao standingsHistoryDao;
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  private int nodesStoredWith(int version) {
+    return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM standings_node WHERE tournament_id = -1 AND version = ?",
+        Integer.class, version);
+  }
+
+  private int enterEightHorses() throws Exception {
+    Map<Integer, Long> entries = new HashMap<>();
+    for (int entry = 1; entry <= 8; entry++) {
+      entries.put(7 + entry, (long) -entry);
+    }
+    return standingsHistoryDao.addVersion(-1L, 0, entries);
+  }
+
+  @Test
+  public void generatedDataHasNoHistory() {
+    assertThat(standingsHistoryDao.getLatestVersion(-1L)).isZero();
+    assertThat(standingsHistoryDao.getVersions(-1L)).isEmpty();
+  }
+
+  @Test
+  public void addVersionStoresOnlyThePathsOfTheChanges() throws Exception {
+    assertThat(enterEightHorses()).isEqualTo(1);
+    assertThat(nodesStoredWith(1)).isEqualTo(15);
+
+    // the winner of the first match reaches node 4, below the semifinal at node 2 and the final
+    assertThat(standingsHistoryDao.addVersion(-1L, 1, Map.of(4, -1L))).isEqualTo(2);
+    assertThat(nodesStoredWith(2)).isEqualTo(3);
+
+    var version = standingsHistoryDao.getVersion(-1L, 2, 8);
+    assertThat(version.getHorseIds()).containsExactly(0, 0, 0, 0, -1, 0, 0, 0, -1, -2, -3, -4, -5, -6, -7, -8);
+    var before = standingsHistoryDao.getVersion(-1L, 1, 8);
+    assertThat(before.getHorseIds()[4]).isZero();
+    // all but the path from node 4 to the final is shared
+    for (int node = 1; node < 16; node++) {
+      if (node == 1 || node == 2 || node == 4) {
+        assertThat(version.getNodeIds()[node]).isNotEqualTo(before.getNodeIds()[node]);
+      } else {
+        assertThat(version.getNodeIds()[node]).isEqualTo(before.getNodeIds()[node]);
+      }
+    }
+    assertThat(standingsHistoryDao.getVersions(-1L)).extracting(v -> v.getVersion()).containsExactly(1, 2);
+    assertThat(standingsHistoryDao.getLatestVersion(-1L)).isEqualTo(2);
+  }
+
+  @Test
+  public void addVersionLeavesOutSubtreesWithoutHorses() throws Exception {
+    enterEightHorses();
+    Map<Integer, Long> removed = new HashMap<>();
+    for (int leaf = 8; leaf <= 11; leaf++) {
+      removed.put(leaf, 0L);
+    }
+    standingsHistoryDao.addVersion(-1L, 1, removed);
+
+    // the left half is empty, only the final is new
+    assertThat(nodesStoredWith(2)).isEqualTo(1);
+    var nodeIds = standingsHistoryDao.getVersion(-1L, 2, 8).getNodeIds();
+    assertThat(nodeIds[2]).isZero();
+    assertThat(nodeIds[4]).isZero();
+    assertThat(nodeIds[8]).isZero();
+    assertThat(nodeIds[3]).isEqualTo(standingsHistoryDao.getVersion(-1L, 1, 8).getNodeIds()[3]);
+  }
+
+  @Test
+  public void addVersionOnAnOutdatedVersionThrowsConflictException() throws Exception {
+    enterEightHorses();
+    standingsHistoryDao.addVersion(-1L, 1, Map.of(4, -1L));
+
+    assertThrows(ConflictException.class, () -> standingsHistoryDao.addVersion(-1L, 1, Map.of(4, -2L)));
+  }
+
+  @Test
+  public void getVersionThatDoesNotExistThrowsNotFoundException() throws Exception {
+    enterEightHorses();
+
+    assertThrows(NotFoundException.class, () -> standingsHistoryDao.getVersion(-1L, 2, 8));
+    assertThrows(NotFoundException.class, () -> standingsHistoryDao.getVersion(-2L, 1, 8));
+  }
+}
@@ -0,0 +1,140 @@
+package at.ac.tuwien.sepr.assignment.individual.persistence.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import at.ac.tuwien.sepr.assignment.individual.TestBase;
+import at.ac.tuwien.sepr.assignment.individual.dto.HorseSearchDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.PageCursor;
+import at.ac.tuwien.sepr.assignment.individual.dto.TournamentSearchParamsDto;
+import at.ac.tuwien.sepr.assignment.individual.type.Sex;
+import java.time.LocalDate;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles({"test", "datagen"})
+// enable "test" spring profile during test execution in order to pick up configuration from application-test.yml
+@SpringBootTest
+public class SearchQueryPlanTest extends TestBase {
+
+  @Autowired
+  HorseJdbcDao horseDao;
+
+  @Autowired
+  TournamentJdbcDao tournamentDao;
+
+  @Autowired
+  NamedParameterJdbcTemplate jdbcNamed;
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  private String explain(String query) {
+    var params = new MapSqlParameterSource()
+        .addValue("name", "a")
+        .addValue("ids", new Long[] {-1L, -2L})
+        .addValue("sex", Sex.FEMALE.toString())
+        .addValue("bornEarliest", LocalDate.of(2010, 1, 1))
+        .addValue("bornLatest", LocalDate.of(2015, 1, 1))
+        .addValue("breed", "pony")
+        .addValue("startDate", LocalDate.of(2023, 1, 1))
+        .addValue("endDate", LocalDate.of(2023, 12, 31))
+        .addValue("afterName", "Bella")
+        .addValue("afterId", -21L)
+        .addValue("afterStartDate", LocalDate.of(2023, 1, 1))
+        .addValue("limit", 10);
+    return jdbcNamed.queryForObject("EXPLAIN " + query, params, String.class);
+  }
+
+  @Test
+  public void searchWithoutParametersHasNoPredicates() {
+    var query = horseDao.searchQuery(new HorseSearchDto(null, null, null, null, null, null, null), false);
+    assertThat(query).doesNotContain("WHERE", "IS NULL", "JOIN");
+  }
+
+  @Test
+  public void searchShapeIsBuiltOnce() {
+    var first = horseDao.searchQuery(new HorseSearchDto(null, Sex.MALE, null, null, "a", null, null), false);
+    var second = horseDao.searchQuery(new HorseSearchDto(null, Sex.FEMALE, null, null, "b", null, null), false);
+    assertThat(second).isSameAs(first);
+  }
+
+  @Test
+  public void searchByCandidatesUsesPrimaryKey() {
+    var query = horseDao.searchQuery(new HorseSearchDto("a", null, null, null, null, 10, null), true);
+    assertThat(explain(query))
+        .contains("PRIMARY_KEY")
+        .doesNotContain("HORSE.tableScan");
+  }
+
+  @Test
+  public void searchByDateOfBirthUsesIndex() {
+    var query = horseDao.searchQuery(
+        new HorseSearchDto(null, null, LocalDate.of(2010, 1, 1), LocalDate.of(2015, 1, 1), null, null, null), false);
+    assertThat(explain(query))
+        .contains("HORSE_DATE_OF_BIRTH_IDX")
+        .doesNotContain("HORSE.tableScan");
+  }
+
+  @Test
+  public void searchByBreedUsesForeignKeyIndex() {
+    var query = horseDao.searchQuery(new HorseSearchDto(null, null, null, null, "pony", null, null), false);
+    assertThat(explain(query))
+        .contains("BREED_ID IN(SELECT")
+        .doesNotContain("HORSE.tableScan");
+  }
+
+  @Test
+  public void searchAfterCursorSeeksInSortedIndex() {
+    var cursor = new PageCursor("Bella", -21L).encode();
+    var query = horseDao.searchQuery(new HorseSearchDto(null, null, null, null, null, 10, cursor), false);
+    assertThat(explain(query))
+        .contains("HORSE_NAME_IDX: NAME >=", "index sorted")
+        .doesNotContain("HORSE.tableScan");
+  }
+
+  @Test
+  public void searchTournamentsAfterCursorSeeksInSortedIndex() {
+    var cursor = new PageCursor("2023-01-01", -1L).encode();
+    var query = tournamentDao.searchQuery(new TournamentSearchParamsDto(null, null, null, 10, cursor));
+    assertThat(explain(query))
+        .contains("TOURNAMENT_START_DATE_IDX: START_DATE >=", "index sorted")
+        .doesNotContain("TOURNAMENT.tableScan");
+  }
+
+  @Test
+  public void searchTournamentsByPeriodUsesIndex() {
+    var query = tournamentDao.searchQuery(
+        new TournamentSearchParamsDto(null, LocalDate.of(2023, 1, 1), LocalDate.of(2023, 12, 31), null, null));
+    assertThat(explain(query))
+        .containsPattern("TOURNAMENT_(START|END)_DATE_IDX")
+        .doesNotContain("TOURNAMENT.tableScan");
+  }
+
+  @Test
+  public void searchTournamentsByStartDateOnlyHasNoPredicates() {
+    var query = tournamentDao.searchQuery(new TournamentSearchParamsDto(null, LocalDate.of(2023, 1, 1), null, null, null));
+    assertThat(query).doesNotContain("WHERE");
+  }
+
+  @Test
+  public void tournamentsOfHorseUseIndex() {
+    var plan = jdbcTemplate.queryForObject("EXPLAIN " + HorseTournamentJdbcDao.SQL_SEARCH_HORSE_BY_ID_HORSE, String.class, -1L);
+    assertThat(plan)
+        .containsPattern("/\\* PUBLIC\\.\\w+: HORSE_ID = \\?1 \\*/")
+        .doesNotContain("TOURNAMENT_HORSES.tableScan");
+  }
+
+  @Test
+  public void rankingPointsAreARangeSumOverThePointsKey() {
+    var plan = jdbcTemplate.queryForObject("EXPLAIN " + HorseTournamentJdbcDao.SQL_RANKING_POINTS, String.class,
+        LocalDate.of(2010, 1, 1), LocalDate.of(2010, 12, 31), -1L);
+    assertThat(plan)
+        .containsPattern("\"HORSE_POINTS\" \"HP\"\\s+/\\* PUBLIC\\.PRIMARY_KEY_\\w+: END_DATE >= \\?1\\s+AND END_DATE <= \\?2\\s+AND HORSE_ID = P\\.HORSE_ID")
+        .doesNotContain("HORSE_POINTS.tableScan", "TOURNAMENT_HORSES.tableScan");
+  }
+}
@@ -0,0 +1,89 @@
+package at.ac.tuwien.sepr.assignment.individual.persistence.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import at.ac.tuwien.sepr.assignment.individual.TestBase;
+import at.ac.tuwien.sepr.assignment.individual.dto.PageCursor;
+import at.ac.tuwien.sepr.assignment.individual.dto.TournamentCreateDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.TournamentSearchParamsDto;
+import at.ac.tuwien.sepr.assignment.individual.entity.Tournament;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles({"test", "datagen"})
+// enable "test" spring profile during test execution in order to pick up configuration from application-test.yml
+@SpringBootTest
+public class TournamentDateIndexTest extends TestBase {
+  private static final List<String> NAMES = List.of("Spring Cup", "spring derby", "Autumn Classic", "Winter Trophy",
+      "Grand Prix", "GRAND national", "Summer Cup");
+  private static final List<String> SEARCHED_NAMES = List.of("cup", "SPRING", "grand", "r", "Trophy", "xyz", "");
+  private static final LocalDate EPOCH = LocalDate.of(2005, 1, 1);
+
+  @Autowired
+  TournamentJdbcDao tournamentDao;
+
+  @Autowired
+  TournamentDateIndex dateIndex;
+
+  @Test
+  public void indexFindsTheSameTournamentsAsTheDatabase() {
+    var random = new Random(42);
+    // created through the DAO, so that the index is maintained instead of rebuilt
+    for (int i = 0; i < 300; i++) {
+      var start = EPOCH.plusDays(random.nextInt(20 * 365));
+      tournamentDao.create(new TournamentCreateDto(NAMES.get(random.nextInt(NAMES.size())), start,
+          start.plusDays(random.nextInt(random.nextBoolean() ? 10 : 800)), List.of()));
+    }
+
+    for (int i = 0; i < 500; i++) {
+      var from = EPOCH.plusDays(random.nextInt(21 * 365) - 180);
+      var to = from.plusDays(random.nextInt(400) - 20);
+      var name = random.nextInt(3) == 0 ? null : SEARCHED_NAMES.get(random.nextInt(SEARCHED_NAMES.size()));
+      var limit = random.nextBoolean() ? null : 1 + random.nextInt(20);
+      assertSameResults(new TournamentSearchParamsDto(name, from, to, limit, null));
+    }
+  }
+
+  @Test
+  public void indexPagesThroughTheSameTournamentsAsTheDatabase() {
+    for (int limit = 1; limit <= 3; limit++) {
+      String cursor = null;
+      List<Tournament> page;
+      do {
+        var params = new TournamentSearchParamsDto(null, LocalDate.of(2006, 1, 1), LocalDate.of(2010, 6, 1), limit, cursor);
+        page = assertSameResults(params);
+        if (!page.isEmpty()) {
+          var last = page.get(page.size() - 1);
+          cursor = new PageCursor(last.getStartDate().toString(), last.getId()).encode();
+        }
+      } while (page.size() == limit);
+    }
+  }
+
+  @Test
+  public void searchesWithWildcardsOrOpenPeriodsGoToTheDatabase() {
+    assertThat(dateIndex.canAnswer(new TournamentSearchParamsDto("a%b", LocalDate.of(2006, 1, 1), LocalDate.of(2010, 1, 1), null, null)))
+        .isFalse();
+    assertThat(dateIndex.canAnswer(new TournamentSearchParamsDto("a_b", LocalDate.of(2006, 1, 1), LocalDate.of(2010, 1, 1), null, null)))
+        .isFalse();
+    assertThat(dateIndex.canAnswer(new TournamentSearchParamsDto(null, LocalDate.of(2006, 1, 1), null, null, null)))
+        .isFalse();
+    assertThat(dateIndex.canAnswer(new TournamentSearchParamsDto("Test", LocalDate.of(2006, 1, 1), LocalDate.of(2010, 1, 1), null, null)))
+        .isTrue();
+  }
+
+  private List<Tournament> assertSameResults(TournamentSearchParamsDto params) {
+    assertThat(dateIndex.canAnswer(params)).isTrue();
+    var fromIndex = List.copyOf(tournamentDao.search(params));
+    assertThat(fromIndex)
+        .as("search for %s", params)
+        .usingRecursiveFieldByFieldElementComparator()
+        .containsExactlyElementsOf(tournamentDao.searchInDatabase(params));
+    return fromIndex;
+  }
+}
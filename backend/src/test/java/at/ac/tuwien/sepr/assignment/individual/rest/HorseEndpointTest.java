@@ -5,12 +5,17 @@ import static org.assertj.core.api.Assertions.tuple;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.skyscreamer.jsonassert.JSONAssert.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import at.ac.tuwien.sepr.assignment.individual.TestBase;
 import at.ac.tuwien.sepr.assignment.individual.dto.BreedDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.HorseDetailDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.HorseListDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.PageCursor;
 import at.ac.tuwien.sepr.assignment.individual.type.Sex;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.time.LocalDate;
@@ -136,7 +141,105 @@ public class HorseEndpointTest extends TestBase {
                 "Welsh Cob"));
   }
 
+  @Test
+  public void searchWithLimitReturnsCursorOfNextPage() throws Exception {
+    var firstPage = mockMvc
+        .perform(MockMvcRequestBuilders
+            .get("/horses")
+            .queryParam("limit", "2")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk())
+        .andExpect(header().exists(PageCursor.NEXT_CURSOR_HEADER))
+        .andReturn().getResponse();
+
+    var secondPage = mockMvc
+        .perform(MockMvcRequestBuilders
+            .get("/horses")
+            .queryParam("limit", "2")
+            .queryParam("cursor", firstPage.getHeader(PageCursor.NEXT_CURSOR_HEADER))
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsByteArray();
+
+    List<HorseListDto> horses = new ArrayList<>();
+    objectMapper.readerFor(HorseListDto.class).<HorseListDto>readValues(firstPage.getContentAsByteArray())
+        .forEachRemaining(horses::add);
+    objectMapper.readerFor(HorseListDto.class).<HorseListDto>readValues(secondPage)
+        .forEachRemaining(horses::add);
+    assertThat(horses)
+        .extracting(HorseListDto::id, HorseListDto::name)
+        .containsExactly(tuple(-6L, "Apollo"), tuple(-21L, "Bella"), tuple(-9L, "Bella"), tuple(-3L, "Bella"));
+  }
+
+  @Test
+  public void exportStreamsMatchingHorsesAsNdjson() throws Exception {
+    var result = mockMvc
+        .perform(MockMvcRequestBuilders
+            .get("/horses")
+            .queryParam("name", "a")
+            .accept("application/x-ndjson"))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+    var body = mockMvc
+        .perform(asyncDispatch(result))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType("application/x-ndjson"))
+        .andReturn().getResponse().getContentAsString();
+
+    var lines = body.split("\n");
+    List<HorseListDto> horses = new ArrayList<>();
+    for (String line : lines) {
+      horses.add(objectMapper.readValue(line, HorseListDto.class));
+    }
+    assertThat(body).endsWith("\n");
+    assertThat(horses)
+        .isNotEmpty()
+        .allSatisfy(horse -> assertThat(horse.name()).containsIgnoringCase("a"))
+        .extracting(HorseListDto::id, HorseListDto::name, (h) -> h.breed().name())
+        .contains(tuple(-32L, "Luna", "Welsh Cob"), tuple(-11L, "Daisy", "Hanoverian"));
+  }
+
+  @Test
+  public void searchWithInvalidCursorReturns422() throws Exception {
+    mockMvc
+        .perform(MockMvcRequestBuilders
+            .get("/horses")
+            .queryParam("cursor", "not-a-cursor")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isUnprocessableEntity());
+  }
+
   // checks if a certain horse can be successfully created, positive test
+  @Test
+  public void importNdjsonReportsImportedAndInvalidRows() throws Exception {
+    var body = """
+        {"name":"Uploaded","sex":"MALE","dateOfBirth":"2015-01-01","height":1.6,"weight":500,"breed":"Haflinger"}
+        {"name":"Uploaded Unicorn","sex":"MALE","dateOfBirth":"2015-01-01","height":1.6,"weight":500,"breed":"Unicorn"}
+        """;
+    byte[] response = mockMvc
+        .perform(MockMvcRequestBuilders
+            .post("/horses/import")
+            .contentType("application/x-ndjson")
+            .content(body)
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsByteArray();
+
+    assertEquals("""
+        {"rows":2,"imported":1,"failed":1,"errors":[{"line":2,"errors":["Breed does not exist"]}]}
+        """, new String(response), true);
+  }
+
+  @Test
+  public void importCsvWithoutHeaderReturns422() throws Exception {
+    mockMvc
+        .perform(MockMvcRequestBuilders
+            .post("/horses/import")
+            .contentType("text/csv")
+            .content(""))
+        .andExpect(status().isUnprocessableEntity());
+  }
+
   @Test
   public void createHorseSuccessfully() throws Exception {
     // Prepare a new horse to create
@@ -147,7 +250,7 @@ public class HorseEndpointTest extends TestBase {
         LocalDate.of(2022, 4, 10),
         1,
         500,
-        new BreedDto(-20, "Welsh Cob")
+        new BreedDto(-20, "Welsh Cob"), null
     );
 
     // Convert the horse object to JSON string
@@ -167,7 +270,7 @@ public class HorseEndpointTest extends TestBase {
 
     // Verify that the created horse is not null
     assertNotNull(createdHorse.id());
-    assertTrue(createdHorse.id() == -100L);
+    assertTrue(createdHorse.id() > 0); // the ID is generated by the database, the given one is ignored
     assertNotNull(createdHorse.name());
     assertTrue(createdHorse.name().equals("NewHorse"));
     assertNotNull(createdHorse.dateOfBirth());
@@ -188,7 +291,8 @@ public class HorseEndpointTest extends TestBase {
         LocalDate.of(2010, 2, 20),
         2,
         320,
-        new BreedDto(-21, "Invalid Breed") // Invalid breed
+        new BreedDto(-21, "Invalid Breed"), // Invalid breed
+        null
     );
 
     // Convert the horse object to JSON string
@@ -1,6 +1,7 @@
 package at.ac.tuwien.sepr.assignment.individual.rest;
 
 import at.ac.tuwien.sepr.assignment.individual.TestBase;
+import at.ac.tuwien.sepr.assignment.individual.dto.MatchResultDto;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,6 +17,8 @@ import org.springframework.web.context.WebApplicationContext;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
 
 
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ActiveProfiles({"test", "datagen"}) // enable "test" spring profile during test execution in order to pick up configuration from application-test.yml
@@ -55,5 +58,87 @@ public class TournamentEndpointTest extends TestBase {
         .andExpect(status().isOk());
   }
 
+  @Test
+  public void recordResultOfDecidedMatchReturns409() throws Exception {
+    mockMvc.perform(MockMvcRequestBuilders
+            .patch("/tournaments/{id}/matches/{round}/{slot}", -1L, 3, 1)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(new MatchResultDto(-8L))))
+        .andExpect(status().isConflict());
+  }
+
+  @Test
+  public void recordResultOfNonexistentMatchReturns422() throws Exception {
+    mockMvc.perform(MockMvcRequestBuilders
+            .patch("/tournaments/{id}/matches/{round}/{slot}", -1L, 4, 1)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(new MatchResultDto(-8L))))
+        .andExpect(status().isUnprocessableEntity());
+  }
 
+  @Test
+  public void recordResultOfNonexistentTournamentReturns404() throws Exception {
+    mockMvc.perform(MockMvcRequestBuilders
+            .patch("/tournaments/{id}/matches/{round}/{slot}", -999L, 1, 1)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(new MatchResultDto(-8L))))
+        .andExpect(status().isNotFound());
+  }
+
+  @Test
+  public void predictionsOfDecidedTournamentReturn200WithCertainOutcomes() throws Exception {
+    mockMvc.perform(MockMvcRequestBuilders
+            .get("/tournaments/{id}/predictions", -1L)
+            .param("simulations", "1000")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(8))
+        .andExpect(jsonPath("$[0].horseId").value(-8))
+        .andExpect(jsonPath("$[0].reachProbabilities").value(contains(1.0, 1.0, 1.0, 1.0)));
+  }
+
+  @Test
+  public void predictionsWithoutSimulationsReturn422() throws Exception {
+    mockMvc.perform(MockMvcRequestBuilders
+            .get("/tournaments/{id}/predictions", -1L)
+            .param("simulations", "0"))
+        .andExpect(status().isUnprocessableEntity());
+  }
+
+  @Test
+  public void predictionsAboveTheLimitForTheBracketSizeReturn422() throws Exception {
+    // a bracket of 8 horses has 7 matches
+    mockMvc.perform(MockMvcRequestBuilders
+            .get("/tournaments/{id}/predictions", -1L)
+            .param("simulations", "14285715"))
+        .andExpect(status().isUnprocessableEntity());
+  }
+
+  @Test
+  public void predictionsOfNonexistentTournamentReturn404() throws Exception {
+    mockMvc.perform(MockMvcRequestBuilders
+            .get("/tournaments/{id}/predictions", -999L))
+        .andExpect(status().isNotFound());
+  }
+
+  @Test
+  public void standingsVersionsOfTournamentWithoutHistoryReturn200WithNone() throws Exception {
+    mockMvc.perform(MockMvcRequestBuilders
+            .get("/tournaments/standings/{id}/versions", -1L)
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(0));
+  }
+
+  @Test
+  public void standingsVersionThatDoesNotExistReturns404() throws Exception {
+    mockMvc.perform(MockMvcRequestBuilders
+            .get("/tournaments/standings/{id}/versions/{version}", -1L, 1))
+        .andExpect(status().isNotFound());
+    mockMvc.perform(MockMvcRequestBuilders
+            .get("/tournaments/standings/{id}/changes", -1L)
+            .param("from", "1")
+            .param("to", "2"))
+        .andExpect(status().isNotFound());
+  }
 }
@@ -0,0 +1,105 @@
+package at.ac.tuwien.sepr.assignment.individual.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import at.ac.tuwien.sepr.assignment.individual.TestBase;
+import at.ac.tuwien.sepr.assignment.individual.dto.BreedDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.BreedSearchDto;
+import at.ac.tuwien.sepr.assignment.individual.mapper.BreedMapper;
+import at.ac.tuwien.sepr.assignment.individual.persistence.BreedDao;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles({"test", "datagen"}) // enable "test" spring profile during test execution in order to pick up configuration from application-test.yml
+@SpringBootTest
+public class BreedServiceTest extends TestBase {
+
+  @Autowired
+  BreedService breedService;
+
+  @Autowired
+  BreedDao breedDao;
+
+  @Autowired
+  BreedMapper breedMapper;
+
+  @Test
+  public void searchFromCacheFindsTheSameBreedsAsTheDatabase() {
+    for (var searchParams : List.of(
+        new BreedSearchDto("pony", null),
+        new BreedSearchDto("A", 3),
+        new BreedSearchDto("", null),
+        new BreedSearchDto("", 0),
+        new BreedSearchDto("Xyz", null),
+        new BreedSearchDto(null, null))) {
+      var before = breedService.cacheStats();
+      assertThat(breedService.search(searchParams).toList())
+          .as("breeds for %s", searchParams)
+          .containsExactlyElementsOf(breedDao.search(searchParams).stream().map(breedMapper::entityToDto).toList());
+      assertThat(breedService.cacheStats().hits()).isEqualTo(before.hits() + 1);
+      assertThat(breedService.cacheStats().misses()).isEqualTo(before.misses());
+    }
+  }
+
+  @Test
+  public void searchFromCacheFindsTheSameBreedsAsTheDatabaseForEveryPartOfEveryName() {
+    var before = breedService.cacheStats();
+    Set<String> needles = new HashSet<>(List.of("zz", "Ponyx", " ", "ü"));
+    for (var breed : breedDao.findAll()) {
+      var name = breed.getName();
+      for (int start = 0; start < name.length(); start++) {
+        for (int end = start + 1; end <= name.length(); end++) {
+          needles.add(name.substring(start, end));
+          needles.add(name.substring(start, end).toLowerCase(Locale.ROOT));
+        }
+      }
+    }
+    for (var needle : needles) {
+      for (var limit : Arrays.asList(null, 1, 2)) {
+        var searchParams = new BreedSearchDto(needle, limit);
+        assertThat(breedService.search(searchParams).toList())
+            .as("breeds for %s", searchParams)
+            .containsExactlyElementsOf(breedDao.search(searchParams).stream().map(breedMapper::entityToDto).toList());
+      }
+    }
+    assertThat(breedService.cacheStats().misses()).isEqualTo(before.misses());
+  }
+
+  @Test
+  public void searchWithWildcardsGoesToTheDatabase() {
+    var before = breedService.cacheStats();
+    assertThat(breedService.search(new BreedSearchDto("Welsh_", null)))
+        .extracting(BreedDto::name)
+        .containsExactlyInAnyOrder("Welsh Cob", "Welsh Pony");
+    assertThat(breedService.cacheStats().misses()).isEqualTo(before.misses() + 1);
+  }
+
+  @Test
+  public void allGivesEveryBreedWithoutCountingALookup() {
+    var before = breedService.cacheStats();
+    assertThat(breedService.all())
+        .containsExactlyElementsOf(breedDao.findAll().stream().map(breedMapper::entityToDto).toList());
+    assertThat(breedService.cacheStats()).isEqualTo(before);
+  }
+
+  @Test
+  public void findBreedsByIdsIsAnsweredFromCache() {
+    var before = breedService.cacheStats();
+    assertThat(before.size()).isEqualTo(breedDao.findAll().size());
+    assertThat(breedService.findBreedsByIds(Set.of(-1L, -3L)))
+        .containsExactlyInAnyOrder(new BreedDto(-1, "Andalusian"), new BreedDto(-3, "Arabian"));
+    assertThat(breedService.findBreedsByIds(Set.of(-1L, -99999L)))
+        .containsExactly(new BreedDto(-1, "Andalusian"));
+
+    var after = breedService.cacheStats();
+    assertThat(after.hits()).isEqualTo(before.hits() + 1);
+    assertThat(after.misses()).isEqualTo(before.misses() + 1);
+  }
+}
@@ -0,0 +1,133 @@
+package at.ac.tuwien.sepr.assignment.individual.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import at.ac.tuwien.sepr.assignment.individual.TestBase;
+import at.ac.tuwien.sepr.assignment.individual.dto.HorseImportErrorDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.HorseListDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.HorseSearchDto;
+import at.ac.tuwien.sepr.assignment.individual.exception.ValidationException;
+import at.ac.tuwien.sepr.assignment.individual.type.ImportFormat;
+import at.ac.tuwien.sepr.assignment.individual.type.Sex;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles({"test", "datagen"}) // enable "test" spring profile during test execution in order to pick up configuration from application-test.yml
+@SpringBootTest
+public class HorseImportServiceTest extends TestBase {
+
+  @Autowired
+  HorseImportService importService;
+
+  @Autowired
+  HorseService horseService;
+
+  private static InputStream file(String contents) {
+    return new ByteArrayInputStream(contents.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void importCsvCreatesValidHorsesAndReportsInvalidRows() throws Exception {
+    var result = importService.importHorses(file("""
+        name,sex,dateOfBirth,height,weight,breed
+        Csvy,female,2019-08-05,1.4,380,shetland pony
+        "Csv, the Second",MALE,2015-01-01,1.6,500,
+
+        Csv Tall,MALE,2015-01-01,150,500,
+        Csv Unicorn,MALE,2015-01-01,1.6,500,Unicorn
+        Csv Broken,MALE,yesterday,1.6,500,
+        """), ImportFormat.CSV);
+
+    assertThat(result.rows()).isEqualTo(5);
+    assertThat(result.imported()).isEqualTo(2);
+    assertThat(result.failed()).isEqualTo(3);
+    assertThat(result.errors())
+        .extracting(HorseImportErrorDto::line, HorseImportErrorDto::errors)
+        .containsExactly(
+            tuple(5L, List.of("Invalid height given")),
+            tuple(6L, List.of("Breed does not exist")),
+            tuple(7L, List.of("Malformed date of birth")));
+    assertThat(horseService.search(new HorseSearchDto("csv", null, null, null, null, null, null)))
+        .extracting(HorseListDto::name, HorseListDto::sex, HorseListDto::dateOfBirth, h -> h.breed() == null ? null : h.breed().name())
+        .containsExactly(
+            tuple("Csv, the Second", Sex.MALE, LocalDate.of(2015, 1, 1), null),
+            tuple("Csvy", Sex.FEMALE, LocalDate.of(2019, 8, 5), "Shetland Pony"));
+  }
+
+  @Test
+  public void importNdjsonCreatesValidHorsesAndReportsInvalidRows() throws Exception {
+    var result = importService.importHorses(file("""
+        {"name":"Jsony","sex":"FEMALE","dateOfBirth":"2019-08-05","height":1.4,"weight":380,"breed":"Welsh Cob"}
+        {"name":"Json Broken",
+        {"sex":"MALE","dateOfBirth":"2015-01-01","height":1.6,"weight":500}
+        """), ImportFormat.NDJSON);
+
+    assertThat(result.rows()).isEqualTo(3);
+    assertThat(result.imported()).isEqualTo(1);
+    assertThat(result.errors())
+        .extracting(HorseImportErrorDto::line, HorseImportErrorDto::errors)
+        .containsExactly(
+            tuple(2L, List.of("Malformed JSON")),
+            tuple(3L, List.of("No name given")));
+    assertThat(horseService.search(new HorseSearchDto("jsony", null, null, null, "welsh cob", null, null)))
+        .hasSize(1);
+  }
+
+  @Test
+  public void importNdjsonReportsLinesThatAreNoObjectsWithoutShiftingTheOtherRows() throws Exception {
+    var result = importService.importHorses(file("""
+        {"name":"Json First","sex":"FEMALE","dateOfBirth":"2019-08-05","height":1.4,"weight":380}
+        null
+        [{"name":"Json Array","sex":"MALE","dateOfBirth":"2015-01-01","height":1.6,"weight":500}]
+        {"name":"Json Tall","sex":"MALE","dateOfBirth":"2015-01-01","height":150,"weight":500}
+        {"name":"Json Last","sex":"MALE","dateOfBirth":"2015-01-01","height":1.6,"weight":500}
+        """), ImportFormat.NDJSON);
+
+    assertThat(result.rows()).isEqualTo(5);
+    assertThat(result.imported()).isEqualTo(2);
+    assertThat(result.errors())
+        .extracting(HorseImportErrorDto::line, HorseImportErrorDto::errors)
+        .containsExactly(
+            tuple(2L, List.of("Malformed JSON")),
+            tuple(3L, List.of("Malformed JSON")),
+            tuple(4L, List.of("Invalid height given")));
+    assertThat(horseService.search(new HorseSearchDto("json", null, null, null, null, null, null)))
+        .extracting(HorseListDto::name)
+        .containsExactlyInAnyOrder("Json First", "Json Last");
+  }
+
+  @Test
+  public void importWritesLargeFilesInSeveralBatches() throws Exception {
+    int count = HorseImportServiceImpl.BATCH_SIZE * 2 + 500;
+    var rows = IntStream.range(0, count)
+        .mapToObj(i -> "Bulk Horse " + i + "," + (i % 2 == 0 ? "MALE" : "FEMALE") + ",2015-01-01,1.5,450,"
+            + (i % 3 == 0 ? "" : "Haflinger"))
+        .collect(Collectors.joining("\n", "name,sex,dateOfBirth,height,weight,breed\n", "\n"));
+
+    var result = importService.importHorses(file(rows), ImportFormat.CSV);
+
+    assertThat(result.rows()).isEqualTo(count);
+    assertThat(result.imported()).isEqualTo(count);
+    assertThat(result.errors()).isEmpty();
+    assertThat(horseService.search(new HorseSearchDto("bulk horse", null, null, null, null, null, null)))
+        .hasSize(count);
+  }
+
+  @Test
+  public void importCsvWithoutRequiredColumnsThrowsValidationException() {
+    var e = assertThrows(ValidationException.class,
+        () -> importService.importHorses(file("name,sex,height\nNo Birth,MALE,1.5\n"), ImportFormat.CSV));
+    assertThat(e.errors()).containsExactly("Missing CSV column dateofbirth", "Missing CSV column weight");
+  }
+}
@@ -8,6 +8,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import at.ac.tuwien.sepr.assignment.individual.TestBase;
 import at.ac.tuwien.sepr.assignment.individual.dto.BreedDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.HorseBatchResultDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.HorseDetailDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.HorseListDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.HorseSearchDto;
@@ -17,6 +18,7 @@ import at.ac.tuwien.sepr.assignment.individual.exception.NotFoundException;
 import at.ac.tuwien.sepr.assignment.individual.exception.ValidationException;
 import at.ac.tuwien.sepr.assignment.individual.type.Sex;
 import java.time.LocalDate;
+import java.util.List;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -30,8 +32,8 @@ public class HorseServiceTest extends TestBase {
   HorseService horseService;
 
   @Test
-  public void searchByBreedWelFindsThreeHorses() {
-    var searchDto = new HorseSearchDto(null, null, null, null, "Wel", null);
+  public void searchByBreedWelFindsThreeHorses() throws ValidationException {
+    var searchDto = new HorseSearchDto(null, null, null, null, "Wel", null, null);
     var horses = horseService.search(searchDto);
     assertNotNull(horses);
     // We don't have height and weight of the horses here, so no reason to test for them.
@@ -46,11 +48,11 @@ public class HorseServiceTest extends TestBase {
   }
 
   @Test
-  public void searchByBirthDateBetween2017And2018ReturnsFourHorses() {
+  public void searchByBirthDateBetween2017And2018ReturnsFourHorses() throws ValidationException {
     var searchDto = new HorseSearchDto(null, null,
         LocalDate.of(2017, 3, 5),
         LocalDate.of(2018, 10, 10),
-        null, null);
+        null, null, null);
     var horses = horseService.search(searchDto);
     assertNotNull(horses);
     assertThat(horses)
@@ -71,10 +73,10 @@ public class HorseServiceTest extends TestBase {
   @Test
   public void createsHorseSuccessfully() throws ValidationException {
     var horse = new HorseDetailDto(-1L, "Wendy", Sex.FEMALE, LocalDate.of(2019, 8, 5), 1.4f, 380,
-        new BreedDto(-15, "Shetland Pony"));
+        new BreedDto(-15, "Shetland Pony"), null);
     var created = horseService.create(horse);
     assertNotNull(created);
-    assertTrue(created.id().equals(-1L));
+    assertTrue(created.id() > 0); // the ID is generated by the database, the given one is ignored
     assertTrue(created.name().equals("Wendy"));
     assertTrue(created.sex().equals(Sex.FEMALE));
     assertTrue(created.dateOfBirth().equals(LocalDate.of(2019, 8, 5)));
@@ -83,6 +85,36 @@ public class HorseServiceTest extends TestBase {
     assertTrue(created.breed().id() == -15);
   }
 
+  @Test
+  public void createBatchCreatesValidHorsesAndReportsInvalidOnes() throws Exception {
+    var results = horseService.createBatch(List.of(
+        new HorseDetailDto(null, "Batchy", Sex.FEMALE, LocalDate.of(2019, 8, 5), 1.4f, 380,
+            new BreedDto(-15, "Shetland Pony"), null),
+        new HorseDetailDto(null, "Too Tall", Sex.MALE, LocalDate.of(2019, 8, 5), 150, 380, null, null),
+        new HorseDetailDto(null, "Unknown Breed", Sex.MALE, LocalDate.of(2019, 8, 5), 1.4f, 380,
+            new BreedDto(-999, "Unicorn"), null),
+        new HorseDetailDto(null, "Batchman", Sex.MALE, LocalDate.of(2015, 1, 1), 1.6f, 500, null, null)));
+
+    assertThat(results)
+        .extracting(HorseBatchResultDto::index, HorseBatchResultDto::errors)
+        .containsExactly(
+            tuple(0, null),
+            tuple(1, List.of("Invalid height given")),
+            tuple(2, List.of("Breed does not exist")),
+            tuple(3, null));
+    assertThat(results.get(1).id()).isNull();
+    assertThat(horseService.getById(results.get(0).id()).name()).isEqualTo("Batchy");
+    assertThat(horseService.getById(results.get(3).id()).name()).isEqualTo("Batchman");
+    assertThat(horseService.search(new HorseSearchDto("batch", null, null, null, null, null, null)))
+        .extracting(HorseListDto::id)
+        .containsExactly(results.get(3).id(), results.get(0).id());
+  }
+
+  @Test
+  public void createBatchWithoutHorsesThrowsValidationException() {
+    assertThrows(ValidationException.class, () -> horseService.createBatch(List.of()));
+  }
+
   @Test
   public void getByIdWorks() throws NotFoundException {
     long id = -2L;
@@ -110,6 +142,6 @@ public class HorseServiceTest extends TestBase {
 
     assertThrows(ConflictException.class, () -> horseService.update(new HorseDetailDto(id, "Wendy", Sex.FEMALE,
         LocalDate.of(2019, 8, 5), 1.4f, 380,
-        new BreedDto(-15, "Shetland Pony"))));
+        new BreedDto(-15, "Shetland Pony"), null)));
   }
 }
@@ -0,0 +1,153 @@
+package at.ac.tuwien.sepr.assignment.individual.service;
+
+import at.ac.tuwien.sepr.assignment.individual.Benchmarks;
+import at.ac.tuwien.sepr.assignment.individual.TestBase;
+import at.ac.tuwien.sepr.assignment.individual.entity.Bracket;
+import at.ac.tuwien.sepr.assignment.individual.dto.HorseDetailDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.HorseSelectionDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.MatchResultDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.TournamentCreateDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.TournamentStandingsDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.TournamentStandingsTreeDto;
+import at.ac.tuwien.sepr.assignment.individual.type.Sex;
+import java.lang.invoke.MethodHandles;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Latency and memory of the tournament operations for brackets of growing size, which should grow linearly.
+ */
+@ActiveProfiles({"test", "datagen"})
+@SpringBootTest
+@Tag(Benchmarks.TAG)
+public class TournamentBracketBenchmarkTest extends TestBase {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  private static final int[] BRACKET_SIZES = {8, 64, 512, 1024};
+
+  @Autowired
+  TournamentService tournamentService;
+
+  @Autowired
+  HorseService horseService;
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  private List<HorseSelectionDto> createHorses(int count) throws Exception {
+    var horses = IntStream.range(0, count)
+        .mapToObj(i -> new HorseDetailDto(null, "Runner " + i, i % 2 == 0 ? Sex.FEMALE : Sex.MALE,
+            LocalDate.of(2010, 1, 1).plusDays(i), 1.5f, 500, null, null))
+        .toList();
+    return horseService.createBatch(horses).stream()
+        .map(result -> new HorseSelectionDto(result.id(), "Runner " + result.index(), null))
+        .toList();
+  }
+
+  /**
+   * Decide every first round match for the horse that came first, or undo it if it is decided,
+   * so that every update writes half of the participants.
+   */
+  private static TournamentStandingsTreeDto toggleFirstRound(TournamentStandingsTreeDto node) {
+    var branches = node.branches();
+    if (branches.get(0).branches() == null) {
+      return new TournamentStandingsTreeDto(node.thisParticipant() == null ? branches.get(0).thisParticipant() : null,
+          branches);
+    }
+    return new TournamentStandingsTreeDto(null, List.of(toggleFirstRound(branches.get(0)), toggleFirstRound(branches.get(1))));
+  }
+
+  private interface Operation {
+    void run() throws Exception;
+  }
+
+  private static Runnable unchecked(Operation operation) {
+    return () -> {
+      try {
+        operation.run();
+      } catch (Exception e) {
+        throw new IllegalStateException(e);
+      }
+    };
+  }
+
+  @Test
+  public void operationsScaleWithTheBracketSize() throws Exception {
+    var horses = createHorses(BRACKET_SIZES[BRACKET_SIZES.length - 1]);
+    for (int size : BRACKET_SIZES) {
+      var create = new TournamentCreateDto("Qualifier of " + size, LocalDate.of(2024, 5, 1), LocalDate.of(2024, 5, 3),
+          horses.subList(0, size));
+      var id = tournamentService.create(create).id();
+      double createMillis = Benchmarks.medianMillis(unchecked(() -> tournamentService.create(create)));
+      double seedMillis = Benchmarks.medianMillis(unchecked(() -> tournamentService.calculatePointsForHorses(id)));
+
+      // updates go on from the standings the previous one returned, so that their versions are current
+      var standings = new TournamentStandingsDto[] {tournamentService.getStandingsByTournamentId(id)};
+      Runnable update = unchecked(() -> standings[0] = tournamentService.updateStandings(new TournamentStandingsDto(
+          standings[0].id(), standings[0].name(), standings[0].participants(), toggleFirstRound(standings[0].tree()))));
+      double readMillis = Benchmarks.medianMillis(unchecked(() -> tournamentService.getStandingsByTournamentId(id)));
+      double updateMillis = Benchmarks.medianMillis(update);
+      long readBytes = Benchmarks.allocatedBytes(unchecked(() -> tournamentService.getStandingsByTournamentId(id)));
+      long updateBytes = Benchmarks.allocatedBytes(update);
+      LOG.info("Bracket of {}: create {} ms, seed {} ms, read standings {} ms ({} KB), update standings {} ms ({} KB)",
+          size, String.format("%.2f", createMillis), String.format("%.2f", seedMillis), String.format("%.2f", readMillis),
+          readBytes / 1024, String.format("%.2f", updateMillis), updateBytes / 1024);
+    }
+  }
+
+  @Test
+  public void seedingEngineSeeds1024Entrants() {
+    var random = new SplittableRandom(1024);
+    int[] points = random.ints(1024, 0, 50).toArray();
+    int seedsPerRun = 1000;
+    double millis = Benchmarks.medianMillis(() -> {
+      for (int i = 0; i < seedsPerRun; i++) {
+        SeedingEngine.seed(points);
+      }
+    });
+    LOG.info("Seeding 1024 entrants: {} microseconds", String.format("%.2f", millis * 1000 / seedsPerRun));
+  }
+
+  @Test
+  public void simulatorRunsMillionsOfBracketsPerSecond() {
+    var random = new SplittableRandom(8);
+    for (int size : BRACKET_SIZES) {
+      var bracket = new Bracket(size);
+      for (int entry = 1; entry <= size; entry++) {
+        bracket.enter(entry, entry);
+      }
+      double[] strengths = random.doubles(size, 1, 50).toArray();
+      long simulations = 16_000_000L / size;
+      double millis = Benchmarks.medianMillis(() -> BracketSimulator.simulate(bracket, strengths, simulations, 0));
+      LOG.info("Simulating a bracket of {} on {} of {} cores: {} brackets per second", size,
+          BracketSimulator.parallelism(), Runtime.getRuntime().availableProcessors(), String.format("%.0f", simulations * 1000 / millis));
+    }
+  }
+
+  @Test
+  public void standingsHistoryGrowsWithThePathOfAChange() throws Exception {
+    var horses = createHorses(BRACKET_SIZES[BRACKET_SIZES.length - 1]);
+    for (int size : BRACKET_SIZES) {
+      var id = tournamentService.create(new TournamentCreateDto("Archive of " + size, LocalDate.of(2024, 5, 1),
+          LocalDate.of(2024, 5, 3), horses.subList(0, size))).id();
+      var seeded = tournamentService.calculatePointsForHorses(id);
+      tournamentService.recordMatchResult(id, 1, 1, new MatchResultDto(seeded.get(0).horseId()));
+
+      int nodes = jdbcTemplate.queryForObject(
+          "SELECT COUNT(*) FROM standings_node WHERE tournament_id = ? AND version = 3", Integer.class, id);
+      double versionMillis = Benchmarks.medianMillis(unchecked(() -> tournamentService.getStandingsVersion(id, 2)));
+      double changesMillis = Benchmarks.medianMillis(unchecked(() -> tournamentService.getStandingsChanges(id, 2, 3)));
+      LOG.info("Bracket of {}: a match result stores {} of {} nodes, read version {} ms, compare versions {} ms",
+          size, nodes, 2 * size - 1, String.format("%.2f", versionMillis), String.format("%.2f", changesMillis));
+    }
+  }
+}
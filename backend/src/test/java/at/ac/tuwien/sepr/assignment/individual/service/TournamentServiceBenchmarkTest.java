@@ -0,0 +1,143 @@
+package at.ac.tuwien.sepr.assignment.individual.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import at.ac.tuwien.sepr.assignment.individual.Benchmarks;
+import at.ac.tuwien.sepr.assignment.individual.TestBase;
+import at.ac.tuwien.sepr.assignment.individual.dto.HorseSelectionDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.TournamentCreateDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.TournamentStandingsDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.TournamentStandingsTreeDto;
+import at.ac.tuwien.sepr.assignment.individual.mapper.HorseMapper;
+import at.ac.tuwien.sepr.assignment.individual.mapper.TournamentMapper;
+import at.ac.tuwien.sepr.assignment.individual.persistence.HorseDao;
+import at.ac.tuwien.sepr.assignment.individual.persistence.HorseTournamentDao;
+import at.ac.tuwien.sepr.assignment.individual.persistence.StandingsHistoryDao;
+import at.ac.tuwien.sepr.assignment.individual.persistence.TournamentDao;
+import java.lang.invoke.MethodHandles;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+
+/**
+ * Write throughput of the tournament service with and without a transaction around each call.
+ * Without one, every statement commits on its own, which is what made writes slow on the file-backed database,
+ * so unlike the other tests this one runs against a database file (in {@code target}, removed by {@code mvn clean}).
+ * The DAO methods that open a transaction of their own are called without it as well.
+ */
+@ActiveProfiles({"test", "datagen"})
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:./target/benchmark/wendydb")
+@Tag(Benchmarks.TAG)
+public class TournamentServiceBenchmarkTest extends TestBase {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  private static final int CALLS_PER_RUN = 20;
+
+  @Autowired
+  TournamentService tournamentService;
+
+  @Autowired
+  TournamentDao tournamentDao;
+
+  @Autowired
+  HorseDao horseDao;
+
+  @Autowired
+  HorseTournamentDao horseTournamentDao;
+
+  @Autowired
+  StandingsHistoryDao standingsHistoryDao;
+
+  @Autowired
+  TournamentMapper tournamentMapper;
+
+  @Autowired
+  HorseMapper horseMapper;
+
+  @Autowired
+  TournamentValidator validator;
+
+  private TournamentService withoutTransactions() {
+    return new TournamentServiceImpl(tournamentDao, horseDao, AopTestUtils.getUltimateTargetObject(horseTournamentDao),
+        AopTestUtils.getUltimateTargetObject(standingsHistoryDao), tournamentMapper, horseMapper, validator);
+  }
+
+  private static TournamentCreateDto tournament(int i) {
+    var participants = LongStream.rangeClosed(1, 8)
+        .mapToObj(n -> new HorseSelectionDto(-1L - (i + n) % 32, "Horse", LocalDate.of(2015, 1, 1)))
+        .toList();
+    return new TournamentCreateDto("Benchmark Cup " + i, LocalDate.of(2024, 5, 1), LocalDate.of(2024, 5, 3),
+        participants);
+  }
+
+  private static void createTournaments(TournamentService service) {
+    try {
+      for (int i = 0; i < CALLS_PER_RUN; i++) {
+        service.create(tournament(i));
+      }
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Decide all quarterfinals of the given standings, or undo them if they are decided, so that every call
+   * writes the four winners.
+   */
+  private static TournamentStandingsDto toggleQuarterfinals(TournamentStandingsDto standings) {
+    var semifinals = new ArrayList<TournamentStandingsTreeDto>();
+    for (var semifinal : standings.tree().branches()) {
+      var quarterfinals = new ArrayList<TournamentStandingsTreeDto>();
+      for (var quarterfinal : semifinal.branches()) {
+        var winner = quarterfinal.thisParticipant() == null ? quarterfinal.branches().get(0).thisParticipant() : null;
+        quarterfinals.add(new TournamentStandingsTreeDto(winner, quarterfinal.branches()));
+      }
+      semifinals.add(new TournamentStandingsTreeDto(null, quarterfinals));
+    }
+    return new TournamentStandingsDto(standings.id(), standings.name(), standings.participants(),
+        new TournamentStandingsTreeDto(null, semifinals));
+  }
+
+  private static void updateStandings(TournamentService service, Long tournamentId) {
+    try {
+      var standings = service.getStandingsByTournamentId(tournamentId);
+      for (int i = 0; i < CALLS_PER_RUN; i++) {
+        standings = service.updateStandings(toggleQuarterfinals(standings));
+      }
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static String perSecond(double millisPerRun) {
+    return String.format("%.0f", CALLS_PER_RUN * 1000 / millisPerRun);
+  }
+
+  @Test
+  public void createTournaments() {
+    double without = Benchmarks.medianMillis(() -> createTournaments(withoutTransactions()));
+    double with = Benchmarks.medianMillis(() -> createTournaments(tournamentService));
+    LOG.info("Create tournament: {} per second with a commit per statement, {} per second with one per call",
+        perSecond(without), perSecond(with));
+  }
+
+  @Test
+  public void updateStandings() throws Exception {
+    var created = tournamentService.create(tournament(0));
+    var standings = tournamentService.generateFirstRound(tournamentService.getStandingsByTournamentId(created.id()));
+    assertThat(toggleQuarterfinals(toggleQuarterfinals(standings)).tree()).isEqualTo(standings.tree());
+
+    double without = Benchmarks.medianMillis(() -> updateStandings(withoutTransactions(), created.id()));
+    double with = Benchmarks.medianMillis(() -> updateStandings(tournamentService, created.id()));
+    LOG.info("Update standings: {} per second with a commit per statement, {} per second with one per call",
+        perSecond(without), perSecond(with));
+  }
+}
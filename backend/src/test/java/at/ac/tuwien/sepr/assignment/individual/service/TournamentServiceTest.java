@@ -1,12 +1,49 @@
 package at.ac.tuwien.sepr.assignment.individual.service;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.assertj.core.api.Assertions.within;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
 import at.ac.tuwien.sepr.assignment.individual.TestBase;
+import at.ac.tuwien.sepr.assignment.individual.dto.HorseSelectionDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.MatchResultDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.StandingsChangeDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.StandingsVersionDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.TournamentCreateDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.TournamentDetailParticipantDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.TournamentPredictionDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.TournamentSearchParamsDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.TournamentStandingsDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.TournamentStandingsTreeDto;
+import at.ac.tuwien.sepr.assignment.individual.entity.HorseTournament;
+import at.ac.tuwien.sepr.assignment.individual.exception.ConflictException;
 import at.ac.tuwien.sepr.assignment.individual.exception.NotFoundException;
+import at.ac.tuwien.sepr.assignment.individual.exception.ValidationException;
+import at.ac.tuwien.sepr.assignment.individual.persistence.HorseDao;
+import at.ac.tuwien.sepr.assignment.individual.persistence.HorsePointsDao;
+import at.ac.tuwien.sepr.assignment.individual.persistence.HorseTournamentDao;
+import at.ac.tuwien.sepr.assignment.individual.persistence.TournamentDao;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @ActiveProfiles({"test", "datagen"}) // enable "test" spring profile during test execution in order to pick up configuration from application-test.yml
 @SpringBootTest
@@ -15,7 +52,481 @@ public class TournamentServiceTest extends TestBase {
   @Autowired
   TournamentService tournamentService;
 
+  @Autowired
+  HorseTournamentDao horseTournamentDao;
+
+  @Autowired
+  HorseDao horseDao;
+
+  @Autowired
+  TournamentDao tournamentDao;
+
+  @Autowired
+  HorsePointsDao horsePointsDao;
+
+  @Autowired
+  PlatformTransactionManager transactionManager;
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  private static List<HorseSelectionDto> participants(long... ids) {
+    return Arrays.stream(ids)
+        .mapToObj(id -> new HorseSelectionDto(id, "Horse " + id, LocalDate.of(2015, 1, 1)))
+        .toList();
+  }
+
+  @Test
+  public void createStoresParticipantsWithoutEntryNumberInTheFirstRound() throws Exception {
+    var created = tournamentService.create(new TournamentCreateDto("Twin Cup", LocalDate.of(2024, 5, 1),
+        LocalDate.of(2024, 5, 3), participants(-30L, -29L, -28L, -27L, -26L, -25L, -24L, -23L)));
+
+    assertThat(created.participants())
+        .extracting(TournamentDetailParticipantDto::horseId, TournamentDetailParticipantDto::entryNumber,
+            TournamentDetailParticipantDto::roundReached, TournamentDetailParticipantDto::version)
+        .containsExactlyInAnyOrderElementsOf(horseTournamentDao.getHorsesByIDTournament(created.id()).stream()
+            .map(stored -> tuple(stored.getHorseId(), stored.getEntryNumber(), stored.getRoundReached(), stored.getVersion()))
+            .toList())
+        .containsOnly(tuple(-30L, -1, 0, 0), tuple(-29L, -1, 0, 0), tuple(-28L, -1, 0, 0), tuple(-27L, -1, 0, 0),
+            tuple(-26L, -1, 0, 0), tuple(-25L, -1, 0, 0), tuple(-24L, -1, 0, 0), tuple(-23L, -1, 0, 0));
+  }
+
+  @Test
+  public void createTournamentsWithSameNameAndDatesKeepsTheirParticipantsApart() throws Exception {
+    var first = tournamentService.create(new TournamentCreateDto("Twin Cup", LocalDate.of(2024, 5, 1),
+        LocalDate.of(2024, 5, 3), participants(-30L, -29L, -28L, -27L, -26L, -25L, -24L, -23L)));
+    var second = tournamentService.create(new TournamentCreateDto("Twin Cup", LocalDate.of(2024, 5, 1),
+        LocalDate.of(2024, 5, 3), participants(-1L, -2L, -3L, -4L, -5L, -6L, -7L, -8L)));
+
+    assertThat(second.id()).isNotEqualTo(first.id());
+    assertThat(horseTournamentDao.getHorsesByIDTournament(first.id()))
+        .extracting(HorseTournament::getHorseId)
+        .containsExactlyInAnyOrder(-30L, -29L, -28L, -27L, -26L, -25L, -24L, -23L);
+    assertThat(horseTournamentDao.getHorsesByIDTournament(second.id()))
+        .extracting(HorseTournament::getHorseId)
+        .containsExactlyInAnyOrder(-1L, -2L, -3L, -4L, -5L, -6L, -7L, -8L);
+  }
+
+  @Test
+  public void createWithUnknownHorseCreatesNothing() throws Exception {
+    assertThrows(DataIntegrityViolationException.class, () -> tournamentService.create(new TournamentCreateDto(
+        "Ghost Cup", LocalDate.of(2024, 5, 1), LocalDate.of(2024, 5, 3),
+        participants(-30L, -29L, -28L, -27L, -26L, -25L, -24L, -99999L))));
+
+    assertThat(tournamentService.search(new TournamentSearchParamsDto("Ghost Cup", null, null, null, null))).isEmpty();
+  }
+
+  @Test
+  public void getStandingsHydratesAllParticipants() throws Exception {
+    TournamentStandingsDto standings = tournamentService.getStandingsByTournamentId(-1L);
+
+    assertThat(standings.participants()).hasSize(8);
+    for (var participant : standings.participants()) {
+      var horse = horseDao.getById(participant.horseId());
+      assertThat(participant.name()).isEqualTo(horse.getName());
+      assertThat(participant.dateOfBirth()).isEqualTo(horse.getDateOfBirth());
+    }
+  }
+
+  @Test
+  public void getStandingsOfUnknownTournamentThrowsNotFoundException() {
+    assertThrows(NotFoundException.class, () -> tournamentService.getStandingsByTournamentId(-999L));
+  }
+
+  @Test
+  public void updateStandingsWithoutChangesWritesNothing() throws Exception {
+    var before = versionsOf(-1L);
+
+    var updated = tournamentService.updateStandings(tournamentService.getStandingsByTournamentId(-1L));
+
+    assertThat(versionsOf(-1L)).isEqualTo(before);
+    assertThat(updated).isEqualTo(tournamentService.getStandingsByTournamentId(-1L));
+  }
+
+  @Test
+  public void updateStandingsWritesOnlyTheChangedParticipants() throws Exception {
+    var standings = tournamentService.getStandingsByTournamentId(-1L);
+    var before = versionsOf(-1L);
+
+    // undo the final: the winner -8 falls back to the final round it reached
+    var tree = new TournamentStandingsTreeDto(null, standings.tree().branches());
+    var updated = tournamentService.updateStandings(new TournamentStandingsDto(standings.id(), standings.name(),
+        standings.participants(), tree));
+    assertThat(updated).isEqualTo(tournamentService.getStandingsByTournamentId(-1L));
+
+    before.put(-8L, before.get(-8L) + 1);
+    assertThat(versionsOf(-1L)).isEqualTo(before);
+    assertThat(horseTournamentDao.getHorsesByIDTournament(-1L))
+        .filteredOn(horse -> horse.getHorseId() == -8L)
+        .extracting(HorseTournament::getRoundReached)
+        .containsExactly(3);
+  }
+
+  @Test
+  public void updateStandingsReturnsWhatReadingThemBackReturns() throws Exception {
+    var created = tournamentService.create(new TournamentCreateDto("Echo Cup", LocalDate.of(2024, 5, 1),
+        LocalDate.of(2024, 5, 3), participants(-30L, -29L, -28L, -27L, -26L, -25L, -24L, -23L)));
+    var standings = tournamentService.generateFirstRound(tournamentService.getStandingsByTournamentId(created.id()));
+
+    // the first horse of every quarterfinal wins it, the first semifinal is decided as well
+    var quarterfinals = new ArrayList<TournamentStandingsTreeDto>();
+    for (var semifinal : standings.tree().branches()) {
+      for (var quarterfinal : semifinal.branches()) {
+        quarterfinals.add(new TournamentStandingsTreeDto(quarterfinal.branches().get(0).thisParticipant(),
+            quarterfinal.branches()));
+      }
+    }
+    var tree = new TournamentStandingsTreeDto(null, List.of(
+        new TournamentStandingsTreeDto(quarterfinals.get(1).thisParticipant(), quarterfinals.subList(0, 2)),
+        new TournamentStandingsTreeDto(null, quarterfinals.subList(2, 4))));
+
+    var updated = tournamentService.updateStandings(new TournamentStandingsDto(standings.id(), standings.name(),
+        standings.participants(), tree));
+
+    assertThat(updated).isEqualTo(tournamentService.getStandingsByTournamentId(created.id()));
+    assertThat(updated.participants())
+        .extracting(TournamentDetailParticipantDto::roundReached)
+        .containsExactlyInAnyOrder(1, 1, 1, 1, 2, 2, 2, 3);
+  }
+
+  @Test
+  public void updateStandingsReturnsTheStoredNamesRatherThanTheSubmittedOnes() throws Exception {
+    var standings = tournamentService.getStandingsByTournamentId(-1L);
+    var renamed = standings.participants().stream()
+        .map(p -> new TournamentDetailParticipantDto(p.horseId(), "Not " + p.name(), p.dateOfBirth().plusDays(1),
+            p.entryNumber(), p.roundReached(), p.version()))
+        .toList();
+
+    var updated = tournamentService.updateStandings(new TournamentStandingsDto(standings.id(), "Not " + standings.name(),
+        renamed, new TournamentStandingsTreeDto(null, standings.tree().branches())));
+
+    assertThat(updated).isEqualTo(tournamentService.getStandingsByTournamentId(-1L));
+    assertThat(updated.name()).isEqualTo(standings.name());
+    assertThat(updated.participants()).extracting(TournamentDetailParticipantDto::name)
+        .containsExactlyInAnyOrderElementsOf(standings.participants().stream().map(TournamentDetailParticipantDto::name).toList());
+  }
+
+  @Test
+  public void getStandingsPlacesEveryHorseByItsEntryNumberAndRound() throws Exception {
+    var tree = tournamentService.getStandingsByTournamentId(-1L).tree();
+
+    // entries 1 .. 8 are -8, -7, -10, -5, -19, -4, -1, -3
+    assertThat(tree.thisParticipant().horseId()).isEqualTo(-8L);
+    assertThat(tree.branches())
+        .extracting(semifinal -> semifinal.thisParticipant().horseId())
+        .containsExactly(-8L, -4L);
+    assertThat(tree.branches().stream().flatMap(semifinal -> semifinal.branches().stream()))
+        .extracting(quarterfinal -> quarterfinal.thisParticipant().horseId())
+        .containsExactly(-8L, -5L, -4L, -3L);
+    assertThat(tree.branches().stream()
+        .flatMap(semifinal -> semifinal.branches().stream())
+        .flatMap(quarterfinal -> quarterfinal.branches().stream()))
+        .allMatch(leaf -> leaf.branches() == null)
+        .extracting(leaf -> leaf.thisParticipant().horseId())
+        .containsExactly(-8L, -7L, -10L, -5L, -19L, -4L, -1L, -3L);
+  }
+
+  @Test
+  public void updateStandingsWithWinnerThatDidNotPlayThrowsValidationException() throws Exception {
+    var standings = tournamentService.getStandingsByTournamentId(-1L);
+    var before = versionsOf(-1L);
+
+    // -7 lost its quarterfinal against -8, so it cannot win the first semifinal
+    var semifinals = standings.tree().branches();
+    var loser = semifinals.get(0).branches().get(0).branches().get(1).thisParticipant();
+    var tree = new TournamentStandingsTreeDto(standings.tree().thisParticipant(), List.of(
+        new TournamentStandingsTreeDto(loser, semifinals.get(0).branches()), semifinals.get(1)));
+
+    var e = assertThrows(ValidationException.class, () -> tournamentService.updateStandings(
+        new TournamentStandingsDto(standings.id(), standings.name(), standings.participants(), tree)));
+    assertThat(e.errors()).containsExactly("Invalid tree given");
+    assertThat(versionsOf(-1L)).isEqualTo(before);
+  }
+
+  @Test
+  public void updateStandingsWithTreeOfWrongShapeThrowsValidationException() throws Exception {
+    var standings = tournamentService.getStandingsByTournamentId(-1L);
+    // the quarterfinals are missing
+    var tree = new TournamentStandingsTreeDto(null, List.of(
+        new TournamentStandingsTreeDto(null, null), new TournamentStandingsTreeDto(null, null)));
+
+    var e = assertThrows(ValidationException.class, () -> tournamentService.updateStandings(
+        new TournamentStandingsDto(standings.id(), standings.name(), standings.participants(), tree)));
+    assertThat(e.errors()).containsExactly("Invalid tree given");
+  }
+
+  @Test
+  public void bracketOf16HorsesIsSeededAndPlayedToTheEnd() throws Exception {
+    var created = tournamentService.create(new TournamentCreateDto("Sixteen Cup", LocalDate.of(2024, 5, 1),
+        LocalDate.of(2024, 5, 3), participants(LongStream.rangeClosed(-16, -1).toArray())));
+    assertThat(tournamentDao.getById(created.id()).getBracketSize()).isEqualTo(16);
+
+    var standings = tournamentService.generateFirstRound(tournamentService.getStandingsByTournamentId(created.id()));
+    var leaves = List.of(standings.tree());
+    for (int round = 1; round <= 4; round++) {
+      leaves = leaves.stream().flatMap(node -> node.branches().stream()).toList();
+    }
+    assertThat(leaves)
+        .allMatch(leaf -> leaf.branches() == null)
+        .extracting(leaf -> leaf.thisParticipant().entryNumber())
+        .containsExactly(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16);
+
+    // the horse with the lower entry number wins every match
+    for (int round = 1; round <= 4; round++) {
+      for (int slot = 1; slot <= 16 >> round; slot++) {
+        int entry = ((slot - 1) << round) + 1;
+        var winner = standings.participants().stream().filter(p -> p.entryNumber() == entry).findFirst().orElseThrow();
+        tournamentService.recordMatchResult(created.id(), round, slot, new MatchResultDto(winner.horseId()));
+      }
+    }
+    var played = tournamentService.getStandingsByTournamentId(created.id());
+    assertThat(played.tree().thisParticipant().entryNumber()).isEqualTo(1);
+    assertThat(played.participants())
+        .extracting(TournamentDetailParticipantDto::roundReached)
+        .containsExactlyInAnyOrder(5, 4, 3, 3, 2, 2, 2, 2, 1, 1, 1, 1, 1, 1, 1, 1);
+    assertThat(horsePointsDao.check()).isEmpty();
+  }
+
+  @Test
+  public void createWithNumberOfHorsesThatIsNoPowerOfTwoThrowsValidationException() {
+    var e = assertThrows(ValidationException.class, () -> tournamentService.create(new TournamentCreateDto("Six Cup",
+        LocalDate.of(2024, 5, 1), LocalDate.of(2024, 5, 3), participants(-1L, -2L, -3L, -4L, -5L, -6L))));
+    assertThat(e.errors()).containsExactly("Number of horses must be a power of two from 2 to 1024");
+  }
+
+  @Test
+  public void standingsHistoryKeepsEveryChangeAndCanBeRestored() throws Exception {
+    var created = tournamentService.create(new TournamentCreateDto("History Cup", LocalDate.of(2024, 5, 1),
+        LocalDate.of(2024, 5, 3), participants(LongStream.rangeClosed(-16, -1).toArray())));
+    var seeded = tournamentService.calculatePointsForHorses(created.id());
+    long winner = seeded.get(0).horseId();
+    tournamentService.recordMatchResult(created.id(), 1, 1, new MatchResultDto(winner));
+
+    assertThat(tournamentService.getStandingsVersions(created.id()))
+        .extracting(StandingsVersionDto::version).containsExactly(1, 2, 3);
+    assertThat(tournamentService.getStandingsChanges(created.id(), 1, 2))
+        .extracting(StandingsChangeDto::round, StandingsChangeDto::position, StandingsChangeDto::fromHorseId,
+            StandingsChangeDto::toHorseId)
+        .containsExactlyElementsOf(seeded.stream()
+            .map(p -> tuple(1, p.entryNumber(), null, p.horseId()))
+            .toList());
+    assertThat(tournamentService.getStandingsChanges(created.id(), 2, 3))
+        .containsExactly(new StandingsChangeDto(2, 1, null, winner));
+
+    var beforeMatch = tournamentService.getStandingsVersion(created.id(), 2);
+    assertThat(beforeMatch.participants())
+        .extracting(TournamentDetailParticipantDto::horseId, TournamentDetailParticipantDto::roundReached)
+        .containsExactlyInAnyOrderElementsOf(seeded.stream().map(p -> tuple(p.horseId(), 1)).toList());
+    assertThat(beforeMatch.tree().thisParticipant()).isNull();
+    assertThat(tournamentService.getStandingsVersion(created.id(), 1).participants())
+        .allSatisfy(participant -> assertThat(participant.roundReached()).isZero());
+
+    // the version carries the current participation versions, so it can be submitted as it is
+    tournamentService.updateStandings(beforeMatch);
+    assertThat(tournamentService.getStandingsChanges(created.id(), 2, 4)).isEmpty();
+    assertThat(tournamentService.getStandingsChanges(created.id(), 3, 4))
+        .containsExactly(new StandingsChangeDto(2, 1, winner, null));
+    assertThrows(NotFoundException.class, () -> tournamentService.getStandingsVersion(created.id(), 5));
+  }
+
+  @Test
+  public void standingsHistoryOfExistingTournamentStartsWithItsStandings() throws Exception {
+    assertThat(tournamentService.getStandingsVersions(-1L)).isEmpty();
+    var standings = tournamentService.getStandingsByTournamentId(-1L);
+
+    // an update without changes keeps the standings as they were, but does not add a version of its own
+    tournamentService.updateStandings(standings);
+
+    assertThat(tournamentService.getStandingsVersions(-1L)).extracting(StandingsVersionDto::version).containsExactly(1);
+    assertThat(tournamentService.getStandingsVersion(-1L, 1).tree()).isEqualTo(standings.tree());
+    assertThrows(NotFoundException.class, () -> tournamentService.getStandingsVersions(-999L));
+  }
+
+  @Test
+  public void predictDecidedTournamentGivesTheRoundsReached() throws Exception {
+    var predictions = tournamentService.predict(-1L, 1000, 0);
+
+    assertThat(predictions)
+        .extracting(TournamentPredictionDto::horseId, TournamentPredictionDto::reachProbabilities)
+        .containsExactly(
+            tuple(-8L, List.of(1.0, 1.0, 1.0, 1.0)), tuple(-7L, List.of(1.0, 0.0, 0.0, 0.0)),
+            tuple(-10L, List.of(1.0, 0.0, 0.0, 0.0)), tuple(-5L, List.of(1.0, 1.0, 0.0, 0.0)),
+            tuple(-19L, List.of(1.0, 0.0, 0.0, 0.0)), tuple(-4L, List.of(1.0, 1.0, 1.0, 0.0)),
+            tuple(-1L, List.of(1.0, 0.0, 0.0, 0.0)), tuple(-3L, List.of(1.0, 1.0, 0.0, 0.0)));
+  }
+
+  @Test
+  public void predictSimulatesOnlyTheUndecidedMatchesAndRepeatsForTheSameSeed() throws Exception {
+    // the window 2010-02-15 .. 2011-02-14 gives some of the horses points
+    var created = tournamentService.create(new TournamentCreateDto("Oracle Cup", LocalDate.of(2011, 2, 15),
+        LocalDate.of(2011, 2, 20), participants(LongStream.rangeClosed(-16, -1).toArray())));
+    assertThrows(ConflictException.class, () -> tournamentService.predict(created.id(), 1000, 0));
+    var seeded = tournamentService.calculatePointsForHorses(created.id());
+    tournamentService.recordMatchResult(created.id(), 1, 1, new MatchResultDto(seeded.get(1).horseId()));
+
+    var predictions = tournamentService.predict(created.id(), 200_000, 42);
+    assertThat(tournamentService.predict(created.id(), 200_000, 42)).isEqualTo(predictions);
+    assertThat(tournamentService.predict(created.id(), 200_000, 43)).isNotEqualTo(predictions);
+
+    assertThat(predictions).extracting(TournamentPredictionDto::entryNumber)
+        .containsExactlyElementsOf(IntStream.rangeClosed(1, 16).boxed().toList());
+    assertThat(predictions.get(0).reachProbabilities()).containsExactly(1.0, 0.0, 0.0, 0.0, 0.0);
+    assertThat(predictions.get(1).reachProbabilities().subList(0, 2)).containsExactly(1.0, 1.0);
+    // in every simulated bracket, 16 >> (round - 1) horses reach a round
+    for (int round = 1; round <= 5; round++) {
+      int index = round - 1;
+      assertThat(predictions.stream().mapToDouble(p -> p.reachProbabilities().get(index)).sum())
+          .isCloseTo(16 >> index, within(1e-9));
+    }
+    assertThrows(ValidationException.class, () -> tournamentService.predict(created.id(), 0, 0));
+    // every simulation plays the 15 matches of the bracket
+    assertThrows(ValidationException.class,
+        () -> tournamentService.predict(created.id(), TournamentValidator.MAX_SIMULATED_MATCHES / 15 + 1, 0));
+  }
+
+  @Test
+  public void recordMatchResultAdvancesOnlyTheWinner() throws Exception {
+    var created = tournamentService.create(new TournamentCreateDto("Match Cup", LocalDate.of(2024, 5, 1),
+        LocalDate.of(2024, 5, 3), participants(-30L, -29L, -28L, -27L, -26L, -25L, -24L, -23L)));
+    var seeded = tournamentService.calculatePointsForHorses(created.id());
+    var before = versionsOf(created.id());
+    var winner = seeded.get(1);
+
+    var recorded = tournamentService.recordMatchResult(created.id(), 1, 1, new MatchResultDto(winner.horseId()));
+
+    assertThat(recorded)
+        .extracting(TournamentDetailParticipantDto::horseId, TournamentDetailParticipantDto::entryNumber,
+            TournamentDetailParticipantDto::roundReached, TournamentDetailParticipantDto::version)
+        .containsExactly(winner.horseId(), 2, 2, before.get(winner.horseId()) + 1);
+    before.put(winner.horseId(), before.get(winner.horseId()) + 1);
+    assertThat(versionsOf(created.id())).isEqualTo(before);
+    assertThat(tournamentService.getStandingsByTournamentId(created.id()).tree().branches().get(0).branches().get(0)
+        .thisParticipant().horseId()).isEqualTo(winner.horseId());
+  }
+
+  @Test
+  public void recordMatchResultRejectsMatchesThatCannotBeDecided() throws Exception {
+    var created = tournamentService.create(new TournamentCreateDto("Match Cup", LocalDate.of(2024, 5, 1),
+        LocalDate.of(2024, 5, 3), participants(-30L, -29L, -28L, -27L, -26L, -25L, -24L, -23L)));
+    assertThrows(ConflictException.class,
+        () -> tournamentService.recordMatchResult(created.id(), 1, 1, new MatchResultDto(-30L)));
+
+    var seeded = tournamentService.calculatePointsForHorses(created.id());
+    // the semifinal needs the winners of both quarterfinals
+    tournamentService.recordMatchResult(created.id(), 1, 1, new MatchResultDto(seeded.get(0).horseId()));
+    assertThrows(ConflictException.class,
+        () -> tournamentService.recordMatchResult(created.id(), 2, 1, new MatchResultDto(seeded.get(0).horseId())));
+    // a match is decided only once
+    assertThrows(ConflictException.class,
+        () -> tournamentService.recordMatchResult(created.id(), 1, 1, new MatchResultDto(seeded.get(1).horseId())));
+    // the winner has to play in the match
+    assertThrows(ValidationException.class,
+        () -> tournamentService.recordMatchResult(created.id(), 1, 2, new MatchResultDto(seeded.get(0).horseId())));
+    assertThrows(ValidationException.class,
+        () -> tournamentService.recordMatchResult(created.id(), 1, 5, new MatchResultDto(seeded.get(7).horseId())));
+    assertThrows(NotFoundException.class,
+        () -> tournamentService.recordMatchResult(-999L, 1, 1, new MatchResultDto(-30L)));
+  }
+
+  @Test
+  public void recordMatchResultRejectsAConcurrentResultForTheSameMatch() throws Exception {
+    var created = tournamentService.create(new TournamentCreateDto("Match Cup", LocalDate.of(2024, 5, 1),
+        LocalDate.of(2024, 5, 3), participants(-30L, -29L, -28L, -27L, -26L, -25L, -24L, -23L)));
+    var seeded = tournamentService.calculatePointsForHorses(created.id());
+    var firstRecorded = new CountDownLatch(1);
+
+    // the first judge keeps their transaction open until the second one waits for it
+    var first = CompletableFuture.supplyAsync(() -> new TransactionTemplate(transactionManager).execute(status -> {
+      try {
+        var recorded = tournamentService.recordMatchResult(created.id(), 1, 1, new MatchResultDto(seeded.get(0).horseId()));
+        firstRecorded.countDown();
+        while (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.SESSIONS WHERE BLOCKER_ID IS NOT NULL",
+            Integer.class) == 0) {
+          Thread.sleep(10);
+        }
+        return recorded;
+      } catch (Exception e) {
+        throw new IllegalStateException(e);
+      }
+    }));
+    firstRecorded.await();
+    var second = assertThrows(ConflictException.class,
+        () -> tournamentService.recordMatchResult(created.id(), 1, 1, new MatchResultDto(seeded.get(1).horseId())));
+
+    assertThat(second.errors()).containsExactly("Match 1 of round 1 was already decided");
+    assertThat(first.get().horseId()).isEqualTo(seeded.get(0).horseId());
+    assertThat(horseTournamentDao.getHorsesByIDTournament(created.id()))
+        .filteredOn(participation -> participation.getRoundReached() > 1)
+        .extracting(HorseTournament::getHorseId)
+        .containsExactly(seeded.get(0).horseId());
+  }
+
+  private Map<Long, Integer> versionsOf(Long tournamentId) {
+    Map<Long, Integer> versions = new HashMap<>();
+    horseTournamentDao.getHorsesByIDTournament(tournamentId).forEach(h -> versions.put(h.getHorseId(), h.getVersion()));
+    return versions;
+  }
+
+  @Test
+  public void calculatePointsRanksParticipantsByPointsOfTheLast12Months() throws Exception {
+    // the window 2010-02-15 .. 2011-02-14 covers tournaments -1 and -2
+    var created = tournamentService.create(new TournamentCreateDto("Points Cup", LocalDate.of(2011, 2, 15),
+        LocalDate.of(2011, 2, 20), participants(-1L, -2L, -3L, -4L, -5L, -6L, -7L, -8L)));
+
+    var expected = rankByRecomputedPoints(created.participants(), LocalDate.of(2011, 2, 15));
+    var seeded = tournamentService.calculatePointsForHorses(created.id());
+
+    assertThat(seeded)
+        .extracting(TournamentDetailParticipantDto::horseId, TournamentDetailParticipantDto::entryNumber)
+        .containsExactly(
+            tuple(expected.get(0), 1), tuple(expected.get(7), 2), tuple(expected.get(3), 3), tuple(expected.get(4), 4),
+            tuple(expected.get(1), 5), tuple(expected.get(6), 6), tuple(expected.get(2), 7), tuple(expected.get(5), 8));
+    assertThat(horseTournamentDao.getHorsesByIDTournament(created.id()))
+        .extracting(HorseTournament::getHorseId, HorseTournament::getEntryNumber, HorseTournament::getRoundReached)
+        .containsExactlyInAnyOrderElementsOf(seeded.stream()
+            .map(p -> tuple(p.horseId(), p.entryNumber(), 1))
+            .toList());
+  }
 
+  @Test
+  public void calculatePointsWithoutHistoryRanksParticipantsByName() throws Exception {
+    var created = tournamentService.create(new TournamentCreateDto("Fresh Cup", LocalDate.of(2025, 1, 1),
+        LocalDate.of(2025, 1, 3), participants(-32L, -31L, -30L, -29L, -28L, -27L, -26L, -25L)));
 
+    // Buddy, Cody, Daisy, Leo, Lucky, Luna, Molly, Rosie
+    assertThat(tournamentService.calculatePointsForHorses(created.id()))
+        .extracting(TournamentDetailParticipantDto::name)
+        .containsExactly("Buddy", "Rosie", "Leo", "Lucky", "Cody", "Molly", "Daisy", "Luna");
+  }
 
+  /**
+   * Rank the participants by the points of their tournaments in the 12 months before {@code startDate},
+   * computed the way the service did before the aggregation moved into the database.
+   */
+  private List<Long> rankByRecomputedPoints(List<TournamentDetailParticipantDto> participants, LocalDate startDate)
+      throws Exception {
+    Map<Long, Integer> points = new HashMap<>();
+    participants.forEach(p -> points.put(p.horseId(), 0));
+    // straight from the results of the tournaments that ended in the window, not from the points read model
+    jdbcTemplate.query("SELECT th.horse_id, th.round_reached FROM tournament_horses th"
+        + " JOIN tournament t ON t.id = th.tournament_id WHERE t.end_date BETWEEN ? AND ?", (RowCallbackHandler) rs -> {
+          int earned = switch (rs.getInt("round_reached")) {
+            case 4 -> 5;
+            case 3 -> 3;
+            case 2 -> 1;
+            default -> 0;
+          };
+          points.computeIfPresent(rs.getLong("horse_id"), (id, sum) -> sum + earned);
+        }, startDate.minusMonths(12), startDate.minusDays(1));
+    assertThat(points.values()).as("the window must award points").anyMatch(p -> p > 0);
+    Map<Long, String> names = new HashMap<>();
+    for (var horse : horseDao.getByIds(points.keySet())) {
+      names.put(horse.getId(), horse.getName());
+    }
+    return points.keySet().stream()
+        .sorted(Comparator.<Long>comparingInt(id -> -points.get(id))
+            .thenComparing(names::get)
+            .thenComparing(Comparator.naturalOrder()))
+        .toList();
+  }
 }
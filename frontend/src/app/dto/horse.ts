@@ -8,6 +8,7 @@ import {Breed} from "./breed";
  * @param name the name of the horse
  * @param sex the sex of the horse
  * @param dateOfBirth the date of birth of the horse
+ * @param version the version of the horse as loaded, sent back on update to detect concurrent changes
  */
 export interface Horse {
   id?: number;
@@ -17,6 +18,7 @@ export interface Horse {
   height: number | null;
   weight: number | null;
   breed?: Breed;
+  version?: number;
 }
 
 /**
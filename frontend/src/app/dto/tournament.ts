@@ -68,6 +68,7 @@ export interface TournamentDetailDto {
  * @param dateOfBirth the date of birth of the horse
  * @param entryNumber the entry number of the horse, can be undefined
  * @param roundReached the round reached of the horse, can be undefined
+ * @param version the version of the participation as loaded, sent back on update to detect concurrent changes
  */
 export interface TournamentDetailParticipantDto {
   horseId: number;
@@ -75,6 +76,7 @@ export interface TournamentDetailParticipantDto {
   dateOfBirth: Date;
   entryNumber?: number;
   roundReached?: number;
+  version?: number;
 }
 
 /**